@@ -0,0 +1,109 @@
+package io.opsit.version;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Numeric classification of version components on a corpus heavy
+ * with prerelease identifiers.
+ *
+ * <p>Compares the exception based classifier that Version used to
+ * have with the char scanning one.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClassifyBenchmark {
+  private static final String[] TAGS = {
+    "alpha", "beta", "rc", "SNAPSHOT", "M1", "pre", "dev", "final"
+  };
+
+  private String[] components;
+  private List<Version> versions;
+
+  @Setup
+  public void setup() {
+    final Random rnd = new Random(42);
+    final List<String> comps = new ArrayList<String>();
+    versions = new ArrayList<Version>();
+    for (int i = 0; i < 10000; i++) {
+      final String spec = prereleaseHeavySpec(rnd);
+      final Version ver = Version.parseVersion(spec);
+      versions.add(ver);
+      comps.addAll(ver.getVersions());
+      comps.addAll(ver.getPrereleaseIds());
+    }
+    components = comps.toArray(new String[comps.size()]);
+  }
+
+  static String prereleaseHeavySpec(Random rnd) {
+    final StringBuilder buf = new StringBuilder();
+    buf.append(rnd.nextInt(5)).append('.')
+      .append(rnd.nextInt(20)).append('.')
+      .append(rnd.nextInt(50));
+    if (rnd.nextInt(10) < 8) {
+      buf.append('-').append(TAGS[rnd.nextInt(TAGS.length)]);
+      if (rnd.nextBoolean()) {
+        buf.append('.').append(rnd.nextInt(12));
+      }
+      if (rnd.nextInt(4) == 0) {
+        buf.append('.').append(Long.toHexString(rnd.nextLong()).substring(0, 7));
+      }
+    }
+    return buf.toString();
+  }
+
+  private static boolean legacyIsANum(String str) {
+    try {
+      Long.parseLong(str);
+      return true;
+    } catch (Exception ex) {
+      return false;
+    }
+  }
+
+  @Benchmark
+  public int classifyLegacy() {
+    int count = 0;
+    for (String comp : components) {
+      if (legacyIsANum(comp)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  @Benchmark
+  public int classifyScan() {
+    int count = 0;
+    for (String comp : components) {
+      if (Version.isANum(comp)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  @Benchmark
+  public List<Version> sortPrereleaseCorpus() {
+    final List<Version> copy = new ArrayList<Version>(versions);
+    Collections.sort(copy);
+    return copy;
+  }
+}
@@ -0,0 +1,130 @@
+package io.opsit.version;
+
+import java.util.Random;
+
+/**
+ * Version specifications for the benchmarks.
+ *
+ * <p>The corpora are generated from a fixed seed, so all the runs see
+ * the same input.
+ */
+public enum Corpus {
+  /**
+   * Plain major.minor.patch releases.
+   */
+  SEMVER {
+    @Override
+    String spec(Random rnd) {
+      return release(rnd);
+    }
+  },
+
+  /**
+   * Maven style versions, about half of them -SNAPSHOT, some with
+   * qualifiers and four components.
+   */
+  MAVEN {
+    @Override
+    String spec(Random rnd) {
+      final StringBuilder buf = new StringBuilder(release(rnd));
+      if (rnd.nextInt(5) == 0) {
+        buf.append('.').append(rnd.nextInt(10));
+      }
+      switch (rnd.nextInt(6)) {
+        case 0:
+        case 1:
+        case 2:
+          buf.append("-SNAPSHOT");
+          break;
+        case 3:
+          buf.append("-RELEASE");
+          break;
+        case 4:
+          buf.append("-M").append(1 + rnd.nextInt(3));
+          break;
+        default:
+          break;
+      }
+      return buf.toString();
+    }
+  },
+
+  /**
+   * Semantic versions with long dotted prerelease chains and build metadata.
+   */
+  PRERELEASE {
+    @Override
+    String spec(Random rnd) {
+      final StringBuilder buf = new StringBuilder(release(rnd));
+      final int len = 2 + rnd.nextInt(5);
+      for (int i = 0; i < len; i++) {
+        buf.append(i == 0 ? '-' : '.');
+        if (rnd.nextBoolean()) {
+          buf.append(rnd.nextInt(100));
+        } else {
+          buf.append(TAGS[rnd.nextInt(TAGS.length)]);
+        }
+      }
+      if (rnd.nextInt(3) == 0) {
+        buf.append("+build.").append(Integer.toHexString(rnd.nextInt()));
+      }
+      return buf.toString();
+    }
+  },
+
+  /**
+   * Junk: random strings of separators, digits, letters and spaces.
+   */
+  JUNK {
+    @Override
+    String spec(Random rnd) {
+      final String alphabet = "0123456789.-+abcXYZ_ /";
+      final int len = rnd.nextInt(20);
+      final StringBuilder buf = new StringBuilder(len);
+      for (int i = 0; i < len; i++) {
+        buf.append(alphabet.charAt(rnd.nextInt(alphabet.length())));
+      }
+      return buf.toString();
+    }
+  };
+
+  private static final String[] TAGS = {
+    "alpha", "beta", "rc", "pre", "dev", "nightly", "x7", "20240101"
+  };
+
+  abstract String spec(Random rnd);
+
+  private static String release(Random rnd) {
+    return rnd.nextInt(10) + "." + rnd.nextInt(30) + "." + rnd.nextInt(100);
+  }
+
+  /**
+   * Generate specifications.
+   *
+   * @param size number of specifications
+   * @return specifications, the same for the same size
+   */
+  String[] specs(int size) {
+    final Random rnd = new Random(31 + ordinal());
+    final String[] result = new String[size];
+    for (int i = 0; i < size; i++) {
+      result[i] = spec(rnd);
+    }
+    return result;
+  }
+
+  /**
+   * Generate and parse specifications.
+   *
+   * @param size number of versions
+   * @return parsed versions, the same for the same size
+   */
+  Version[] versions(int size) {
+    final String[] specs = specs(size);
+    final Version[] result = new Version[size];
+    for (int i = 0; i < size; i++) {
+      result[i] = Version.parseVersion(specs[i]);
+    }
+    return result;
+  }
+}
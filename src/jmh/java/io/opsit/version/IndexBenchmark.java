@@ -0,0 +1,132 @@
+package io.opsit.version;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Finding the advisories whose ranges contain installed versions:
+ * VersionRangeIndex queries and sorted batches against a linear scan
+ * of the ranges. Scores are per installed version.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class IndexBenchmark {
+  private static final int VERSIONS = 1000;
+  private static final int MAJORS = 10000;
+
+  @Param({"10000", "1000000"})
+  public int advisories;
+
+  private VersionRange[] ranges;
+  private VersionRangeIndex<Integer> index;
+  private Version[] installed;
+  private List<Version> sorted;
+  private int matches;
+
+  /**
+   * Ranges of affected versions: of a minor line before a fix, from
+   * the prereleases to a fix, of two major lines before fixes, or a
+   * few patches. The many major lines stand for different packages,
+   * so a version matches a few advisories.
+   */
+  static String advisory(Random rnd) {
+    final int major = rnd.nextInt(MAJORS);
+    final int minor = rnd.nextInt(40);
+    final int patch = rnd.nextInt(60);
+    switch (rnd.nextInt(4)) {
+      case 0:
+        return ">=" + major + "." + minor + ".0 <" + major + "." + minor + "." + patch;
+      case 1:
+        return ">=" + major + "." + minor + ".0-rc.1 <" + major + "." + minor + "." + patch;
+      case 2:
+        return ">=" + major + ".0.0 <" + major + "." + minor + "." + patch
+          + " || >=" + (major + 1) + ".0.0 <" + (major + 1) + ".0." + patch;
+      default:
+        return ">=" + major + "." + minor + "." + patch + " <" + major + "." + minor + "."
+          + (patch + 1 + rnd.nextInt(5));
+    }
+  }
+
+  @Setup
+  public void setup() {
+    final Random rnd = new Random(11);
+    ranges = new VersionRange[advisories];
+    final VersionRangeIndex.Builder<Integer> builder = VersionRangeIndex.builder();
+    for (int i = 0; i < advisories; i++) {
+      ranges[i] = VersionRange.parse(advisory(rnd));
+      builder.add(ranges[i], i);
+    }
+    index = builder.build();
+    installed = new Version[VERSIONS];
+    for (int i = 0; i < VERSIONS; i++) {
+      installed[i] = Version.parseVersion(rnd.nextInt(MAJORS) + "." + rnd.nextInt(41) + "."
+                                          + rnd.nextInt(61));
+    }
+    sorted = new ArrayList<Version>(Arrays.asList(installed));
+    Version.sort(sorted);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(VERSIONS)
+  public int indexQuery() {
+    matches = 0;
+    final Consumer<Integer> counter = new Consumer<Integer>() {
+        @Override
+        public void accept(Integer advisory) {
+          matches++;
+        }
+      };
+    for (Version ver : installed) {
+      index.forEachMatch(ver, counter);
+    }
+    return matches;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(VERSIONS)
+  public int indexSortedBatch() {
+    matches = 0;
+    index.matchSorted(sorted, new BiConsumer<Version, Integer>() {
+        @Override
+        public void accept(Version ver, Integer advisory) {
+          matches++;
+        }
+      });
+    return matches;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(VERSIONS)
+  public int linearScan() {
+    int count = 0;
+    for (Version ver : installed) {
+      for (VersionRange range : ranges) {
+        if (range.contains(ver)) {
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+}
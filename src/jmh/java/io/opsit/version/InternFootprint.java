@@ -0,0 +1,129 @@
+package io.opsit.version;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Heap footprint of a large catalog of versions with and without
+ * interning.
+ *
+ * <p>Not a JMH benchmark, run with
+ * {@code mvn -P benchmarks test-compile exec:exec -Dbench.main=io.opsit.version.InternFootprint}.
+ * The optional argument sets the number of versions (default 1000000).
+ */
+public class InternFootprint {
+  private static final String[] TAGS = {
+    "SNAPSHOT", "alpha", "beta", "rc", "M1", "RELEASE"
+  };
+
+  /**
+   * Specifications of a package index: few thousands distinct
+   * versions with the popular ones repeated most.
+   */
+  static String[] corpus(int size) {
+    final Random rnd = new Random(7);
+    final String[] distinct = new String[5000];
+    for (int i = 0; i < distinct.length; i++) {
+      final StringBuilder buf = new StringBuilder();
+      buf.append(rnd.nextInt(6)).append('.')
+        .append(rnd.nextInt(15)).append('.')
+        .append(rnd.nextInt(30));
+      if (rnd.nextInt(3) == 0) {
+        buf.append('-').append(TAGS[rnd.nextInt(TAGS.length)]);
+        if (rnd.nextBoolean()) {
+          buf.append('.').append(rnd.nextInt(5));
+        }
+      }
+      distinct[i] = buf.toString();
+    }
+    final String[] result = new String[size];
+    for (int i = 0; i < size; i++) {
+      // skewed towards the first entries, like download counts
+      final int idx = (int) (distinct.length * Math.pow(rnd.nextDouble(), 3));
+      result[i] = distinct[idx];
+    }
+    return result;
+  }
+
+  static long usedHeap() {
+    final Runtime rt = Runtime.getRuntime();
+    long used = Long.MAX_VALUE;
+    for (int i = 0; i < 5; i++) {
+      System.gc();
+      try {
+        Thread.sleep(50);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+      used = Math.min(used, rt.totalMemory() - rt.freeMemory());
+    }
+    return used;
+  }
+
+  /**
+   * Fresh copy of the specification, as if read from a file, so
+   * that whatever the version keeps of it is measured.
+   */
+  static String read(String spec) {
+    return new String(spec.toCharArray());
+  }
+
+  static List<Object> copyComponents(List<String> comps) {
+    final List<Object> result = new ArrayList<Object>(comps.size());
+    for (String comp : comps) {
+      result.add(new String(comp.toCharArray()));
+    }
+    return result;
+  }
+
+  private static void report(String name, long bytes, int count) {
+    System.out.printf("%-36s %8.1f MB %8.1f bytes/version%n",
+                      name, bytes / 1e6, (double) bytes / count);
+  }
+
+  public static void main(String[] args) {
+    final int size = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+    final String[] specs = corpus(size);
+    final Version[] catalog = new Version[size];
+
+    final long base = usedHeap();
+    for (int i = 0; i < size; i++) {
+      catalog[i] = Version.parseVersion(read(specs[i]));
+    }
+    final long parsed = usedHeap() - base;
+
+    for (int i = 0; i < size; i++) {
+      catalog[i] = catalog[i].intern();
+    }
+    final long interned = usedHeap() - base;
+
+    for (int i = 0; i < size; i++) {
+      catalog[i] = null;
+    }
+    usedHeap();
+    for (int i = 0; i < size; i++) {
+      final Version ver = Version.parseVersion(read(specs[i]));
+      catalog[i] = Version.mkVersion(copyComponents(ver.getVersions()),
+                                     copyComponents(ver.getPrereleaseIds()),
+                                     copyComponents(ver.getBuildIds()));
+    }
+    final long built = usedHeap() - base;
+
+    final VersionArray.Builder builder = VersionArray.builder(false, size);
+    for (int i = 0; i < size; i++) {
+      builder.add(catalog[i]);
+      catalog[i] = null;
+    }
+    final VersionArray array = builder.build();
+    final long columns = usedHeap() - base;
+
+    report("built from copied components", built, size);
+    report("parsed", parsed, size);
+    report("parsed and interned", interned, size);
+    report("VersionArray columns", columns, size);
+    report("VersionArray bytes", array.byteSize(), array.size());
+    System.out.printf("interning saved %.1f%% of the catalog heap%n",
+                      100.0 * (parsed - interned) / parsed);
+  }
+}
@@ -0,0 +1,107 @@
+package io.opsit.version;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Finding the newest release below a bound in a catalog of versions:
+ * VersionSet.headSet().latestStable() against a TreeSet walked down
+ * from the bound and against filtering a list and Collections.max.
+ * Scores are per query.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LatestBenchmark {
+  private static final int QUERIES = 1000;
+
+  @Param({"SEMVER", "MAVEN", "PRERELEASE"})
+  public Corpus corpus;
+
+  @Param({"10000"})
+  public int catalog;
+
+  private List<Version> list;
+  private TreeSet<Version> tree;
+  private VersionSet set;
+  private Version[] bounds;
+
+  @Setup
+  public void setup() {
+    list = Arrays.asList(corpus.versions(catalog));
+    tree = new TreeSet<Version>(list);
+    set = VersionSet.copyOf(list);
+    final Random rnd = new Random(7);
+    bounds = new Version[QUERIES];
+    for (int i = 0; i < QUERIES; i++) {
+      bounds[i] = Version.parseVersion((1 + rnd.nextInt(9)) + "." + rnd.nextInt(30) + ".0");
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(QUERIES)
+  public int versionSet() {
+    int count = 0;
+    for (Version bound : bounds) {
+      if (null != set.headSet(bound, false).latestStable()) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(QUERIES)
+  public int treeSet() {
+    int count = 0;
+    for (Version bound : bounds) {
+      final Iterator<Version> iter = tree.headSet(bound, false).descendingIterator();
+      while (iter.hasNext()) {
+        if (iter.next().getPrereleaseIds().isEmpty()) {
+          count++;
+          break;
+        }
+      }
+    }
+    return count;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(QUERIES)
+  public int filterAndMax() {
+    int count = 0;
+    for (Version bound : bounds) {
+      final List<Version> found = new ArrayList<Version>();
+      for (Version ver : list) {
+        if (ver.compareTo(bound) < 0 && ver.getPrereleaseIds().isEmpty()) {
+          found.add(ver);
+        }
+      }
+      if (!found.isEmpty() && null != Collections.max(found)) {
+        count++;
+      }
+    }
+    return count;
+  }
+}
@@ -0,0 +1,23 @@
+package io.opsit.version;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+
+/**
+ * Fields that the default serialization of Version wrote before the
+ * compact layout: three lists of component strings.
+ */
+public class LegacyForm implements Serializable {
+  static final long serialVersionUID = 1;
+
+  protected String src;
+  protected ArrayList<String> versions;
+  protected ArrayList<String> prereleaseIds;
+  protected ArrayList<String> buildIds;
+
+  LegacyForm(Version ver) {
+    versions = new ArrayList<String>(ver.getVersions());
+    prereleaseIds = new ArrayList<String>(ver.getPrereleaseIds());
+    buildIds = new ArrayList<String>(ver.getBuildIds());
+  }
+}
@@ -0,0 +1,72 @@
+package io.opsit.version;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Scaling of the bulk operations with the number of fork-join threads.
+ *
+ * <p>Compare the scores across the {@code threads} values, 1 is the
+ * sequential baseline, e.g.
+ * {@code -Djmh.args="ParallelBenchmark -p threads=1,2,4,8,16,32"}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class ParallelBenchmark {
+  @Param({"1", "2", "4", "8"})
+  public int threads;
+
+  @Param({"MAVEN"})
+  public Corpus corpus;
+
+  @Param({"1000000"})
+  public int size;
+
+  private ForkJoinPool pool;
+  private String[] specs;
+  private Version[] shuffled;
+
+  @Setup
+  public void setup() {
+    pool = new ForkJoinPool(threads);
+    specs = corpus.specs(size);
+    shuffled = corpus.versions(size);
+    Collections.shuffle(Arrays.asList(shuffled), new Random(3));
+  }
+
+  @TearDown
+  public void tearDown() {
+    pool.shutdown();
+  }
+
+  @Benchmark
+  public Version[] parseAll() {
+    return Version.parseAll(specs, pool);
+  }
+
+  @Benchmark
+  public Version[] parallelSort() {
+    final Version[] copy = shuffled.clone();
+    Version.parallelSort(copy, pool);
+    return copy;
+  }
+}
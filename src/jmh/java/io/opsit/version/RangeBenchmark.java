@@ -0,0 +1,87 @@
+package io.opsit.version;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Checking versions against a few hundred policy ranges: compiled
+ * VersionRange against a hand written compareTo chain of the same
+ * bounds. Scores are per version and range.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RangeBenchmark {
+  private static final int VERSIONS = 1000;
+  private static final int RANGES = 300;
+
+  @Param({"SEMVER", "MAVEN", "PRERELEASE"})
+  public Corpus corpus;
+
+  private Version[] versions;
+  private VersionRange[] ranges;
+  private Version[] lows;
+  private Version[] highs;
+
+  @Setup
+  public void setup() {
+    versions = corpus.versions(VERSIONS);
+    final Random rnd = new Random(5);
+    ranges = new VersionRange[RANGES];
+    lows = new Version[RANGES];
+    highs = new Version[RANGES];
+    for (int i = 0; i < RANGES; i++) {
+      final int major = rnd.nextInt(10);
+      final int minor = rnd.nextInt(30);
+      final int patch = rnd.nextInt(100);
+      final String low = major + "." + minor + "." + patch;
+      final String high = rnd.nextBoolean() ? (major + 1) + ".0.0" : major + "." + (minor + 1) + ".0";
+      ranges[i] = VersionRange.parse(">=" + low + " <" + high);
+      lows[i] = Version.parseVersion(low);
+      highs[i] = Version.parseVersion(high);
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(VERSIONS * RANGES)
+  public int rangeContains() {
+    int count = 0;
+    for (Version ver : versions) {
+      for (VersionRange range : ranges) {
+        if (range.contains(ver)) {
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(VERSIONS * RANGES)
+  public int compareToChain() {
+    int count = 0;
+    for (Version ver : versions) {
+      for (int i = 0; i < RANGES; i++) {
+        if (ver.compareTo(lows[i]) >= 0 && ver.compareTo(highs[i]) < 0) {
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+}
@@ -0,0 +1,83 @@
+package io.opsit.version;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Reading a file of version specifications, one per line.
+ *
+ * <p>Compares VersionReader over a stream and over mapped windows
+ * with BufferedReader.readLine and parseVersion. Run with
+ * {@code -prof gc} to see the allocation per line.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReaderBenchmark {
+  @Param({"SEMVER", "MAVEN"})
+  public Corpus corpus;
+
+  @Param({"1000000"})
+  public int size;
+
+  private Path path;
+
+  @Setup
+  public void setup() throws IOException {
+    path = Files.createTempFile("versions", ".txt");
+    Files.write(path, Arrays.asList(corpus.specs(size)), StandardCharsets.UTF_8);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.delete(path);
+  }
+
+  @Benchmark
+  public void readLines(Blackhole bh) throws IOException {
+    try (BufferedReader in = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+      for (String line = in.readLine(); null != line; line = in.readLine()) {
+        bh.consume(Version.parseVersion(line));
+      }
+    }
+  }
+
+  @Benchmark
+  public void versionReader(Blackhole bh) throws IOException {
+    try (VersionReader in = VersionReader.open(path)) {
+      for (Version ver = in.next(); null != ver; ver = in.next()) {
+        bh.consume(ver);
+      }
+    }
+  }
+
+  @Benchmark
+  public void versionReaderMapped(Blackhole bh) throws IOException {
+    try (VersionReader in = VersionReader.map(path)) {
+      for (Version ver = in.next(); null != ver; ver = in.next()) {
+        bh.consume(ver);
+      }
+    }
+  }
+}
@@ -0,0 +1,109 @@
+package io.opsit.version;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Resolving dependency constraints against a catalog of about 100k
+ * versions: VersionResolver against testing every version of the
+ * catalog with the constraints. Scores are per query.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class ResolveBenchmark {
+  private static final int QUERIES = 1000;
+  private static final int MAJORS = 40;
+
+  @Param({"100000"})
+  public int catalogSize;
+
+  private List<Version> catalog;
+  private VersionResolver resolver;
+  private List<List<VersionRange>> queries;
+
+  /**
+   * Constraints of a query: a caret or tilde range, often narrowed by
+   * a lower or upper bound of another dependent.
+   */
+  static List<VersionRange> query(Random rnd) {
+    final int major = rnd.nextInt(MAJORS);
+    final int minor = rnd.nextInt(50);
+    final List<VersionRange> result = new ArrayList<VersionRange>();
+    result.add(VersionRange.parse((rnd.nextBoolean() ? "^" : "~") + major + "." + minor));
+    switch (rnd.nextInt(3)) {
+      case 0:
+        result.add(VersionRange.parse(">=" + major + "." + minor + "." + rnd.nextInt(60)));
+        break;
+      case 1:
+        result.add(VersionRange.parse("<" + major + "." + (minor + rnd.nextInt(5)) + ".0"));
+        break;
+      default:
+        break;
+    }
+    return result;
+  }
+
+  @Setup
+  public void setup() {
+    final Random rnd = new Random(17);
+    final Version[] vers = new Version[catalogSize];
+    for (int i = 0; i < catalogSize; i++) {
+      final String release = rnd.nextInt(MAJORS) + "." + rnd.nextInt(50) + "." + rnd.nextInt(60);
+      vers[i] = Version.parseVersion(rnd.nextInt(10) == 0 ? release + "-rc." + rnd.nextInt(3)
+                                     : release);
+    }
+    catalog = Arrays.asList(vers);
+    resolver = VersionResolver.of(catalog);
+    queries = new ArrayList<List<VersionRange>>();
+    for (int i = 0; i < QUERIES; i++) {
+      queries.add(query(rnd));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(QUERIES)
+  public List<Version> resolveAll() {
+    return resolver.resolveAll(queries);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(QUERIES)
+  public int scanCatalog() {
+    int found = 0;
+    for (List<VersionRange> constraints : queries) {
+      Version best = null;
+      for (Version ver : catalog) {
+        boolean matches = true;
+        for (VersionRange range : constraints) {
+          matches = matches && range.contains(ver);
+        }
+        if (matches && (null == best || ver.compareTo(best) > 0)) {
+          best = ver;
+        }
+      }
+      if (null != best) {
+        found++;
+      }
+    }
+    return found;
+  }
+}
@@ -0,0 +1,153 @@
+package io.opsit.version;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Writing and reading a snapshot of versions.
+ *
+ * <p>Compares the binary form written to a ByteBuffer and to a
+ * DataOutputStream with Java serialization of the versions (through
+ * their serialized form) and of the lists that Version used to be
+ * serialized as. Scores are per version. {@link SerializedSize}
+ * reports the sizes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+  private static final int SIZE = 1000;
+
+  @Param({"SEMVER", "MAVEN", "PRERELEASE"})
+  public Corpus corpus;
+
+  private Version[] versions;
+  private LegacyForm[] legacy;
+  private ByteBuffer buf;
+  private byte[] binary;
+  private byte[] serialized;
+  private byte[] legacySerialized;
+
+  @Setup
+  public void setup() throws IOException {
+    versions = corpus.versions(SIZE);
+    legacy = new LegacyForm[SIZE];
+    for (int i = 0; i < SIZE; i++) {
+      legacy[i] = new LegacyForm(versions[i]);
+    }
+    buf = ByteBuffer.allocate(1 << 20);
+    binary = writeBinary();
+    serialized = serialize(versions);
+    legacySerialized = serialize(legacy);
+  }
+
+  private static byte[] serialize(Object[] objs) throws IOException {
+    final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+      for (Object obj : objs) {
+        oos.writeObject(obj);
+      }
+    }
+    return bos.toByteArray();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SIZE)
+  public int writeByteBuffer() {
+    ((Buffer) buf).clear();
+    for (Version ver : versions) {
+      ver.writeTo(buf);
+    }
+    return buf.position();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SIZE)
+  public void readByteBuffer(Blackhole bh) {
+    final ByteBuffer src = ByteBuffer.wrap(binary);
+    while (src.hasRemaining()) {
+      bh.consume(Version.readFrom(src));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SIZE)
+  public byte[] writeDataOutput() throws IOException {
+    return writeBinary();
+  }
+
+  private byte[] writeBinary() throws IOException {
+    final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    final DataOutputStream dos = new DataOutputStream(bos);
+    for (Version ver : versions) {
+      ver.writeTo(dos);
+    }
+    return bos.toByteArray();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SIZE)
+  public void readDataInput(Blackhole bh) throws IOException {
+    final DataInputStream dis = new DataInputStream(new ByteArrayInputStream(binary));
+    for (int i = 0; i < SIZE; i++) {
+      bh.consume(Version.readFrom(dis));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SIZE)
+  public byte[] writeObject() throws IOException {
+    return serialize(versions);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SIZE)
+  public void readObject(Blackhole bh) throws IOException, ClassNotFoundException {
+    readAll(serialized, bh);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SIZE)
+  public byte[] writeObjectLegacy() throws IOException {
+    return serialize(legacy);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SIZE)
+  public void readObjectLegacy(Blackhole bh) throws IOException, ClassNotFoundException {
+    readAll(legacySerialized, bh);
+  }
+
+  private static void readAll(byte[] bytes, Blackhole bh)
+      throws IOException, ClassNotFoundException {
+    try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+      for (int i = 0; i < SIZE; i++) {
+        bh.consume(ois.readObject());
+      }
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package io.opsit.version;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+
+/**
+ * Size of a snapshot of versions in the binary form and with Java
+ * serialization.
+ *
+ * <p>Not a JMH benchmark, run with
+ * {@code mvn -P benchmarks test-compile exec:exec -Dbench.main=io.opsit.version.SerializedSize}.
+ * The optional argument sets the number of versions (default 100000).
+ */
+public class SerializedSize {
+  private static int serializedSize(Object[] objs, boolean reset) throws IOException {
+    final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+      for (Object obj : objs) {
+        oos.writeObject(obj);
+        if (reset) {
+          // forget the written objects, as a message per version does
+          oos.reset();
+        }
+      }
+    }
+    return bos.size();
+  }
+
+  private static void report(String corpus, String name, long bytes, int count) {
+    System.out.printf("%-10s %-28s %10d bytes %8.1f bytes/version%n",
+                      corpus, name, bytes, (double) bytes / count);
+  }
+
+  public static void main(String[] args) throws IOException {
+    final int size = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+    for (Corpus corpus : Corpus.values()) {
+      final Version[] versions = corpus.versions(size);
+      final LegacyForm[] legacy = new LegacyForm[size];
+      long binary = 0;
+      for (int i = 0; i < size; i++) {
+        legacy[i] = new LegacyForm(versions[i]);
+        binary += versions[i].serializedSize();
+      }
+      report(corpus.name(), "legacy default", serializedSize(legacy, false), size);
+      report(corpus.name(), "legacy default, reset", serializedSize(legacy, true), size);
+      report(corpus.name(), "writeObject", serializedSize(versions, false), size);
+      report(corpus.name(), "writeObject, reset", serializedSize(versions, true), size);
+      report(corpus.name(), "writeTo", binary, size);
+    }
+  }
+}
@@ -0,0 +1,59 @@
+package io.opsit.version;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Sorting of large shuffled version collections: Collections.sort
+ * by compareTo against Version.sort on precedence keys.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class SortBenchmark {
+  @Param({"SEMVER", "MAVEN", "PRERELEASE"})
+  public Corpus corpus;
+
+  @Param({"10000", "1000000"})
+  public int size;
+
+  private Version[] shuffled;
+
+  @Setup
+  public void setup() {
+    shuffled = corpus.versions(size);
+    Collections.shuffle(Arrays.asList(shuffled), new Random(3));
+  }
+
+  @Benchmark
+  public List<Version> collectionsSort() {
+    final List<Version> copy = new ArrayList<Version>(Arrays.asList(shuffled));
+    Collections.sort(copy);
+    return copy;
+  }
+
+  @Benchmark
+  public Version[] versionSort() {
+    final Version[] copy = shuffled.clone();
+    Version.sort(copy);
+    return copy;
+  }
+}
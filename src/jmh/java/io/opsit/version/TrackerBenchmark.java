@@ -0,0 +1,121 @@
+package io.opsit.version;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of tracking the latest version per artifact from many
+ * threads: VersionTracker against ConcurrentHashMap.merge and against
+ * a HashMap guarded by a global lock. Run with {@code -t} to change
+ * the number of threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class TrackerBenchmark {
+  private static final int EVENTS = 1 << 16;
+  private static final BiFunction<Version, Version, Version> MAX =
+      new BiFunction<Version, Version, Version>() {
+        @Override
+        public Version apply(Version verA, Version verB) {
+          return verB.compareTo(verA) > 0 ? verB : verA;
+        }
+      };
+
+  /**
+   * Number of artifacts the events are spread over, few artifacts
+   * means more contention.
+   */
+  @Param({"16", "10000"})
+  public int artifacts;
+
+  private VersionTracker<String> tracker;
+  private ConcurrentHashMap<String, Version> merged;
+  private Map<String, Version> locked;
+
+  /**
+   * Release events of a thread: mostly versions that are not new
+   * maxima, as in a replayed or duplicated stream, and rising
+   * versions that are.
+   */
+  @State(Scope.Thread)
+  public static class Events {
+    String[] keys;
+    Version[] versions;
+    int next;
+
+    @Setup
+    public void setup(TrackerBenchmark bench) {
+      final Random rnd = new Random(Thread.currentThread().getId());
+      keys = new String[EVENTS];
+      versions = new Version[EVENTS];
+      for (int i = 0; i < EVENTS; i++) {
+        keys[i] = "artifact-" + rnd.nextInt(bench.artifacts);
+        if (rnd.nextInt(8) == 0) {
+          versions[i] = Version.parseVersion("2." + i + ".0");
+        } else {
+          versions[i] = Version.parseVersion("1." + rnd.nextInt(EVENTS) + "." + rnd.nextInt(10)
+                                             + (rnd.nextInt(5) == 0 ? "-rc.1" : ""));
+        }
+      }
+    }
+
+    int next() {
+      next = (next + 1) & (EVENTS - 1);
+      return next;
+    }
+  }
+
+  @Setup
+  public void setup() {
+    tracker = new VersionTracker<String>(true);
+    merged = new ConcurrentHashMap<String, Version>();
+    locked = new HashMap<String, Version>();
+  }
+
+  @Benchmark
+  public boolean tracker(Events events) {
+    final int idx = events.next();
+    return tracker.update(events.keys[idx], events.versions[idx]);
+  }
+
+  @Benchmark
+  public Version concurrentMerge(Events events) {
+    final int idx = events.next();
+    return merged.merge(events.keys[idx], events.versions[idx], MAX);
+  }
+
+  @Benchmark
+  public boolean globalLock(Events events) {
+    final int idx = events.next();
+    final Version ver = events.versions[idx];
+    synchronized (locked) {
+      final Version cur = locked.get(events.keys[idx]);
+      if (null == cur || ver.compareTo(cur) > 0) {
+        locked.put(events.keys[idx], ver);
+        return true;
+      }
+      return false;
+    }
+  }
+}
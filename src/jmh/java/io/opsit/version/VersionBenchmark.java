@@ -0,0 +1,223 @@
+package io.opsit.version;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Hot paths of Version over the benchmark corpora.
+ *
+ * <p>Each invocation processes the whole corpus of {@value #SIZE}
+ * specifications, the scores are per specification (or per pair of
+ * versions for binary operations). Run with {@code -prof gc} to see
+ * the allocation rates too, e.g.
+ * {@code mvn -P benchmarks test-compile exec:exec
+ * -Djmh.args="VersionBenchmark -prof gc"}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VersionBenchmark {
+  static final int SIZE = 1000;
+
+  @Param({"SEMVER", "MAVEN", "PRERELEASE", "JUNK"})
+  public Corpus corpus;
+
+  private String[] specs;
+  private Version[] versions;
+  private Version[] copies;
+  private List<Version> shuffled;
+  private List<List<Object>> parts;
+  private byte[][] keys;
+
+  @Setup
+  public void setup() {
+    specs = corpus.specs(SIZE);
+    versions = corpus.versions(SIZE);
+    copies = corpus.versions(SIZE);
+    shuffled = new ArrayList<Version>(Arrays.asList(versions));
+    Collections.shuffle(shuffled, new Random(5));
+    keys = new byte[SIZE][];
+    for (int i = 0; i < SIZE; i++) {
+      keys[i] = versions[i].toSortableBytes();
+    }
+    parts = new ArrayList<List<Object>>();
+    for (Version ver : versions) {
+      parts.add(new ArrayList<Object>(ver.getVersions()));
+      parts.add(new ArrayList<Object>(ver.getPrereleaseIds()));
+      parts.add(new ArrayList<Object>(ver.getBuildIds()));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SIZE)
+  public void parse(Blackhole bh) {
+    for (String spec : specs) {
+      bh.consume(Version.parseVersion(spec));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SIZE)
+  public void parseSemantic(Blackhole bh) {
+    for (String spec : specs) {
+      try {
+        bh.consume(Version.parseSemanticVersion(spec));
+      } catch (IllegalArgumentException ex) {
+        bh.consume(ex);
+      }
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SIZE)
+  public void tryParseSemantic(Blackhole bh) {
+    for (String spec : specs) {
+      bh.consume(Version.tryParseSemantic(spec));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SIZE)
+  public void isSemantic(Blackhole bh) {
+    for (Version ver : versions) {
+      bh.consume(ver.isSemantic());
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SIZE)
+  public void compareTo(Blackhole bh) {
+    final Version[] vers = versions;
+    for (int i = 1; i < vers.length; i++) {
+      bh.consume(vers[i - 1].compareTo(vers[i]));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SIZE)
+  public void toSortableBytes(Blackhole bh) {
+    for (Version ver : versions) {
+      bh.consume(ver.toSortableBytes());
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SIZE)
+  public void fromSortableBytes(Blackhole bh) {
+    for (byte[] key : keys) {
+      bh.consume(Version.fromSortableBytes(key));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SIZE)
+  public void compareSpecs(Blackhole bh) {
+    final String[] strs = specs;
+    for (int i = 1; i < strs.length; i++) {
+      bh.consume(Version.compare(strs[i - 1], strs[i]));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SIZE)
+  public void parseAndCompare(Blackhole bh) {
+    final String[] strs = specs;
+    for (int i = 1; i < strs.length; i++) {
+      bh.consume(Version.parseVersion(strs[i - 1]).compareTo(Version.parseVersion(strs[i])));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SIZE)
+  public void equalsCopy(Blackhole bh) {
+    for (int i = 0; i < versions.length; i++) {
+      bh.consume(versions[i].equals(copies[i]));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SIZE)
+  public void hashCodeCached(Blackhole bh) {
+    for (Version ver : versions) {
+      bh.consume(ver.hashCode());
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SIZE)
+  public void parseAndHash(Blackhole bh) {
+    for (String spec : specs) {
+      bh.consume(Version.parseVersion(spec).hashCode());
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SIZE)
+  public void add(Blackhole bh) {
+    final Version[] vers = versions;
+    for (int i = 1; i < vers.length; i++) {
+      bh.consume(vers[i - 1].add(vers[i]));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SIZE)
+  public void sub(Blackhole bh) {
+    final Version[] vers = versions;
+    for (int i = 1; i < vers.length; i++) {
+      bh.consume(vers[i].sub(vers[i - 1]));
+    }
+  }
+
+  /**
+   * String form is cached after the first call, this is what repeated
+   * callers pay.
+   */
+  @Benchmark
+  @OperationsPerInvocation(SIZE)
+  public void toStringCached(Blackhole bh) {
+    for (Version ver : versions) {
+      bh.consume(ver.toString());
+    }
+  }
+
+  /**
+   * Build versions from components and format them for the first time.
+   */
+  @Benchmark
+  @OperationsPerInvocation(SIZE)
+  public void mkVersionToString(Blackhole bh) {
+    final List<List<Object>> parts = this.parts;
+    for (int i = 0; i < parts.size(); i += 3) {
+      bh.consume(Version.mkVersion(parts.get(i), parts.get(i + 1), parts.get(i + 2)).toString());
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SIZE)
+  public List<Version> sort() {
+    final List<Version> copy = new ArrayList<Version>(shuffled);
+    Collections.sort(copy);
+    return copy;
+  }
+}
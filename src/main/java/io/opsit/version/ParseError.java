@@ -0,0 +1,50 @@
+package io.opsit.version;
+
+/**
+ * Reasons why a version specification was rejected by
+ * {@link Version#tryParseValid(String)} and {@link Version#tryParseSemantic(String)}.
+ */
+public enum ParseError {
+  /**
+   * The specification is null.
+   */
+  NULL_SPEC("null version specification"),
+  /**
+   * The specification has no version components.
+   */
+  EMPTY("empty version specification"),
+  /**
+   * A semantic version must have exactly three version numbers.
+   */
+  COMPONENT_COUNT("expected exactly 3 version numbers"),
+  /**
+   * A version number of a semantic version is not a non negative
+   * number without leading zeros.
+   */
+  INVALID_NUMBER("invalid version number"),
+  /**
+   * A prerelease or build identifier of a semantic version is empty
+   * or has characters other than [0-9A-Za-z-].
+   */
+  INVALID_IDENTIFIER("invalid prerelease or build identifier"),
+  /**
+   * The line read by {@link VersionReader} is longer than {@link
+   * VersionReader#MAX_LINE_LENGTH}.
+   */
+  TOO_LONG("line is too long");
+
+  private final String description;
+
+  ParseError(String description) {
+    this.description = description;
+  }
+
+  /**
+   * Get human readable description of the error.
+   *
+   * @return description
+   */
+  public String getDescription() {
+    return description;
+  }
+}
@@ -0,0 +1,93 @@
+package io.opsit.version;
+
+/**
+ * Outcome of {@link Version#tryParseValid(String)} and {@link
+ * Version#tryParseSemantic(String)}: either the parsed version or the
+ * reason why the specification was rejected and the position of the
+ * offending character.
+ *
+ * <p>Failures do not throw and do not build stack traces. Failure
+ * results for positions below {@value #CACHED_POSITIONS} are shared
+ * instances, so rejecting short specifications allocates no result.
+ */
+public final class ParseResult {
+  static final int CACHED_POSITIONS = 64;
+
+  private static final ParseResult[][] FAILURES =
+      new ParseResult[ParseError.values().length][CACHED_POSITIONS];
+
+  static {
+    for (ParseError error : ParseError.values()) {
+      for (int pos = 0; pos < CACHED_POSITIONS; pos++) {
+        FAILURES[error.ordinal()][pos] = new ParseResult(null, error, pos);
+      }
+    }
+  }
+
+  private final Version version;
+  private final ParseError error;
+  private final int position;
+
+  private ParseResult(Version version, ParseError error, int position) {
+    this.version = version;
+    this.error = error;
+    this.position = position;
+  }
+
+  static ParseResult success(Version version) {
+    return new ParseResult(version, null, -1);
+  }
+
+  static ParseResult failure(ParseError error, int position) {
+    return position >= 0 && position < CACHED_POSITIONS
+      ? FAILURES[error.ordinal()][position]
+      : new ParseResult(null, error, position);
+  }
+
+  /**
+   * Check if the specification was accepted.
+   *
+   * @return true if there is a version
+   */
+  public boolean isSuccess() {
+    return null != version;
+  }
+
+  /**
+   * Get the parsed version.
+   *
+   * @return the version or null if the specification was rejected
+   */
+  public Version getVersion() {
+    return version;
+  }
+
+  /**
+   * Get the reason why the specification was rejected.
+   *
+   * @return the error or null on success
+   */
+  public ParseError getError() {
+    return error;
+  }
+
+  /**
+   * Get position of the offending character in the specification.
+   *
+   * <p>For errors that concern a whole component it is the position of
+   * the component start, for missing components it is the position
+   * where the component was expected.
+   *
+   * @return position or -1 on success
+   */
+  public int getPosition() {
+    return position;
+  }
+
+  @Override
+  public String toString() {
+    return null != version
+      ? version.toString()
+      : error.getDescription() + " at position " + position;
+  }
+}
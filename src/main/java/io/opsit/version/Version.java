@@ -1,15 +1,29 @@
 package io.opsit.version;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutput;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
-import java.util.StringTokenizer;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.ListIterator;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
 
 
 public class Version extends Number implements Comparable<Version> {
-  static final long serialVersionUID = 1;
+  static final long serialVersionUID = 2;
   
   private static final int IDX_MAJOR = 0;
   private static final int IDX_MINOR = 1;
@@ -19,19 +33,200 @@ public class Version extends Number implements Comparable<Version> {
   public static final double KPATCH = 0.000001;
     
   protected String prefix = "";
-    
-  protected List<String> versions = list();
-  protected List<String> prereleaseIds = list();
-  protected List<String> buildIds = list();
 
+  /**
+   * String representation returned by toString(). Parsed
+   * specifications in canonical form are used as it is, otherwise it
+   * is built on the first call.
+   */
   protected String src;
 
-  private static final Pattern VU_PAT = Pattern.compile("^[0-9a-z-]+$", Pattern.CASE_INSENSITIVE);
+  /**
+   * Backing string of the components that are not stored as numbers,
+   * null if there are none.
+   */
+  private final String text;
+  /**
+   * Encoded version components followed by prerelease and build
+   * identifiers, see {@link #K_NUM}.
+   */
+  private final long[] comps;
+  /** Number of version components. */
+  private final int nver;
+  /** Number of prerelease identifiers. */
+  private final int npre;
+  /**
+   * Precedence key or {@link #NO_PRECEDENCE_KEY}.
+   */
+  private final long key;
+  /**
+   * Result of the predicates that depend on all the components, see {@link #F_VALID}.
+   */
+  private final byte flags;
+  /** Cached hash code, 0 if not computed yet. */
+  private transient int hash;
+
 
   protected static final String VERSEP = ".-+";
   protected static final String RELSEP = ".+";
   protected static final String BUILDSEP = ".";
 
+  private static final int SECTION_VERSION = 0;
+  private static final int SECTION_PRERELEASE = 1;
+  private static final int SECTION_BUILD = 2;
+
+  private static final String[] SMALL_NUMS = new String[256];
+
+  static {
+    for (int i = 0; i < SMALL_NUMS.length; i++) {
+      SMALL_NUMS[i] = Integer.toString(i).intern();
+    }
+  }
+
+  /**
+   * Identifiers that parsed versions share instead of keeping copies.
+   */
+  private static final String[] COMMON_WORDS = {
+    "alpha", "beta", "rc", "RC", "SNAPSHOT", "RELEASE", "Final", "final",
+    "GA", "dev", "pre", "snapshot", "release", "M1", "M2", "a", "b"
+  };
+
+  private static final String LONG_LIMIT_DIGITS = Long.toString(Long.MAX_VALUE);
+
+  /*
+   * Each component is encoded in a long, the two upper bits are the
+   * kind of the component. Numbers without sign and leading zeros
+   * are stored as their values, other components as [start, end)
+   * ranges of the backing text.
+   */
+  /** Component kind: number in canonical form, the value is in the lower bits. */
+  private static final long K_NUM = 0L;
+  /** Component kind: text that is not a number. */
+  private static final long K_TEXT = 1L << 62;
+  /** Component kind: number text that is not in canonical form ("007", "-1", "+1"). */
+  private static final long K_DIGITS = 2L << 62;
+  /** Component kind: null component (may be produced by the arithmetics). */
+  private static final long K_NULL = 3L << 62;
+  private static final long KIND_MASK = 3L << 62;
+  private static final long NUM_LIMIT = 1L << 62;
+  private static final int OFF_BITS = 31;
+  private static final long OFF_MASK = (1L << OFF_BITS) - 1;
+
+  private static final long[] NO_COMPS = new long[0];
+
+  /**
+   * Value of {@link #precedenceKey()} for versions that have no key.
+   */
+  public static final long NO_PRECEDENCE_KEY = -1L;
+
+  /**
+   * Flag: {@link #isValid()}.
+   */
+  private static final int F_VALID = 1;
+  /**
+   * Flag: {@link #isSemantic()}.
+   */
+  private static final int F_SEMANTIC = 2;
+
+  private static final int KEY_MAJOR_BITS = 22;
+  private static final int KEY_MINOR_BITS = 20;
+  private static final int KEY_PATCH_BITS = 20;
+
+  private static final long[] POW10 = new long[19];
+
+  static {
+    POW10[0] = 1L;
+    for (int i = 1; i < POW10.length; i++) {
+      POW10[i] = POW10[i - 1] * 10;
+    }
+  }
+
+  /**
+   * Create an empty (invalid) version.
+   */
+  public Version() {
+    this(null, NO_COMPS, 0, 0);
+  }
+
+  private Version(String text, long[] comps, int nver, int npre) {
+    this.text = text;
+    this.comps = comps;
+    this.nver = nver;
+    this.npre = npre;
+    this.key = precedenceKey(comps, nver, npre);
+    this.flags = flags(this.text, comps, nver);
+  }
+
+  private Version(List<String> versions,
+                  List<String> prereleaseIds,
+                  List<String> buildIds) {
+    this.nver = versions.size();
+    this.npre = prereleaseIds.size();
+    this.comps = new long[nver + npre + buildIds.size()];
+    final StringBuilder buf = new StringBuilder();
+    int idx = encode(versions, comps, 0, buf);
+    idx = encode(prereleaseIds, comps, idx, buf);
+    encode(buildIds, comps, idx, buf);
+    this.text = textOf(buf, comps);
+    this.key = precedenceKey(comps, nver, npre);
+    this.flags = flags(this.text, comps, nver);
+  }
+
+  /**
+   * Get backing text, empty text components need one too.
+   */
+  private static String textOf(StringBuilder buf, long[] comps) {
+    if (buf.length() > 0) {
+      return buf.toString();
+    }
+    for (long comp : comps) {
+      final long kind = comp & KIND_MASK;
+      if (kind == K_TEXT || kind == K_DIGITS) {
+        return "";
+      }
+    }
+    return null;
+  }
+
+  private static int encode(List<String> parts, long[] comps, int idx, StringBuilder buf) {
+    int result = idx;
+    for (String part : parts) {
+      long comp;
+      if (null == part) {
+        comp = K_NULL;
+      } else {
+        comp = canonicalNum(part);
+        if (comp < 0) {
+          final long start = buf.length();
+          buf.append(part);
+          comp = (isANum(part) ? K_DIGITS : K_TEXT) | (start << OFF_BITS) | buf.length();
+        }
+      }
+      comps[result++] = comp;
+    }
+    return result;
+  }
+
+  /**
+   * Get value of a number in canonical form.
+   *
+   * @return the value or -1 if not a number without sign and leading
+   *     zeros or if the value does not fit into a component
+   */
+  private static long canonicalNum(String str) {
+    final int len = str.length();
+    if (len == 0 || len > LONG_LIMIT_DIGITS.length()
+        || (str.charAt(0) == '0' && len > 1) || !isALong(str, 0, len)) {
+      return -1L;
+    }
+    final char first = str.charAt(0);
+    if (first < '0' || first > '9') {
+      return -1L;
+    }
+    final long value = atol(str, 0, len);
+    return value < NUM_LIMIT ? value : -1L;
+  }
+
   /**
    * Parse version specication.
    *
@@ -55,34 +250,379 @@ public class Version extends Number implements Comparable<Version> {
     if (null == str) {
       return null;
     }
-    final Version v = new Version();
-    List<String> acc = v.versions = list();
-    String sep = VERSEP;
-    StringTokenizer st = new StringTokenizer(str, sep, true);
-    while (st.hasMoreTokens()) {
-      String token = st.nextToken(sep);
-      String lastDelim = "";
-      if (st.hasMoreTokens()) {
-        lastDelim = st.nextToken(sep);
+    return scan(str, 0, str.length());
+  }
+
+  /**
+   * Parse version specication from a range of a character sequence.
+   *
+   * <p>Produces the same Version as {@link #parseVersion(String)}
+   * would for the characters between start and end without copying
+   * them into an intermediate String.
+   *
+   * @param  str  character sequence, may be null
+   * @param  start index of the first character of the specification
+   * @param  end index after the last character of the specification
+   * @return Return created version object or null on null input
+   * @throws IndexOutOfBoundsException if the range is out of bounds
+   */
+  public static Version parseVersion(CharSequence str, int start, int end) {
+    if (null == str) {
+      return null;
+    }
+    checkRange(start, end, str.length());
+    return scan(str, start, end);
+  }
+
+  /**
+   * Parse version specication from a range of a character array.
+   *
+   * @param  chars  characters, may be null
+   * @param  off index of the first character of the specification
+   * @param  len length of the specification
+   * @return Return created version object or null on null input
+   * @throws IndexOutOfBoundsException if the range is out of bounds
+   * @see #parseVersion(String)
+   */
+  public static Version parseVersion(char[] chars, int off, int len) {
+    if (null == chars) {
+      return null;
+    }
+    checkRange(off, off + len, chars.length);
+    return scan(new CharArraySequence(chars), off, off + len);
+  }
+
+  /**
+   * Parse version specication from a range of UTF-8 (or ASCII) encoded bytes.
+   *
+   * <p>ASCII input is scanned as it is, only the text that the
+   * Version keeps gets copied. Input with multibyte UTF-8 sequences
+   * is decoded first.
+   *
+   * @param  bytes  UTF-8 encoded specification, may be null
+   * @param  off index of the first byte of the specification
+   * @param  len length of the specification in bytes
+   * @return Return created version object or null on null input
+   * @throws IndexOutOfBoundsException if the range is out of bounds
+   * @see #parseVersion(String)
+   */
+  public static Version parseVersion(byte[] bytes, int off, int len) {
+    if (null == bytes) {
+      return null;
+    }
+    checkRange(off, off + len, bytes.length);
+    for (int i = off; i < off + len; i++) {
+      if (bytes[i] < 0) {
+        final String str = new String(bytes, off, len, StandardCharsets.UTF_8);
+        return scan(str, 0, str.length());
+      }
+    }
+    return scan(new ByteArraySequence(bytes), off, off + len);
+  }
+
+  /**
+   * Parse version specication from a range of UTF-8 (or ASCII) encoded bytes
+   * in a buffer.
+   *
+   * <p>Uses absolute indexes, the position and limit of the buffer are
+   * not changed.
+   *
+   * @param  buf  buffer with UTF-8 encoded specification, may be null
+   * @param  off index of the first byte of the specification
+   * @param  len length of the specification in bytes
+   * @return Return created version object or null on null input
+   * @throws IndexOutOfBoundsException if the range is out of bounds
+   * @see #parseVersion(byte[], int, int)
+   */
+  public static Version parseVersion(ByteBuffer buf, int off, int len) {
+    if (null == buf) {
+      return null;
+    }
+    checkRange(off, off + len, buf.limit());
+    if (buf.hasArray()) {
+      return parseVersion(buf.array(), buf.arrayOffset() + off, len);
+    }
+    for (int i = off; i < off + len; i++) {
+      if (buf.get(i) < 0) {
+        final String str = new ByteBufferSequence(buf).decode(off, off + len);
+        return scan(str, 0, str.length());
+      }
+    }
+    return scan(new ByteBufferSequence(buf), off, off + len);
+  }
+
+  private static void checkRange(int start, int end, int length) {
+    if (start < 0 || start > end || end > length) {
+      throw new IndexOutOfBoundsException("Invalid range [" + start + ", " + end
+                                          + ") of input with length " + length);
+    }
+  }
+
+  /**
+   * Get pooled instance of a frequently used identifier.
+   *
+   * @return pooled string equal to the range or null if there is none
+   */
+  private static String commonWord(String str, int start, int end) {
+    final int len = end - start;
+    for (String word : COMMON_WORDS) {
+      if (word.length() == len && regionEquals(word, str, start)) {
+        return word;
+      }
+    }
+    return null;
+  }
+
+  private static boolean regionEquals(String word, CharSequence str, int start) {
+    for (int i = 0; i < word.length(); i++) {
+      if (word.charAt(i) != str.charAt(start + i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static String slice(CharSequence str, int start, int end) {
+    return str instanceof String
+      ? ((String) str).substring(start, end)
+      : str.subSequence(start, end).toString();
+  }
+
+  /**
+   * Character array as CharSequence, subSequence returns Strings.
+   */
+  private static final class CharArraySequence implements CharSequence {
+    private final char[] chars;
+
+    CharArraySequence(char[] chars) {
+      this.chars = chars;
+    }
+
+    @Override
+    public int length() {
+      return chars.length;
+    }
+
+    @Override
+    public char charAt(int index) {
+      return chars[index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+      return new String(chars, start, end - start);
+    }
+
+    @Override
+    public String toString() {
+      return new String(chars);
+    }
+  }
+
+  /**
+   * ASCII byte array as CharSequence, subSequence returns Strings.
+   */
+  private static final class ByteArraySequence implements CharSequence {
+    private final byte[] bytes;
+
+    ByteArraySequence(byte[] bytes) {
+      this.bytes = bytes;
+    }
+
+    @Override
+    public int length() {
+      return bytes.length;
+    }
+
+    @Override
+    public char charAt(int index) {
+      return (char) (bytes[index] & 0xff);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+      return new String(bytes, start, end - start, StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public String toString() {
+      return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+  }
+
+  /**
+   * ASCII buffer without accessible array as CharSequence,
+   * subSequence returns Strings.
+   */
+  private static final class ByteBufferSequence implements CharSequence {
+    private final ByteBuffer buf;
+
+    ByteBufferSequence(ByteBuffer buf) {
+      this.buf = buf;
+    }
+
+    @Override
+    public int length() {
+      return buf.limit();
+    }
+
+    @Override
+    public char charAt(int index) {
+      return (char) (buf.get(index) & 0xff);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+      return decode(start, end);
+    }
+
+    String decode(int start, int end) {
+      final byte[] bytes = new byte[end - start];
+      for (int i = 0; i < bytes.length; i++) {
+        bytes[i] = buf.get(start + i);
+      }
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+      return subSequence(0, length()).toString();
+    }
+  }
+
+  /**
+   * Split a range of characters into version components.
+   *
+   * <p>Walks the characters once. Component boundaries follow the
+   * delimiter sets {@link #VERSEP}, {@link #RELSEP} and {@link
+   * #BUILDSEP} of the section being read: a delimiter character that
+   * starts a token becomes a component of its own, a '-' after a
+   * version component starts the prerelease identifiers and a '+'
+   * after a prerelease identifier starts the build identifiers.
+   * Components are classified as numbers on the way.
+   */
+  static Version scan(CharSequence str, int start, int end) {
+    long[] comps = new long[3];
+    int ncomps = 0;
+    int nver = 0;
+    int npre = 0;
+    boolean hasText = false;
+    int section = SECTION_VERSION;
+    // whether toString() of the result will be equal to the input
+    boolean canonical = true;
+    int pos = start;
+    while (pos < end) {
+      final int tokStart = pos;
+      char chr = str.charAt(pos);
+      boolean isNum;
+      // whether the number fits in a long, num is its value then
+      boolean fits = true;
+      long num = 0L;
+      if (isSeparator(chr, section)) {
+        pos++;
+        isNum = false;
+      } else {
+        // accumulate negatively, as Long.parseLong does
+        final boolean negative = chr == '-';
+        final long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        final long multmin = limit / 10;
+        isNum = true;
+        if (chr == '-' || chr == '+') {
+          pos++;
+          isNum = pos < end && !isSeparator(str.charAt(pos), section);
+        }
+        for (; pos < end; pos++) {
+          chr = str.charAt(pos);
+          if (isSeparator(chr, section)) {
+            break;
+          }
+          if (isNum) {
+            final int digit = chr - '0';
+            if (digit < 0 || digit > 9) {
+              isNum = false;
+            } else if (fits) {
+              if (num < multmin) {
+                fits = false;
+              } else {
+                num *= 10;
+                if (num < limit + digit) {
+                  fits = false;
+                } else {
+                  num -= digit;
+                }
+              }
+            }
+          }
+        }
+        num = negative ? num : -num;
       }
-      acc.add(token);
-      if (VERSEP.equals(sep)) {
-        if ((".".equals(lastDelim)) || "".equals(lastDelim)) {
-          // NOP
-        } else if (lastDelim.contains("-")) {
-          sep = RELSEP;
-          acc = v.prereleaseIds;
+      final int tokEnd = pos;
+      int nextSection = section;
+      if (pos < end) {
+        chr = str.charAt(pos);
+        if (isSeparator(chr, section)) {
+          pos++;
+          if (section == SECTION_VERSION && chr == '-') {
+            nextSection = SECTION_PRERELEASE;
+          } else if (section == SECTION_PRERELEASE && chr == '+') {
+            nextSection = SECTION_BUILD;
+          } else if (chr != '.') {
+            canonical = false;
+          }
+        } else {
+          // the token was a lone separator: the following run is
+          // consumed in place of the separator and dropped
+          do {
+            pos++;
+          } while (pos < end && !isSeparator(str.charAt(pos), section));
+          canonical = false;
         }
-      } else if (RELSEP.equals(sep)) {
-        if ((".".equals(lastDelim)) || "".equals(lastDelim)) {
-          // NOP
-        } else if (lastDelim.contains("+")) {
-          sep = BUILDSEP;
-          acc = v.buildIds;
+        if (pos == end) {
+          // trailing separator
+          canonical = false;
         }
       }
+      long comp;
+      final char first = str.charAt(tokStart);
+      if (isNum && fits && num < NUM_LIMIT
+          && first >= '0' && (first != '0' || tokEnd - tokStart == 1)) {
+        comp = K_NUM | num;
+      } else {
+        comp = (isNum ? K_DIGITS : K_TEXT)
+          | ((long) (tokStart - start) << OFF_BITS)
+          | (tokEnd - start);
+        hasText = true;
+      }
+      if (ncomps == comps.length) {
+        comps = Arrays.copyOf(comps, ncomps * 2);
+      }
+      comps[ncomps++] = comp;
+      if (section == SECTION_VERSION) {
+        nver++;
+      } else if (section == SECTION_PRERELEASE) {
+        npre++;
+      }
+      section = nextSection;
+    }
+    if (ncomps != comps.length) {
+      comps = ncomps == 0 ? NO_COMPS : Arrays.copyOf(comps, ncomps);
+    }
+    final boolean whole = str instanceof String && start == 0 && end == str.length();
+    String text = null;
+    if (hasText) {
+      text = whole ? (String) str : slice(str, start, end);
     }
-    return v;
+    final Version ver = new Version(text, comps, nver, npre);
+    if (canonical && whole) {
+      ver.src = (String) str;
+    }
+    return ver;
+  }
+
+  private static boolean isSeparator(char chr, int section) {
+    return chr == '.'
+      || (section == SECTION_VERSION && chr == '-')
+      || (section != SECTION_BUILD && chr == '+');
   }
 
 
@@ -97,14 +637,19 @@ public class Version extends Number implements Comparable<Version> {
    *
    * @param  str  version specification, may be null
    * @return Return the created Version object or null on null input
+   * @throws IllegalArgumentException if the version is not valid, the
+   *     message tells why
+   * @see #tryParseValid(String)
    */
   public static Version parseValidVersion(String str) throws IllegalArgumentException {
-    final Version ver = parseVersion(str);
-    if (!ver.isValid()) {
-      // FIXME: specify reasons of invalidity
-      throw  new IllegalArgumentException("Invalid version spec");
+    if (null == str) {
+      return null;
     }
-    return ver;
+    final ParseResult result = checkValid(parseVersion(str));
+    if (!result.isSuccess()) {
+      throw new IllegalArgumentException("Invalid version spec: " + result);
+    }
+    return result.getVersion();
   }
 
   /**
@@ -118,14 +663,124 @@ public class Version extends Number implements Comparable<Version> {
    *
    * @param  str  version specification, may be null
    * @return Return the created Version object or null on null input
+   * @throws IllegalArgumentException if the version is not semantic,
+   *     the message tells why
+   * @see #tryParseSemantic(String)
    */
   public static Version parseSemanticVersion(String str) throws IllegalArgumentException {
-    final Version ver = parseVersion(str);
-    if (!ver.isSemantic()) {
-      // FIXME: explane why it is invalid
-      throw new IllegalArgumentException("Not a semantic version specification");
+    if (null == str) {
+      return null;
     }
-    return ver;
+    final ParseResult result = checkSemantic(str, parseVersion(str));
+    if (!result.isSuccess()) {
+      throw new IllegalArgumentException("Not a semantic version specification: " + result);
+    }
+    return result.getVersion();
+  }
+
+  /**
+   * Parse version specication without throwing if it is not valid.
+   *
+   * <p>Same checks as {@link #parseValidVersion(String)}, but the
+   * outcome is returned: the version or the reason of the failure and
+   * its position. Meant for bulk input where rejects are common.
+   *
+   * @param  str  version specification, may be null
+   * @return result, failure with {@link ParseError#NULL_SPEC} on null input
+   */
+  public static ParseResult tryParseValid(String str) {
+    if (null == str) {
+      return ParseResult.failure(ParseError.NULL_SPEC, 0);
+    }
+    return checkValid(parseVersion(str));
+  }
+
+  /**
+   * Parse version specication without throwing if it is not semantic.
+   *
+   * <p>Same checks as {@link #parseSemanticVersion(String)}, but the
+   * outcome is returned: the version or the reason of the failure and
+   * its position. Meant for bulk input where rejects are common.
+   *
+   * @param  str  version specification, may be null
+   * @return result, failure with {@link ParseError#NULL_SPEC} on null input
+   */
+  public static ParseResult tryParseSemantic(String str) {
+    if (null == str) {
+      return ParseResult.failure(ParseError.NULL_SPEC, 0);
+    }
+    return checkSemantic(str, parseVersion(str));
+  }
+
+  static ParseResult checkValid(Version ver) {
+    if (ver.isValid()) {
+      return ParseResult.success(ver);
+    }
+    // '-' separates components, so parsed major versions are never negative
+    return ParseResult.failure(ParseError.EMPTY, 0);
+  }
+
+  static ParseResult checkSemantic(CharSequence str, Version ver) {
+    return ver.isSemantic() ? ParseResult.success(ver) : semanticFailure(str);
+  }
+
+  /**
+   * Find why a specification is not semantic.
+   *
+   * <p>Only called on the failure path, walks the tokens of the
+   * specification again to find the first offending one.
+   */
+  private static ParseResult semanticFailure(CharSequence str) {
+    final int end = str.length();
+    int pos = 0;
+    int section = SECTION_VERSION;
+    int count = 0;
+    int lastEnd = 0;
+    while (pos < end && section == SECTION_VERSION) {
+      final long tok = nextToken(str, pos, end, section);
+      final int tokEnd = tokenEnd(tok);
+      if (count == 3) {
+        return ParseResult.failure(ParseError.COMPONENT_COUNT, pos);
+      }
+      if (!isANum(str, pos, tokEnd)
+          || (tokEnd - pos > 1 && str.charAt(pos) == '0')
+          || isNegative(str, pos, tokEnd)) {
+        return ParseResult.failure(ParseError.INVALID_NUMBER, pos);
+      }
+      count++;
+      lastEnd = tokEnd;
+      pos = tokenNext(tok);
+      section = tokenSection(tok);
+    }
+    if (count < 3) {
+      return ParseResult.failure(count == 0 ? ParseError.EMPTY : ParseError.COMPONENT_COUNT,
+                                 lastEnd);
+    }
+    while (pos < end) {
+      final long tok = nextToken(str, pos, end, section);
+      final int tokEnd = tokenEnd(tok);
+      for (int i = pos; i < tokEnd; i++) {
+        if (!isIdentifier(str, i, i + 1)) {
+          return ParseResult.failure(ParseError.INVALID_IDENTIFIER, i);
+        }
+      }
+      pos = tokenNext(tok);
+      section = tokenSection(tok);
+    }
+    throw new IllegalStateException("Cannot find why the version is not semantic: " + str);
+  }
+
+  /**
+   * Parse version specication using the shared cache of parsed versions.
+   *
+   * <p>Frequently used specifications are parsed once and the same
+   * Version object is returned for them. See {@link VersionCache}.
+   *
+   * @param  str  version specification, may be null
+   * @return Return version object or null on null input
+   */
+  public static Version parseCached(String str) {
+    return VersionCache.getDefault().parse(str);
   }
 
   /**
@@ -213,11 +868,9 @@ public class Version extends Number implements Comparable<Version> {
                                   List<Object> prerelease,
                                   List<Object> build)
     throws IllegalArgumentException {
-    final Version v = new Version();
-    v.versions = chkVerVUnions(versions);
-    v.prereleaseIds = chkVerVUnions(prerelease);
-    v.buildIds = chkVerVUnions(build);
-    return v;
+    return new Version(chkVerVUnions(versions),
+                       chkVerVUnions(prerelease),
+                       chkVerVUnions(build));
   }
 
 
@@ -237,13 +890,11 @@ public class Version extends Number implements Comparable<Version> {
                                      List<Object> prerelease,
                                      List<Object> build)
     throws IllegalArgumentException {
-    final Version v = new Version();
-    v.versions = list(chkSemVerNumberPart(major, "major"),
-                      chkSemVerNumberPart(minor, "minor"),
-                      chkSemVerNumberPart(patch, "patch"));
-    v.prereleaseIds = chkSemVerVUnions(prerelease);
-    v.buildIds = chkSemVerVUnions(build);
-    return v;
+    return new Version(list(chkSemVerNumberPart(major, "major"),
+                            chkSemVerNumberPart(minor, "minor"),
+                            chkSemVerNumberPart(patch, "patch")),
+                       chkSemVerVUnions(prerelease),
+                       chkSemVerVUnions(build));
   }
 
   /** Build a Version object representing a Semantic Version from its parts.
@@ -281,7 +932,7 @@ public class Version extends Number implements Comparable<Version> {
    * @return true only if Major version is specified.
    */    
   public boolean hasMajor() {
-    return IDX_MAJOR < versions.size();
+    return IDX_MAJOR < nver;
   }
 
   /**
@@ -290,7 +941,7 @@ public class Version extends Number implements Comparable<Version> {
    * @return true only if Minor version is specified.
    */  
   public boolean hasMinor() {
-    return IDX_MINOR < versions.size();
+    return IDX_MINOR < nver;
   }
   
   /**
@@ -300,26 +951,24 @@ public class Version extends Number implements Comparable<Version> {
    * @return true only if Patch version is specified.
    */      
   public boolean hasPatch() {
-    return IDX_PATCH < versions.size();
+    return IDX_PATCH < nver;
   }
 
   /**
    * Get part of version number by its position.
    *
+   * <p>Numbers that do not fit in a long saturate to {@link
+   * Long#MAX_VALUE} or {@link Long#MIN_VALUE}.
+   *
    * @param idx - part index (Major is 0)
    * @return long value of the part, 0 if the specified part is missing
+   *     or is not a number
    */
   public long getVersionPartNum(int idx) {
-    final String vu = getElement(versions, idx);
-    if (null == vu) {
-      return 0L;
-    }
-    try {
-      long result = Long.parseLong(vu);
-      return result;
-    } catch (Exception ex) {
+    if (idx < 0 || idx >= nver) {
       return 0L;
     }
+    return partNum(text, comps[idx]);
   }
 
   /**
@@ -349,33 +998,931 @@ public class Version extends Number implements Comparable<Version> {
     return getVersionPartNum(IDX_PATCH);
   }
 
-  
+  /**
+   * Return list of prerelease identifiers.
+   *
+   * @return Read-only list of prerelease identifiers. Empty list if there is none.
+   */
   public List<String> getPrereleaseIds() {
-    return this.prereleaseIds;
+    return components(nver, npre);
   }
 
+  /**
+   * Return list of version components (major, minor, patch, ...).
+   *
+   * @return Read-only list of version components.
+   */
   public List<String> getVersions() {
-    return this.versions;
+    return components(0, nver);
   }
 
   /**
    * Return list of build identifiers
    *
-   * @return Wist of build identifiers. Empty list if there is none.
+   * @return Read-only list of build identifiers. Empty list if there is none.
    */
   public List<String> getBuildIds() {
-    return this.buildIds;
+    return components(nver + npre, comps.length - nver - npre);
+  }
+
+  private List<String> components(int from, int size) {
+    return size == 0 ? Collections.<String>emptyList() : new Components(this, from, size);
   }
 
   /**
-   * Check if the Version conforms to the SemVer specification.
-   *
-   * @return true when conforming
+   * Read-only view of a range of the components, materializes the
+   * component strings on access.
+   */
+  private static final class Components extends AbstractList<String> implements RandomAccess {
+    private final Version ver;
+    private final int from;
+    private final int size;
+
+    Components(Version ver, int from, int size) {
+      this.ver = ver;
+      this.from = from;
+      this.size = size;
+    }
+
+    @Override
+    public String get(int index) {
+      if (index < 0 || index >= size) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+      }
+      return ver.component(from + index);
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+  }
+
+  private String component(int idx) {
+    final long comp = comps[idx];
+    final long kind = comp & KIND_MASK;
+    if (kind == K_NUM) {
+      return comp < SMALL_NUMS.length ? SMALL_NUMS[(int) comp] : Long.toString(comp);
+    }
+    if (kind == K_NULL) {
+      return null;
+    }
+    final int start = start(comp);
+    final int end = end(comp);
+    final String word = commonWord(text, start, end);
+    return null != word ? word : text.substring(start, end);
+  }
+
+  private static int start(long comp) {
+    return (int) ((comp >>> OFF_BITS) & OFF_MASK);
+  }
+
+  private static int end(long comp) {
+    return (int) (comp & OFF_MASK);
+  }
+
+  /*
+   * Binary form: varint counts of the version components, prerelease
+   * and build identifiers followed by the components. A component is
+   * a varint header with the tag in the two lower bits: the value of
+   * a number in canonical form, or the length of the UTF-8 bytes of
+   * a text component that follow, or a null component.
+   */
+  private static final int TAG_NUM = 0;
+  private static final int TAG_TEXT = 1;
+  private static final int TAG_NULL = 2;
+  private static final int TAG_BITS = 2;
+  private static final int TAG_MASK = 3;
+
+  /**
+   * Get size of the binary form.
+   *
+   * @return number of bytes that {@link #writeTo(ByteBuffer)} writes
+   */
+  public int serializedSize() {
+    int size = varintSize(nver) + varintSize(npre) + varintSize(comps.length - nver - npre);
+    for (long comp : comps) {
+      final long kind = comp & KIND_MASK;
+      if (kind == K_NUM) {
+        size += varintSize(comp << TAG_BITS);
+      } else if (kind == K_NULL) {
+        size++;
+      } else {
+        final int len = utf8Length(text, start(comp), end(comp));
+        size += varintSize(((long) len << TAG_BITS) | TAG_TEXT) + len;
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Write the version in the compact binary form.
+   *
+   * <p>Numbers take one byte up to 31, identifiers their length
+   * and a byte of header, e.g. {@code 1.2.3-rc.1} takes 10 bytes.
+   *
+   * @param buf destination, its position is advanced
+   * @throws java.nio.BufferOverflowException if there is not enough
+   *     room for {@link #serializedSize()} bytes
+   */
+  public void writeTo(ByteBuffer buf) {
+    putVarint(buf, nver);
+    putVarint(buf, npre);
+    putVarint(buf, comps.length - nver - npre);
+    for (long comp : comps) {
+      final long kind = comp & KIND_MASK;
+      if (kind == K_NUM) {
+        putVarint(buf, comp << TAG_BITS);
+      } else if (kind == K_NULL) {
+        buf.put((byte) TAG_NULL);
+      } else {
+        final int start = start(comp);
+        final int end = end(comp);
+        putVarint(buf, ((long) utf8Length(text, start, end) << TAG_BITS) | TAG_TEXT);
+        for (int i = start; i < end; i++) {
+          final char chr = text.charAt(i);
+          if (chr < 0x80) {
+            buf.put((byte) chr);
+          } else {
+            buf.put(text.substring(i, end).getBytes(StandardCharsets.UTF_8));
+            break;
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Write the version in the compact binary form.
+   *
+   * @param out destination
+   * @throws IOException on write errors
+   * @see #writeTo(ByteBuffer)
+   */
+  public void writeTo(DataOutput out) throws IOException {
+    final byte[] bytes = new byte[serializedSize()];
+    writeTo(ByteBuffer.wrap(bytes));
+    out.write(bytes);
+  }
+
+  /**
+   * Read version written by {@link #writeTo(ByteBuffer)}.
+   *
+   * @param buf source, its position is advanced past the version
+   * @return the version, equal to the one written
+   * @throws java.nio.BufferUnderflowException if the buffer ends
+   *     before the version
+   * @throws IllegalArgumentException if the data are malformed
+   */
+  public static Version readFrom(final ByteBuffer buf) {
+    try {
+      return decode(new Decoder() {
+          @Override
+          int next() {
+            return buf.get() & 0xff;
+          }
+
+          @Override
+          void corrupt(String msg) {
+            throw new IllegalArgumentException(msg);
+          }
+        });
+    } catch (IOException ex) {
+      // not thrown by this decoder
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  /**
+   * Read version written by {@link #writeTo(DataOutput)}.
+   *
+   * @param in source
+   * @return the version, equal to the one written
+   * @throws java.io.EOFException if the input ends before the version
+   * @throws StreamCorruptedException if the data are malformed
+   * @throws IOException on read errors
+   */
+  public static Version readFrom(final DataInput in) throws IOException {
+    return decode(new Decoder() {
+        @Override
+        int next() throws IOException {
+          return in.readUnsignedByte();
+        }
+
+        @Override
+        void corrupt(String msg) throws StreamCorruptedException {
+          throw new StreamCorruptedException(msg);
+        }
+      });
+  }
+
+  /**
+   * Byte source of the binary form decoder.
+   */
+  private abstract static class Decoder {
+    abstract int next() throws IOException;
+
+    abstract void corrupt(String msg) throws IOException;
+
+    long varint() throws IOException {
+      long result = 0L;
+      for (int shift = 0; shift < 64; shift += 7) {
+        final int octet = next();
+        result |= (long) (octet & 0x7f) << shift;
+        if (octet < 0x80) {
+          return result;
+        }
+      }
+      corrupt("Malformed varint");
+      return result;
+    }
+
+    int count() throws IOException {
+      final long count = varint();
+      if (count < 0 || count > Integer.MAX_VALUE) {
+        corrupt("Invalid component count: " + count);
+      }
+      return (int) count;
+    }
+  }
+
+  private static Version decode(Decoder in) throws IOException {
+    final int nver = in.count();
+    final int npre = in.count();
+    final int nbuild = in.count();
+    final long total = (long) nver + npre + nbuild;
+    if (total > Integer.MAX_VALUE) {
+      in.corrupt("Invalid component count: " + total);
+    }
+    // grow with the input rather than trust the counts
+    long[] comps = new long[(int) Math.min(total, 16)];
+    StringBuilder buf = null;
+    byte[] bytes = null;
+    for (int idx = 0; idx < total; idx++) {
+      if (idx == comps.length) {
+        comps = Arrays.copyOf(comps, (int) Math.min(total, 2L * idx));
+      }
+      final long header = in.varint();
+      final int tag = (int) (header & TAG_MASK);
+      final long value = header >>> TAG_BITS;
+      if (tag == TAG_NUM) {
+        if (value >= NUM_LIMIT) {
+          in.corrupt("Invalid number component: " + value);
+        }
+        comps[idx] = K_NUM | value;
+      } else if (tag == TAG_NULL && value == 0) {
+        comps[idx] = K_NULL;
+      } else if (tag == TAG_TEXT && value <= OFF_MASK) {
+        if (null == buf) {
+          buf = new StringBuilder();
+          bytes = new byte[16];
+        }
+        final int len = (int) value;
+        if (bytes.length < len) {
+          bytes = new byte[Math.max(len, 2 * bytes.length)];
+        }
+        boolean ascii = true;
+        for (int i = 0; i < len; i++) {
+          final int octet = in.next();
+          ascii &= octet < 0x80;
+          bytes[i] = (byte) octet;
+        }
+        final long start = buf.length();
+        if (ascii) {
+          for (int i = 0; i < len; i++) {
+            buf.append((char) bytes[i]);
+          }
+        } else {
+          buf.append(new String(bytes, 0, len, StandardCharsets.UTF_8));
+        }
+        if (buf.length() > OFF_MASK) {
+          in.corrupt("Version text is too long");
+        }
+        comps[idx] = textComp(buf, (int) start, buf.length());
+      } else {
+        in.corrupt("Invalid component header: " + header);
+      }
+    }
+    return new Version(null == buf ? null : textOf(buf, comps), comps, nver, npre);
+  }
+
+  /**
+   * Encode text component of the backing text.
+   *
+   * <p>Numbers in canonical form are stored as numbers, like the
+   * parser does, the range of the text is not used then.
+   */
+  private static long textComp(CharSequence text, int start, int end) {
+    if (!isANum(text, start, end)) {
+      return K_TEXT | ((long) start << OFF_BITS) | end;
+    }
+    final char first = text.charAt(start);
+    if (first >= '0' && (first != '0' || end - start == 1) && isALong(text, start, end)) {
+      final long value = atol(text, start, end);
+      if (value < NUM_LIMIT) {
+        return K_NUM | value;
+      }
+    }
+    return K_DIGITS | ((long) start << OFF_BITS) | end;
+  }
+
+  private static int varintSize(long value) {
+    int size = 1;
+    for (long rest = value >>> 7; rest != 0; rest >>>= 7) {
+      size++;
+    }
+    return size;
+  }
+
+  private static void putVarint(ByteBuffer buf, long value) {
+    long rest = value;
+    while ((rest & ~0x7fL) != 0) {
+      buf.put((byte) ((rest & 0x7f) | 0x80));
+      rest >>>= 7;
+    }
+    buf.put((byte) rest);
+  }
+
+  private static int utf8Length(String str, int start, int end) {
+    int len = 0;
+    for (int i = start; i < end; i++) {
+      final char chr = str.charAt(i);
+      if (chr < 0x80) {
+        len++;
+      } else {
+        return len + str.substring(i, end).getBytes(StandardCharsets.UTF_8).length;
+      }
+    }
+    return len;
+  }
+
+  /**
+   * Serialize through {@link SerializedForm}.
+   */
+  private Object writeReplace() {
+    return new SerializedForm(this);
+  }
+
+  private void readObject(ObjectInputStream in) throws InvalidObjectException {
+    throw new InvalidObjectException("Version is serialized through SerializedForm");
+  }
+
+  /**
+   * Serialized form of Version: the compact binary form.
+   *
+   * <p>Takes a few bytes per version after the class descriptor instead
+   * of the default serialization of the fields.
+   */
+  static final class SerializedForm implements Externalizable {
+    static final long serialVersionUID = 1;
+
+    private Version ver;
+
+    /**
+     * Constructor for deserialization.
+     */
+    public SerializedForm() {
+      // fields are set by readExternal
+    }
+
+    SerializedForm(Version ver) {
+      this.ver = ver;
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+      ver.writeTo(out);
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+      ver = readFrom(in);
+    }
+
+    private Object readResolve() {
+      return ver;
+    }
+  }
+
+  /*
+   * Sortable form: the version components, a byte that tells if
+   * prerelease identifiers follow, the prerelease identifiers and a
+   * terminator. Unless it is empty, a tail follows that does not
+   * affect precedence: the build identifiers and a terminator, then
+   * the original notation of the numbers that are not in canonical
+   * form and a terminator.
+   *
+   * A component is a tag byte and the payload. Numbers are the count
+   * of significant digits and the packed decimal digits, complemented
+   * for negative numbers. Text is the chars, escaped so that 0 ends
+   * it, see putSortableChars. The tags of text are chosen by the first
+   * char, so that text sorts against numbers as compareTo does wherever
+   * it can.
+   */
+  private static final int S_END = 0x00;
+  private static final int S_PRERELEASE = 0x01;
+  private static final int S_RELEASE = 0x02;
+  private static final int S_NULL = 0x03;
+  /** Empty text or text that starts with a char below '-'. */
+  private static final int S_TEXT_LO = 0x04;
+  private static final int S_NEGATIVE = 0x05;
+  /** Text that starts with '-', '.' or '/'. */
+  private static final int S_TEXT_DASH = 0x06;
+  private static final int S_NUMBER = 0x07;
+  /** Text that starts with a digit. */
+  private static final int S_TEXT_DIGIT = 0x08;
+  private static final int S_TEXT_HI = 0x09;
+  private static final int S_LONG_LENGTH = 0xff;
+  private static final int S_MAX_SHORT_DIGITS = 18;
+
+  /**
+   * Encode the version as bytes that sort as the versions do.
+   *
+   * <p>Unsigned lexicographic order of the results is the order of
+   * {@link #compareTo(Version)}: lower versions have lower keys,
+   * shorter keys are lower than keys they are prefixes of. Versions
+   * that differ only in build identifiers or in notation of numbers
+   * (like 1.07 and 1.7) are equal for compareTo but get distinct keys,
+   * so the key determines the version: {@link #fromSortableBytes(byte[])}
+   * restores a version equal to this one.
+   *
+   * <p>The order is exact except where compareTo is not transitive:
+   * compareTo compares a number with an identifier that is not a
+   * number by their chars, so that 9 &lt; 10 &lt; 1a &lt; 9. In the
+   * keys identifiers that start with a digit sort after all numbers,
+   * those that start with '-' sort after negative numbers, and numbers
+   * with a '+' sign, leading zeros or negative zero compare with
+   * identifiers as if written without them.
+   *
+   * @return the key, 10 bytes for 1.2.3
+   */
+  public byte[] toSortableBytes() {
+    final SortableSink out = new SortableSink();
+    for (int i = 0; i < nver; i++) {
+      putSortable(out, comps[i]);
+    }
+    if (npre == 0) {
+      out.put(S_RELEASE);
+    } else {
+      out.put(S_PRERELEASE);
+      for (int i = nver; i < nver + npre; i++) {
+        putSortable(out, comps[i]);
+      }
+      out.put(S_END);
+    }
+    boolean notation = false;
+    for (long comp : comps) {
+      notation |= hasNotation(comp);
+    }
+    if (comps.length > nver + npre || notation) {
+      for (int i = nver + npre; i < comps.length; i++) {
+        putSortable(out, comps[i]);
+      }
+      out.put(S_END);
+    }
+    if (notation) {
+      for (int i = 0; i < comps.length; i++) {
+        if (hasNotation(comps[i])) {
+          out.putVarint(i + 1);
+          putSortableChars(out, text, start(comps[i]), end(comps[i]));
+        }
+      }
+      out.put(S_END);
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Decode result of {@link #toSortableBytes()}.
+   *
+   * @param bytes the key
+   * @return version equal to the encoded one
+   * @throws IllegalArgumentException if the bytes are not a valid key
+   */
+  public static Version fromSortableBytes(byte[] bytes) {
+    return fromSortableBytes(bytes, 0, bytes.length);
+  }
+
+  /**
+   * Decode result of {@link #toSortableBytes()} from a range of an array.
+   *
+   * @param bytes array with the key
+   * @param off offset of the key
+   * @param len length of the key
+   * @return version equal to the encoded one
+   * @throws IllegalArgumentException if the bytes are not a valid key
+   */
+  public static Version fromSortableBytes(byte[] bytes, int off, int len) {
+    checkRange(off, off + len, bytes.length);
+    final SortableSource in = new SortableSource(bytes, off, off + len);
+    final StringBuilder buf = new StringBuilder();
+    long[] comps = new long[8];
+    int ncomps = 0;
+    int tag;
+    int nver = -1;
+    int npre = -1;
+    int section = SECTION_VERSION;
+    while (section <= SECTION_BUILD) {
+      tag = in.next();
+      if (tag >= S_NULL) {
+        if (ncomps == comps.length) {
+          comps = Arrays.copyOf(comps, 2 * ncomps);
+        }
+        comps[ncomps++] = getSortable(in, tag, buf);
+        continue;
+      }
+      if (section == SECTION_VERSION) {
+        nver = ncomps;
+        if (tag == S_RELEASE) {
+          npre = 0;
+          section = SECTION_BUILD;
+          if (!in.hasNext()) {
+            break;
+          }
+        } else if (tag == S_PRERELEASE) {
+          section = SECTION_PRERELEASE;
+        } else {
+          throw new IllegalArgumentException("Invalid sortable bytes: bad tag " + tag);
+        }
+      } else if (tag != S_END) {
+        throw new IllegalArgumentException("Invalid sortable bytes: bad tag " + tag);
+      } else if (section == SECTION_PRERELEASE) {
+        npre = ncomps - nver;
+        section = SECTION_BUILD;
+        if (!in.hasNext()) {
+          break;
+        }
+      } else {
+        section++;
+        if (ncomps == nver + npre && !in.hasNext()) {
+          throw new IllegalArgumentException("Invalid sortable bytes: empty tail");
+        }
+      }
+    }
+    if (section > SECTION_BUILD && in.hasNext()) {
+      // original notation of numbers
+      long idx = in.varint();
+      if (idx == 0) {
+        throw new IllegalArgumentException("Invalid sortable bytes: empty tail");
+      }
+      for (; idx != 0; idx = in.varint()) {
+        if (idx > ncomps || (comps[(int) idx - 1] & KIND_MASK) == K_TEXT
+            || comps[(int) idx - 1] == K_NULL) {
+          throw new IllegalArgumentException("Invalid sortable bytes: bad index " + idx);
+        }
+        final int start = buf.length();
+        in.getChars(buf);
+        final long comp = textComp(buf, start, buf.length());
+        if ((comp & KIND_MASK) == K_TEXT) {
+          throw new IllegalArgumentException("Invalid sortable bytes: not a number");
+        }
+        comps[(int) idx - 1] = comp;
+      }
+    }
+    if (in.hasNext()) {
+      throw new IllegalArgumentException("Invalid sortable bytes: trailing bytes");
+    }
+    if (ncomps != comps.length) {
+      comps = Arrays.copyOf(comps, ncomps);
+    }
+    return new Version(textOf(buf, comps), comps, nver, npre);
+  }
+
+  /**
+   * Maximal length of {@link #releaseSortableBytes(long, byte[])}.
+   */
+  static final int RELEASE_SORTABLE_LENGTH = 19;
+
+  /**
+   * Get the release version that has a precedence key.
+   *
+   * @param key precedence key with the release flag set
+   * @return major.minor.patch version without identifiers
+   */
+  static Version fromPrecedenceKey(long key) {
+    return new Version(null, releaseComps(key), 3, 0);
+  }
+
+  /**
+   * Write sortable form of the release version that has a precedence key.
+   *
+   * @param key precedence key with the release flag set
+   * @param dst array of at least {@link #RELEASE_SORTABLE_LENGTH} bytes
+   * @return number of bytes written
+   */
+  static int releaseSortableBytes(long key, byte[] dst) {
+    final SortableSink out = new SortableSink(dst);
+    for (long comp : releaseComps(key)) {
+      out.put(S_NUMBER);
+      putSortableDigits(out, null, comp, 0, comp == 0 ? 0 : numLength(comp), 0);
+    }
+    out.put(S_RELEASE);
+    return out.size;
+  }
+
+  /**
+   * Check if a sortable form is the one of a prerelease.
+   *
+   * @param buf buffer with a valid sortable form at start
+   */
+  static boolean isSortablePrerelease(ByteBuffer buf, int start) {
+    // the precedence part of a release ends with S_RELEASE, of a prerelease with S_END
+    return buf.get(start + sortablePrecedenceLength(buf, start) - 1) != S_RELEASE;
+  }
+
+  /**
+   * Get sortable form of the position just below all versions whose
+   * version components are not less than the ones of a version.
+   *
+   * @param ver the version, its identifiers are ignored
+   * @return bytes that are less than the sortable forms of such versions
+   *     and greater than the ones of all versions with less components
+   */
+  static byte[] sortableSectionBound(Version ver) {
+    final SortableSink out = new SortableSink();
+    for (int i = 0; i < ver.nver; i++) {
+      ver.putSortable(out, ver.comps[i]);
+    }
+    // below S_PRERELEASE, S_RELEASE and the tags of further components
+    out.put(S_END);
+    return out.toByteArray();
+  }
+
+  /**
+   * Get length of the part of a sortable form that decides precedence.
+   *
+   * @param buf buffer with a valid sortable form at start
+   * @return length of the components and prerelease identifiers
+   */
+  static int sortablePrecedenceLength(ByteBuffer buf, int start) {
+    int pos = start;
+    boolean prerelease = false;
+    while (true) {
+      final int tag = buf.get(pos++) & 0xff;
+      if (prerelease ? tag == S_END : tag == S_RELEASE) {
+        return pos - start;
+      } else if (tag == S_PRERELEASE) {
+        prerelease = true;
+      } else if (tag == S_NUMBER || tag == S_NEGATIVE) {
+        final int flip = tag == S_NEGATIVE ? 0xff : 0;
+        int len = (buf.get(pos++) & 0xff) ^ flip;
+        if (len == S_LONG_LENGTH) {
+          len = 0;
+          for (int i = 0; i < 4; i++) {
+            len = (len << 8) | ((buf.get(pos++) & 0xff) ^ flip);
+          }
+        }
+        pos += (len + 1) / 2;
+      } else if (tag != S_NULL) {
+        for (int lead = buf.get(pos++) & 0xff; lead != S_END; lead = buf.get(pos++) & 0xff) {
+          if (lead >= 0x80) {
+            pos += 2;
+          }
+        }
+      }
+    }
+  }
+
+  private static long[] releaseComps(long key) {
+    return new long[] {
+      key >>> (KEY_MINOR_BITS + KEY_PATCH_BITS + 1),
+      (key >>> (KEY_PATCH_BITS + 1)) & ((1L << KEY_MINOR_BITS) - 1),
+      (key >>> 1) & ((1L << KEY_PATCH_BITS) - 1)
+    };
+  }
+
+  /**
+   * Check if the notation of a component is lost in its sortable form.
+   */
+  private boolean hasNotation(long comp) {
+    if ((comp & KIND_MASK) != K_DIGITS) {
+      return false;
+    }
+    final int start = start(comp);
+    final int end = end(comp);
+    final int sig = significant(text, start, end);
+    return sig == end || sig != start + (text.charAt(start) == '-' ? 1 : 0);
+  }
+
+  private void putSortable(SortableSink out, long comp) {
+    final long kind = comp & KIND_MASK;
+    if (kind == K_NULL) {
+      out.put(S_NULL);
+    } else if (kind == K_NUM) {
+      out.put(S_NUMBER);
+      putSortableDigits(out, null, comp, 0, comp == 0 ? 0 : numLength(comp), 0);
+    } else {
+      final int start = start(comp);
+      final int end = end(comp);
+      if (kind == K_DIGITS) {
+        final int sig = significant(text, start, end);
+        final boolean negative = sig < end && text.charAt(start) == '-';
+        out.put(negative ? S_NEGATIVE : S_NUMBER);
+        putSortableDigits(out, text, comp, sig, end - sig, negative ? 0xff : 0);
+      } else {
+        final char first = start < end ? text.charAt(start) : 0;
+        out.put(start == end || first < '-' ? S_TEXT_LO
+                : first < '0' ? S_TEXT_DASH
+                : first <= '9' ? S_TEXT_DIGIT : S_TEXT_HI);
+        putSortableChars(out, text, start, end);
+      }
+    }
+  }
+
+  /**
+   * Put count of significant digits and packed digits of a number.
+   *
+   * @param sig offset of the significant digits of a K_DIGITS component
+   * @param flip 0xff to complement the bytes
+   */
+  private static void putSortableDigits(SortableSink out, String text, long comp, int sig,
+                                        int len, int flip) {
+    if (len < S_LONG_LENGTH) {
+      out.put(len ^ flip);
+    } else {
+      out.put(S_LONG_LENGTH ^ flip);
+      for (int shift = 24; shift >= 0; shift -= 8) {
+        out.put(((len >>> shift) & 0xff) ^ flip);
+      }
+    }
+    final boolean isNum = (comp & KIND_MASK) == K_NUM;
+    for (int i = 0; i < len; i += 2) {
+      final int high = (isNum ? numDigit(comp, len, i) : text.charAt(sig + i)) - '0';
+      final int low = i + 1 == len ? 0
+          : (isNum ? numDigit(comp, len, i + 1) : text.charAt(sig + i + 1)) - '0';
+      out.put(((high << 4) | low) ^ flip);
+    }
+  }
+
+  /**
+   * Put chars so that their bytes sort as Strings do and 0 ends them:
+   * chars below 0x7f as one byte plus one, others as three bytes, the
+   * first one is 0x80 or more.
+   */
+  private static void putSortableChars(SortableSink out, String str, int start, int end) {
+    for (int i = start; i < end; i++) {
+      final char chr = str.charAt(i);
+      if (chr < 0x7f) {
+        out.put(chr + 1);
+      } else {
+        out.put(0x80 | (chr >>> 14));
+        out.put((chr >>> 7) & 0x7f);
+        out.put(chr & 0x7f);
+      }
+    }
+    out.put(S_END);
+  }
+
+  private static long getSortable(SortableSource in, int tag, StringBuilder buf) {
+    if (tag == S_NULL) {
+      return K_NULL;
+    }
+    final int start = buf.length();
+    if (tag == S_NUMBER || tag == S_NEGATIVE) {
+      final int flip = tag == S_NEGATIVE ? 0xff : 0;
+      int len = in.next() ^ flip;
+      if (len == S_LONG_LENGTH) {
+        len = 0;
+        for (int i = 0; i < 4; i++) {
+          len = (len << 8) | (in.next() ^ flip);
+        }
+      }
+      if (len <= 0 ? len < 0 || flip != 0 : len > OFF_MASK) {
+        throw new IllegalArgumentException("Invalid sortable bytes: bad number length");
+      }
+      if (flip == 0 && len <= S_MAX_SHORT_DIGITS) {
+        long value = 0;
+        for (int i = 0; i < len; i += 2) {
+          final int octet = in.next();
+          value = value * 10 + digit(octet >>> 4);
+          if (i + 1 < len) {
+            value = value * 10 + digit(octet & 0xf);
+          } else if ((octet & 0xf) != 0) {
+            throw new IllegalArgumentException("Invalid sortable bytes: bad digit");
+          }
+        }
+        return K_NUM | value;
+      }
+      if (flip != 0) {
+        buf.append('-');
+      }
+      for (int i = 0; i < len; i += 2) {
+        final int octet = in.next() ^ flip;
+        buf.append((char) ('0' + digit(octet >>> 4)));
+        if (i + 1 < len) {
+          buf.append((char) ('0' + digit(octet & 0xf)));
+        } else if ((octet & 0xf) != 0) {
+          throw new IllegalArgumentException("Invalid sortable bytes: bad digit");
+        }
+      }
+    } else if (tag <= S_TEXT_HI && tag != S_NEGATIVE && tag != S_NUMBER) {
+      in.getChars(buf);
+    } else {
+      throw new IllegalArgumentException("Invalid sortable bytes: bad tag " + tag);
+    }
+    return textComp(buf, start, buf.length());
+  }
+
+  private static int digit(int nibble) {
+    if (nibble > 9) {
+      throw new IllegalArgumentException("Invalid sortable bytes: bad digit");
+    }
+    return nibble;
+  }
+
+  /**
+   * Growable output of {@link #toSortableBytes()}.
+   */
+  private static final class SortableSink {
+    private byte[] buf;
+    private int size;
+
+    SortableSink() {
+      this(new byte[16]);
+    }
+
+    SortableSink(byte[] buf) {
+      this.buf = buf;
+    }
+
+    void put(int octet) {
+      if (size == buf.length) {
+        buf = Arrays.copyOf(buf, 2 * size);
+      }
+      buf[size++] = (byte) octet;
+    }
+
+    void putVarint(int value) {
+      int rest = value;
+      while ((rest & ~0x7f) != 0) {
+        put((rest & 0x7f) | 0x80);
+        rest >>>= 7;
+      }
+      put(rest);
+    }
+
+    byte[] toByteArray() {
+      return Arrays.copyOf(buf, size);
+    }
+  }
+
+  /**
+   * Input of {@link #fromSortableBytes(byte[], int, int)}.
+   */
+  private static final class SortableSource {
+    private final byte[] bytes;
+    private final int end;
+    private int pos;
+
+    SortableSource(byte[] bytes, int start, int end) {
+      this.bytes = bytes;
+      this.pos = start;
+      this.end = end;
+    }
+
+    boolean hasNext() {
+      return pos < end;
+    }
+
+    int next() {
+      if (pos >= end) {
+        throw new IllegalArgumentException("Invalid sortable bytes: unexpected end");
+      }
+      return bytes[pos++] & 0xff;
+    }
+
+    long varint() {
+      long result = 0L;
+      for (int shift = 0; shift < 35; shift += 7) {
+        final int octet = next();
+        result |= (long) (octet & 0x7f) << shift;
+        if (octet < 0x80) {
+          return result;
+        }
+      }
+      throw new IllegalArgumentException("Invalid sortable bytes: bad index");
+    }
+
+    void getChars(StringBuilder buf) {
+      for (int lead = next(); lead != S_END; lead = next()) {
+        if (lead < 0x80) {
+          buf.append((char) (lead - 1));
+        } else if (lead <= 0x83) {
+          buf.append((char) (((lead & 0x03) << 14) | (next() << 7) | next()));
+        } else {
+          throw new IllegalArgumentException("Invalid sortable bytes: bad char");
+        }
+      }
+    }
+  }
+
+  /**
+   * Check if the Version conforms to the SemVer specification.
+   *
+   * @return true when conforming
    */
   public boolean isSemantic() {
-    return isSemanticVersionParts(this.versions)
-      && areAllPartsSemantic(this.prereleaseIds)
-      && areAllPartsSemantic(this.buildIds);
+    return (flags & F_SEMANTIC) != 0;
   }
   
   /**
@@ -387,7 +1934,79 @@ public class Version extends Number implements Comparable<Version> {
    * @return true when valid
    */
   public boolean isValid() {
-    return hasMajor() && this.getMajorNum() >= 0;
+    return (flags & F_VALID) != 0;
+  }
+
+  private static long partNum(String text, long comp) {
+    final long kind = comp & KIND_MASK;
+    if (kind == K_NUM) {
+      return comp;
+    }
+    if (kind == K_DIGITS) {
+      final int start = start(comp);
+      final int end = end(comp);
+      if (isALong(text, start, end)) {
+        return atol(text, start, end);
+      }
+      return isNegative(text, start, end) ? Long.MIN_VALUE : Long.MAX_VALUE;
+    }
+    return 0L;
+  }
+
+  /**
+   * Compute the flags in a single pass over the components.
+   *
+   * <p>Same rules as {@link #isSemanticVersionParts(List)} and {@link
+   * #areAllPartsSemantic(List)}, only the text components need to be
+   * looked at char by char.
+   */
+  private static byte flags(String text, long[] comps, int nver) {
+    int result = 0;
+    if (nver > 0 && partNum(text, comps[IDX_MAJOR]) >= 0) {
+      result |= F_VALID;
+    }
+    boolean semantic = nver == 3;
+    for (int i = 0; semantic && i < comps.length; i++) {
+      final long comp = comps[i];
+      final long kind = comp & KIND_MASK;
+      if (kind == K_NULL) {
+        semantic = false;
+      } else if (kind != K_NUM) {
+        final int start = start(comp);
+        final int end = end(comp);
+        if (i < nver) {
+          // no leading zeros, non negative number
+          semantic = kind == K_DIGITS
+            && (end - start == 1 || text.charAt(start) != '0')
+            && !isNegative(text, start, end);
+        } else {
+          semantic = isIdentifier(text, start, end);
+        }
+      }
+    }
+    if (semantic) {
+      result |= F_SEMANTIC;
+    }
+    return (byte) result;
+  }
+
+  /**
+   * Check if the range is a non-empty sequence of [0-9A-Za-z-].
+   */
+  private static boolean isIdentifier(CharSequence str, int start, int end) {
+    if (start >= end) {
+      return false;
+    }
+    for (int i = start; i < end; i++) {
+      final char chr = str.charAt(i);
+      if (!((chr >= '0' && chr <= '9')
+            || (chr >= 'a' && chr <= 'z')
+            || (chr >= 'A' && chr <= 'Z')
+            || chr == '-')) {
+        return false;
+      }
+    }
+    return true;
   }
 
   
@@ -424,25 +2043,115 @@ public class Version extends Number implements Comparable<Version> {
   }
 
 
-  @Override
-  public boolean equals(Object obj) {
-    if (!(obj instanceof Version)) {
-      return false;
+  /**
+   * Get canonical instance of this version.
+   *
+   * <p>Returns a version that is {@link #equals(Object) equal} to this
+   * one and is the same object for all equal versions that were
+   * interned. Canonical instances are weakly referenced, they do not
+   * stay in memory when the application does not use them.
+   *
+   * @return canonical Version object
+   */
+  public Version intern() {
+    return VersionInterner.INSTANCE.intern(this);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof Version)) {
+      return false;
+    }
+    final Version ov = (Version) obj;
+    if (this.nver != ov.nver
+        || this.npre != ov.npre
+        || this.comps.length != ov.comps.length) {
+      return false;
+    }
+    for (int i = 0; i < comps.length; i++) {
+      if (!compEquals(this.comps[i], ov, ov.comps[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean compEquals(long comp, Version other, long ocomp) {
+    final long kind = comp & KIND_MASK;
+    if (kind == K_NUM || kind == K_NULL || kind != (ocomp & KIND_MASK)) {
+      return comp == ocomp;
+    }
+    final int start = start(comp);
+    final int len = end(comp) - start;
+    return len == end(ocomp) - start(ocomp)
+      && this.text.regionMatches(start, other.text, start(ocomp), len);
+  }
+
+  @Override
+  public int hashCode() {
+    int result = hash;
+    if (result == 0) {
+      result = hashParts(1, 0, nver);
+      result = hashParts(31 * result + '-', nver, nver + npre);
+      result = hashParts(31 * result + '+', nver + npre, comps.length);
+      hash = result;
+    }
+    return result;
+  }
+
+  /**
+   * Combine String hash codes of the components in [from, to).
+   */
+  private int hashParts(int hash, int from, int to) {
+    int result = hash;
+    for (int i = from; i < to; i++) {
+      final long comp = comps[i];
+      final long kind = comp & KIND_MASK;
+      int compHash = 0;
+      if (kind == K_NUM) {
+        final int len = numLength(comp);
+        for (int k = 0; k < len; k++) {
+          compHash = 31 * compHash + numDigit(comp, len, k);
+        }
+      } else if (kind != K_NULL) {
+        for (int k = start(comp); k < end(comp); k++) {
+          compHash = 31 * compHash + text.charAt(k);
+        }
+      }
+      result = 31 * result + compHash;
+    }
+    return result;
+  }
+
+  /**
+   * Get number of decimal digits of a non-negative number.
+   */
+  private static int numLength(long num) {
+    int len = 1;
+    while (len < POW10.length && num >= POW10[len]) {
+      len++;
     }
-    Version ov = (Version) obj;
-    return equal(this.getVersions(), ov.getVersions())
-      && equal(this.getPrereleaseIds(), ov.getPrereleaseIds())
-      && equal(this.getBuildIds(), ov.getBuildIds());
+    return len;
   }
 
-  @Override
-  public int hashCode() {
-    return this.asString().hashCode();
+  /**
+   * Get k-th decimal digit character of a non-negative number of len digits.
+   */
+  private static char numDigit(long num, int len, int pos) {
+    return (char) ('0' + (num / POW10[len - 1 - pos]) % 10);
   }
 
   @Override
   public String toString() {
-    return null != src ? src : asString();
+    String result = src;
+    if (null == result) {
+      result = asString();
+      src = result;
+    }
+    return result;
   }
 
   
@@ -488,7 +2197,7 @@ public class Version extends Number implements Comparable<Version> {
             return null;
           } else {
             if (isANum(objA) && isANum(objB)) {
-              return Long.toString(atol(objA) - atol(objB));
+              return addNumbers(objA, objB, true);
             } else if (null == objB) {
               return objA;
             } else {
@@ -550,7 +2259,7 @@ public class Version extends Number implements Comparable<Version> {
             return objB;
           } else {
             if (isANum(objA) && isANum(objB)) {
-              return Long.toString(atol(objA) + atol(objB));
+              return addNumbers(objA, objB, false);
             } else if (null == objB) {
               return objA;
             } else {
@@ -563,6 +2272,46 @@ public class Version extends Number implements Comparable<Version> {
   }
 
 
+  /**
+   * Get precedence of the version packed into a long.
+   *
+   * <p>Versions with exactly three numeric components (without sign
+   * and leading zeros) that fit into 22 bits for the major number and
+   * into 20 bits for minor and patch have the key. The lowest bit is
+   * set for releases and clear for prereleases. For two versions with
+   * keys the order of the keys is the order of {@link #compareTo},
+   * except that prereleases of the same major.minor.patch have equal
+   * keys and are ordered by the prerelease identifiers. Build
+   * identifiers do not affect the key.
+   *
+   * <p>Keys allow sorting and hashing of the common versions as
+   * primitive longs.
+   *
+   * @return non-negative key or {@link #NO_PRECEDENCE_KEY} if the version has none
+   */
+  public long precedenceKey() {
+    return key;
+  }
+
+  private static long precedenceKey(long[] comps, int nver, int npre) {
+    if (nver != 3) {
+      return NO_PRECEDENCE_KEY;
+    }
+    final long major = comps[IDX_MAJOR];
+    final long minor = comps[IDX_MINOR];
+    final long patch = comps[IDX_PATCH];
+    // K_NUM components are non-negative and have the kind bits clear
+    if ((major >>> KEY_MAJOR_BITS) != 0
+        || (minor >>> KEY_MINOR_BITS) != 0
+        || (patch >>> KEY_PATCH_BITS) != 0) {
+      return NO_PRECEDENCE_KEY;
+    }
+    return (major << (KEY_MINOR_BITS + KEY_PATCH_BITS + 1))
+      | (minor << (KEY_PATCH_BITS + 1))
+      | (patch << 1)
+      | (npre == 0 ? 1L : 0L);
+  }
+
   /**
    * Compare with another version
    *
@@ -572,39 +2321,381 @@ public class Version extends Number implements Comparable<Version> {
    * @return negative if lower, positive if bigger than the other. 0 if equal.
    */
   public int compareTo(Version other) {
+    final long tkey = this.key;
+    final long okey = other.key;
+    if ((tkey | okey) >= 0) {
+      if (tkey == okey) {
+        // same major.minor.patch: equal releases or both prereleases
+        return (tkey & 1L) != 0 ? 0 : comparePrerelease(other);
+      }
+      return tkey < okey ? -1 : 1;
+    }
+    final int result = compareVersionComps(other);
+    return result != 0 ? result : comparePrerelease(other);
+  }
+
+  /**
+   * Compare only the version components, like {@link #compareTo}
+   * does before it looks at the prerelease identifiers.
+   */
+  int compareSection(Version other) {
+    final long tkey = this.key;
+    final long okey = other.key;
+    if ((tkey | okey) >= 0) {
+      return Long.compare(tkey >>> 1, okey >>> 1);
+    }
+    return compareVersionComps(other);
+  }
+
+  private int compareVersionComps(Version other) {
     int result = 0;
-    for (int i = 0; i < versions.size(); i++) {
-      final String tel = getElement(this.versions, i);
-      final String oel = getElement(other.versions, i);
-      result = compareVerComp(tel, oel);
+    final int tvsize = this.nver;
+    final int ovsize = other.nver;
+    for (int i = 0; i < tvsize; i++) {
+      result = i < ovsize
+        ? this.compareComp(this.comps[i], other, other.comps[i])
+        : (this.comps[i] == K_NULL ? 0 : 1);
       if (result != 0) {
         return result;
       }
     }
-    result = versions.size() - other.versions.size();
-    if (result != 0) {
-      return result;
-    }
+    return tvsize - ovsize;
+  }
+
+  /**
+   * Check if the version has prerelease identifiers.
+   */
+  boolean isPrerelease() {
+    return npre != 0;
+  }
+
+  /**
+   * Compare prerelease identifiers of versions with equal version components.
+   */
+  private int comparePrerelease(Version other) {
+    final int tvsize = this.nver;
+    final int ovsize = other.nver;
+    final int tpsize = this.npre;
+    final int opsize = other.npre;
     // this = 1.0.0 > 1.0.0.pre
-    if (this.prereleaseIds.size() == 0) {
-      return other.prereleaseIds.size();
+    if (tpsize == 0) {
+      return opsize;
     }
     // this = 1.0.0.pre < 1.0.0
-    if (other.prereleaseIds.size() == 0) {
-      return - this.prereleaseIds.size();
+    if (opsize == 0) {
+      return - tpsize;
     }
-    for (int i = 0; i < this.prereleaseIds.size(); i++) {
-      final String tel = getElement(this.prereleaseIds, i);
-      final String oel = getElement(other.prereleaseIds, i);
-      result = compareVerComp(tel, oel);
+    int result = 0;
+    for (int i = 0; i < tpsize; i++) {
+      final long comp = this.comps[tvsize + i];
+      result = i < opsize
+        ? this.compareComp(comp, other, other.comps[ovsize + i])
+        : (comp == K_NULL ? 0 : 1);
       if (result != 0) {
         return result;
       }
     }
-    result = prereleaseIds.size() - other.prereleaseIds.size();
+    result = tpsize - opsize;
+    return result;
+  }
+
+  /**
+   * Compare a component of this version with a component of the
+   * other one, same rules as {@link #compareVerComp(String, String)}.
+   */
+  private int compareComp(long comp, Version other, long ocomp) {
+    if (((comp | ocomp) & KIND_MASK) == K_NUM) {
+      return comp > ocomp ? 1 : ((comp < ocomp) ? -1 : 0);
+    }
+    final long kind = comp & KIND_MASK;
+    final long okind = ocomp & KIND_MASK;
+    if (kind == K_NULL || okind == K_NULL) {
+      return kind == okind ? 0 : (kind == K_NULL ? -1 : 1);
+    }
+    if (kind != K_TEXT && okind != K_TEXT) {
+      if (kind == K_DIGITS && okind == K_DIGITS) {
+        return compareNumbers(this.text, start(comp), end(comp),
+                              other.text, start(ocomp), end(ocomp));
+      }
+      return kind == K_NUM
+        ? - other.compareDigits(ocomp, comp)
+        : this.compareDigits(comp, ocomp);
+    }
+    // lexical comparison, like String.compareTo
+    final int len = this.compLength(comp);
+    final int olen = other.compLength(ocomp);
+    final int min = Math.min(len, olen);
+    for (int k = 0; k < min; k++) {
+      final char chr = this.compChar(comp, len, k);
+      final char ochr = other.compChar(ocomp, olen, k);
+      if (chr != ochr) {
+        return chr - ochr;
+      }
+    }
+    return len - olen;
+  }
+
+  /**
+   * Compare a K_DIGITS component with a K_NUM one.
+   */
+  private int compareDigits(long comp, long num) {
+    final int start = start(comp);
+    final int end = end(comp);
+    if (isALong(text, start, end)) {
+      final long value = atol(text, start, end);
+      return value > num ? 1 : ((value < num) ? -1 : 0);
+    }
+    // bigger in magnitude than any K_NUM
+    return isNegative(text, start, end) ? -1 : 1;
+  }
+
+  private int compLength(long comp) {
+    return (comp & KIND_MASK) == K_NUM ? numLength(comp) : end(comp) - start(comp);
+  }
+
+  private char compChar(long comp, int len, int pos) {
+    return (comp & KIND_MASK) == K_NUM ? numDigit(comp, len, pos) : text.charAt(start(comp) + pos);
+  }
+
+  /**
+   * Sort versions in ascending order.
+   *
+   * <p>The result is the one of a stable sort by {@link #compareTo},
+   * but the versions that have a {@link #precedenceKey()} are ordered
+   * by a radix sort of the keys, so most of the comparisons are not
+   * needed.
+   *
+   * @param vers versions to sort, must not contain nulls
+   */
+  public static void sort(Version[] vers) {
+    VersionSorter.sort(vers, 0, vers.length);
+  }
+
+  /**
+   * Sort list of versions in ascending order.
+   *
+   * @param vers versions to sort, must not contain nulls
+   * @see #sort(Version[])
+   */
+  public static void sort(List<Version> vers) {
+    final Version[] arr = vers.toArray(new Version[vers.size()]);
+    VersionSorter.sort(arr, 0, arr.length);
+    final ListIterator<Version> iter = vers.listIterator();
+    for (Version ver : arr) {
+      iter.next();
+      iter.set(ver);
+    }
+  }
+
+  /**
+   * Sort versions in parallel in the common fork-join pool.
+   *
+   * @param vers versions to sort, must not contain nulls
+   * @see #parallelSort(Version[], ForkJoinPool)
+   */
+  public static void parallelSort(Version[] vers) {
+    parallelSort(vers, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Sort versions in parallel.
+   *
+   * <p>Ranges of the array are sorted as by {@link #sort(Version[])}
+   * and merged with a stable parallel merge, the result is the same
+   * as of the sequential sort.
+   *
+   * @param vers versions to sort, must not contain nulls
+   * @param pool fork-join pool to run the sort in
+   */
+  public static void parallelSort(Version[] vers, ForkJoinPool pool) {
+    final int parallelism = pool.getParallelism();
+    if (vers.length <= VersionTasks.THRESHOLD || parallelism == 1) {
+      sort(vers);
+      return;
+    }
+    final int grain = Math.max(VersionTasks.THRESHOLD,
+                               vers.length / (parallelism * VersionTasks.RANGES_PER_THREAD) + 1);
+    pool.invoke(new VersionTasks.SortTask(vers, new Version[vers.length], 0, vers.length, grain));
+  }
+
+  /**
+   * Parse version specifications in parallel in the common fork-join pool.
+   *
+   * @param specs version specifications, nulls give null versions
+   * @return parsed versions in the order of the specifications
+   * @see #parseAll(String[], ForkJoinPool)
+   */
+  public static Version[] parseAll(String[] specs) {
+    return parseAll(specs, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Parse version specifications in parallel.
+   *
+   * <p>The result is the same as of calling {@link
+   * #parseVersion(String)} for each of the specifications.
+   *
+   * @param specs version specifications, nulls give null versions
+   * @param pool fork-join pool to run the parsing in
+   * @return parsed versions in the order of the specifications
+   */
+  public static Version[] parseAll(String[] specs, ForkJoinPool pool) {
+    final Version[] result = new Version[specs.length];
+    final VersionTasks.ParseTask task =
+        new VersionTasks.ParseTask(specs, result, 0, specs.length);
+    if (specs.length <= VersionTasks.THRESHOLD) {
+      task.compute();
+    } else {
+      pool.invoke(task);
+    }
     return result;
   }
 
+  /**
+   * Parse list of version specifications in parallel in the common fork-join pool.
+   *
+   * @param specs version specifications, nulls give null versions
+   * @return fixed-size list of parsed versions in the order of the specifications
+   * @see #parseAll(String[], ForkJoinPool)
+   */
+  public static List<Version> parseAll(List<String> specs) {
+    return Arrays.asList(parseAll(specs.toArray(new String[specs.size()])));
+  }
+
+  /**
+   * Comparator of version specifications, see {@link #compare(CharSequence, CharSequence)}.
+   */
+  public static final Comparator<CharSequence> SPEC_ORDER = new Comparator<CharSequence>() {
+      @Override
+      public int compare(CharSequence specA, CharSequence specB) {
+        return Version.compare(specA, specB);
+      }
+    };
+
+  /**
+   * Compare two version specifications without parsing them.
+   *
+   * <p>The result has the same sign as
+   * {@code parseVersion(specA).compareTo(parseVersion(specB))}: the
+   * specifications are split into components by the same rules and
+   * the components are walked in lockstep, nothing is allocated. Null
+   * specifications are less than any other.
+   *
+   * @param specA version specification, may be null
+   * @param specB version specification, may be null
+   * @return negative if specA is lower, positive if it is bigger than specB. 0 if equal.
+   */
+  public static int compare(CharSequence specA, CharSequence specB) {
+    if (null == specA || null == specB) {
+      return null == specA ? (null == specB ? 0 : -1) : 1;
+    }
+    final int endA = specA.length();
+    final int endB = specB.length();
+    int posA = 0;
+    int posB = 0;
+    int secA = SECTION_VERSION;
+    int secB = SECTION_VERSION;
+    // version components, then prerelease identifiers
+    for (int section = SECTION_VERSION; section <= SECTION_PRERELEASE; section++) {
+      final boolean hasA = secA == section && posA < endA;
+      final boolean hasB = secB == section && posB < endB;
+      if (section == SECTION_PRERELEASE && hasA != hasB) {
+        // release is bigger than prerelease
+        return hasA ? -1 : 1;
+      }
+      while (true) {
+        final boolean moreA = secA == section && posA < endA;
+        final boolean moreB = secB == section && posB < endB;
+        if (!moreA || !moreB) {
+          if (moreA != moreB) {
+            return moreA ? 1 : -1;
+          }
+          break;
+        }
+        final long tokA = nextToken(specA, posA, endA, secA);
+        final long tokB = nextToken(specB, posB, endB, secB);
+        final int result = compareTokens(specA, posA, tokenEnd(tokA),
+                                         specB, posB, tokenEnd(tokB));
+        if (result != 0) {
+          return result;
+        }
+        posA = tokenNext(tokA);
+        posB = tokenNext(tokB);
+        secA = tokenSection(tokA);
+        secB = tokenSection(tokB);
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Find the token that starts at pos, same rules as {@link #scan}.
+   *
+   * @return end of the token, position and section of the next token
+   *     packed into a long
+   */
+  private static long nextToken(CharSequence str, int pos, int end, int section) {
+    int idx = pos;
+    if (isSeparator(str.charAt(idx), section)) {
+      idx++;
+    } else {
+      while (idx < end && !isSeparator(str.charAt(idx), section)) {
+        idx++;
+      }
+    }
+    final int tokEnd = idx;
+    int next = section;
+    if (idx < end) {
+      final char chr = str.charAt(idx);
+      if (isSeparator(chr, section)) {
+        idx++;
+        if (section == SECTION_VERSION && chr == '-') {
+          next = SECTION_PRERELEASE;
+        } else if (section == SECTION_PRERELEASE && chr == '+') {
+          next = SECTION_BUILD;
+        }
+      } else {
+        do {
+          idx++;
+        } while (idx < end && !isSeparator(str.charAt(idx), section));
+      }
+    }
+    return ((long) tokEnd << 33) | ((long) idx << 2) | next;
+  }
+
+  private static int tokenEnd(long tok) {
+    return (int) (tok >>> 33);
+  }
+
+  private static int tokenNext(long tok) {
+    return (int) ((tok >>> 2) & OFF_MASK);
+  }
+
+  private static int tokenSection(long tok) {
+    return (int) (tok & 3);
+  }
+
+  /**
+   * Compare two component ranges, same rules as {@link #compareVerComp(String, String)}.
+   */
+  private static int compareTokens(CharSequence strA, int startA, int endA,
+                                   CharSequence strB, int startB, int endB) {
+    if (isANum(strA, startA, endA) && isANum(strB, startB, endB)) {
+      return compareNumbers(strA, startA, endA, strB, startB, endB);
+    }
+    final int lenA = endA - startA;
+    final int lenB = endB - startB;
+    final int min = Math.min(lenA, lenB);
+    for (int k = 0; k < min; k++) {
+      final char chrA = strA.charAt(startA + k);
+      final char chrB = strB.charAt(startB + k);
+      if (chrA != chrB) {
+        return chrA - chrB;
+      }
+    }
+    return lenA - lenB;
+  }
+
   protected static String getElement(List<String> seq, int index) {
     if (null == seq) {
       return null;
@@ -622,11 +2713,9 @@ public class Version extends Number implements Comparable<Version> {
     if (null == other) {
       return this;
     }
-    Version result = new Version();
-    result.versions = mapall(op, this.versions, other.versions);
-    result.prereleaseIds = mapall(op, this.prereleaseIds, other.prereleaseIds);
-    result.buildIds = mapall(op, this.buildIds, other.buildIds);
-    return result;
+    return new Version(mapall(op, this.getVersions(), other.getVersions()),
+                       mapall(op, this.getPrereleaseIds(), other.getPrereleaseIds()),
+                       mapall(op, this.getBuildIds(), other.getBuildIds()));
   }
   
 
@@ -707,8 +2796,7 @@ public class Version extends Number implements Comparable<Version> {
     if (null == val) {
       return true;
     }
-    final Matcher matcher = VU_PAT.matcher(val);
-    return matcher.matches();
+    return isIdentifier(val, 0, val.length());
   }
   
   protected static String chkVerNumberPart(Long num,
@@ -740,12 +2828,7 @@ public class Version extends Number implements Comparable<Version> {
     if (null == str || (str.length() > 1 && str.charAt(0) == '0')) { 
       return false;
     }
-    try {
-      long result = Long.parseLong(str);
-      return result >= 0;
-    } catch (Exception ex) {
-      return false;
-    }
+    return isANum(str) && !isNegative(str, 0, str.length());
   }
   
   protected boolean isSemanticVersionParts(List<String> list) {
@@ -772,59 +2855,53 @@ public class Version extends Number implements Comparable<Version> {
     return true;
   }
 
-  private static boolean equal(Object objA, Object objB) {
-    if (null == objA) {
-      return null == objB;
-    }
-    return objA.equals(objB);
-  }
-
     
-  private static void appendPart(StringBuilder buf, String sep, String val) {
-    if (null != val) {
-      if (buf.length() > 0) {
-        buf.append(sep);
-      }
-    }
-    buf.append(val);
+  private String asString() {
+    final StringBuilder buf = new StringBuilder();
+    buf.append(this.prefix);
+    appendParts(buf, "", 0, nver);
+    appendParts(buf, "-", nver, nver + npre);
+    appendParts(buf, "+", nver + npre, comps.length);
+    return buf.toString();
   }
 
-  private void appendPart(StringBuilder buf,
-                          String sep1,
-                          String sep2,
-                          Collection<String> vals) {
-    if (null != vals && !vals.isEmpty()) {
-      if (buf.length() > 0) {
-        buf.append(sep1);
+  private void appendParts(StringBuilder buf, String sep, int from, int to) {
+    if (from < to && buf.length() > 0) {
+      buf.append(sep);
+    }
+    for (int i = from; i < to; i++) {
+      if (i > from) {
+        buf.append('.');
       }
-      int idx = 0;
-      for (Object val : vals) {
-        if (idx > 0) {
-          buf.append(sep2);
-        }
-        buf.append(val);
-        idx++;
+      final long comp = comps[i];
+      final long kind = comp & KIND_MASK;
+      if (kind == K_NUM) {
+        buf.append(comp);
+      } else if (kind == K_NULL) {
+        buf.append((String) null);
+      } else {
+        buf.append(text, start(comp), end(comp));
       }
     }
-
   }
 
-    
-  private String asString() {
-    StringBuilder buf = new StringBuilder();
-    appendPart(buf, "", this.prefix);
-    appendPart(buf, "", ".", this.versions);
-    appendPart(buf, "-", ".", this.prereleaseIds);
-    appendPart(buf, "+", ".", this.buildIds);
-    return buf.toString();
-  }
-    
-  private static long atol(String str) {
-    try {
-      return Long.parseLong(str);
-    } catch (Exception ex) {
-      throw new RuntimeException("Cannot convert to Long: '" + str + "'");
+  /**
+   * Convert a range of characters to long.
+   *
+   * <p>The range must have been checked with {@link #isALong(CharSequence, int, int)}.
+   */
+  static long atol(CharSequence str, int start, int end) {
+    int idx = start;
+    final boolean negative = str.charAt(idx) == '-';
+    if (negative || str.charAt(idx) == '+') {
+      idx++;
     }
+    // accumulate negatively to be able to represent Long.MIN_VALUE
+    long result = 0L;
+    for (; idx < end; idx++) {
+      result = result * 10 - (str.charAt(idx) - '0');
+    }
+    return negative ? result : -result;
   }
 
   static int compareVerComp(String objA, String objB) {
@@ -835,21 +2912,214 @@ public class Version extends Number implements Comparable<Version> {
     } else if (null == objB) {
       return 1;
     } else if (isANum(objA) && isANum(objB)) {
-      final long al = atol(objA);
-      final long bl = atol(objB);
-      return al > bl ? 1 : ((al < bl) ? -1 : 0);
+      return compareNumbers(objA, 0, objA.length(), objB, 0, objB.length());
     } else {
       return objA.compareTo(objB);
     }
         
   }
 
-  private static boolean isANum(String str) {
-    try {
-      Long.parseLong(str);
+  static boolean isANum(String str) {
+    return null != str && isANum(str, 0, str.length());
+  }
+
+  /**
+   * Check if a range of characters is a number.
+   *
+   * <p>Accepts an optional sign followed by ASCII digits, there is no
+   * limit on the number of digits. Never throws, so classifying
+   * alphanumeric identifiers costs no more than a scan of their
+   * characters.
+   */
+  static boolean isANum(CharSequence str, int start, int end) {
+    int idx = start;
+    if (idx < end) {
+      final char first = str.charAt(idx);
+      if (first == '-' || first == '+') {
+        idx++;
+      }
+    }
+    if (idx >= end) {
+      return false;
+    }
+    for (int i = idx; i < end; i++) {
+      final char chr = str.charAt(i);
+      if (chr < '0' || chr > '9') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Check if a range of characters is a number that fits in a long.
+   *
+   * <p>Same syntax as {@link Long#parseLong(String)} accepts.
+   */
+  static boolean isALong(CharSequence str, int start, int end) {
+    int idx = start;
+    if (idx < end) {
+      final char first = str.charAt(idx);
+      if (first == '-' || first == '+') {
+        idx++;
+      }
+    }
+    if (idx >= end) {
+      return false;
+    }
+    int sig = -1;
+    for (int i = idx; i < end; i++) {
+      final char chr = str.charAt(i);
+      if (chr < '0' || chr > '9') {
+        return false;
+      }
+      if (sig < 0 && chr != '0') {
+        sig = i;
+      }
+    }
+    if (sig < 0) {
       return true;
-    } catch (Exception ex) {
+    }
+    final int digits = end - sig;
+    if (digits != LONG_LIMIT_DIGITS.length()) {
+      return digits < LONG_LIMIT_DIGITS.length();
+    }
+    final boolean negative = str.charAt(start) == '-';
+    for (int i = 0; i < digits; i++) {
+      char limit = LONG_LIMIT_DIGITS.charAt(i);
+      if (negative && i == digits - 1) {
+        // Long.MIN_VALUE ends with 8
+        limit++;
+      }
+      final char chr = str.charAt(sig + i);
+      if (chr != limit) {
+        return chr < limit;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Check if a number has the minus sign and is not zero.
+   */
+  private static boolean isNegative(CharSequence str, int start, int end) {
+    if (str.charAt(start) != '-') {
       return false;
     }
+    for (int i = start + 1; i < end; i++) {
+      if (str.charAt(i) != '0') {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Get position of the first significant digit of a number, end if
+   * it is zero.
+   */
+  private static int significant(CharSequence str, int start, int end) {
+    int idx = start;
+    final char first = str.charAt(idx);
+    if (first == '-' || first == '+') {
+      idx++;
+    }
+    while (idx < end && str.charAt(idx) == '0') {
+      idx++;
+    }
+    return idx;
+  }
+
+  /**
+   * Compare two numbers of any length.
+   *
+   * <p>The ranges must have been checked with {@link #isANum(CharSequence, int, int)}.
+   * Signs and leading zeros are skipped, then the numbers of
+   * significant digits and the digits are compared.
+   */
+  static int compareNumbers(CharSequence strA, int startA, int endA,
+                            CharSequence strB, int startB, int endB) {
+    final int sigA = significant(strA, startA, endA);
+    final int sigB = significant(strB, startB, endB);
+    // zero has no sign
+    final int signA = sigA == endA ? 0 : (strA.charAt(startA) == '-' ? -1 : 1);
+    final int signB = sigB == endB ? 0 : (strB.charAt(startB) == '-' ? -1 : 1);
+    if (signA != signB) {
+      return signA < signB ? -1 : 1;
+    }
+    final int result = compareMagnitudes(strA, sigA, endA, strB, sigB, endB);
+    return signA < 0 ? -result : result;
+  }
+
+  /**
+   * Compare significant digits [sigA, endA) with [sigB, endB).
+   */
+  private static int compareMagnitudes(CharSequence strA, int sigA, int endA,
+                                       CharSequence strB, int sigB, int endB) {
+    int result = (endA - sigA) - (endB - sigB);
+    for (int i = 0; result == 0 && sigA + i < endA; i++) {
+      result = strA.charAt(sigA + i) - strB.charAt(sigB + i);
+    }
+    return result;
+  }
+
+  /**
+   * Add or substract numbers of any length.
+   *
+   * <p>The arguments must have been checked with {@link #isANum(String)}.
+   *
+   * @return the result in canonical form: no leading zeros, no plus sign
+   */
+  static String addNumbers(String numA, String numB, boolean substract) {
+    final int lenA = numA.length();
+    final int lenB = numB.length();
+    if (lenA < LONG_LIMIT_DIGITS.length() && lenB < LONG_LIMIT_DIGITS.length()) {
+      // at most 18 digits each, the result fits in a long
+      final long al = atol(numA, 0, lenA);
+      final long bl = atol(numB, 0, lenB);
+      return Long.toString(substract ? al - bl : al + bl);
+    }
+    final int sigA = significant(numA, 0, lenA);
+    final int sigB = significant(numB, 0, lenB);
+    final boolean negA = numA.charAt(0) == '-';
+    final boolean negB = (numB.charAt(0) == '-') != substract;
+    final char[] digits = new char[Math.max(lenA - sigA, lenB - sigB) + 1];
+    boolean negative = negA;
+    if (negA == negB) {
+      int carry = 0;
+      for (int k = 1; k <= digits.length; k++) {
+        final int sum = digitFromEnd(numA, sigA, k) + digitFromEnd(numB, sigB, k) + carry;
+        digits[digits.length - k] = (char) ('0' + sum % 10);
+        carry = sum / 10;
+      }
+    } else {
+      // substract the smaller magnitude from the bigger one
+      final int cmp = compareMagnitudes(numA, sigA, lenA, numB, sigB, lenB);
+      final String big = cmp >= 0 ? numA : numB;
+      final String small = cmp >= 0 ? numB : numA;
+      final int sigBig = cmp >= 0 ? sigA : sigB;
+      final int sigSmall = cmp >= 0 ? sigB : sigA;
+      negative = cmp >= 0 ? negA : negB;
+      int borrow = 0;
+      for (int k = 1; k <= digits.length; k++) {
+        int diff = digitFromEnd(big, sigBig, k) - digitFromEnd(small, sigSmall, k) - borrow;
+        borrow = diff < 0 ? 1 : 0;
+        digits[digits.length - k] = (char) ('0' + diff + 10 * borrow);
+      }
+    }
+    int first = 0;
+    while (first < digits.length - 1 && digits[first] == '0') {
+      first++;
+    }
+    final String magnitude = new String(digits, first, digits.length - first);
+    return negative && !"0".equals(magnitude) ? "-" + magnitude : magnitude;
+  }
+
+  /**
+   * Get k-th digit from the end of the significant digits starting at sig, 0 beyond them.
+   */
+  private static int digitFromEnd(String num, int sig, int pos) {
+    final int idx = num.length() - pos;
+    return idx >= sig ? num.charAt(idx) - '0' : 0;
   }
 }
@@ -0,0 +1,641 @@
+package io.opsit.version;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Immutable array of versions stored in primitive columns.
+ *
+ * <p>Every version takes an entry of the precedence key column (see
+ * {@link Version#precedenceKey()}) and of the offset column. Versions
+ * other than plain major.minor.patch releases also keep their {@link
+ * Version#toSortableBytes() sortable form} in a shared byte arena.
+ * The columns are a few ByteBuffers, on heap or direct, so that tens
+ * of millions of versions are a handful of objects for the garbage
+ * collector; a plain release takes 12 bytes. Version objects are
+ * created on demand by {@link #get(int)}.
+ *
+ * <p>The elements are ordered by their keys and then by their sortable
+ * forms: the order of {@link Version#compareTo(Version)}, with equal
+ * versions that differ in build identifiers or in notation of numbers
+ * kept apart. Comparisons, sorting and searches do not create Version
+ * objects.
+ *
+ * <p>Each column is limited to 2G bytes, so an array holds up to 268M
+ * versions.
+ */
+public final class VersionArray {
+  private static final int KEY_BYTES = 8;
+  private static final int OFFSET_BYTES = 4;
+
+  private final ByteBuffer keys;
+  private final ByteBuffer offsets;
+  private final ByteBuffer arena;
+  private final int size;
+  private final boolean sorted;
+
+  private VersionArray(ByteBuffer keys, ByteBuffer offsets, ByteBuffer arena,
+                       int size, boolean sorted) {
+    this.keys = keys;
+    this.offsets = offsets;
+    this.arena = arena;
+    this.size = size;
+    this.sorted = sorted;
+  }
+
+  /**
+   * Create builder of an array on heap.
+   *
+   * @return empty builder
+   */
+  public static Builder builder() {
+    return new Builder(false, 16, 64);
+  }
+
+  /**
+   * Create builder of an array.
+   *
+   * @param direct if true, the columns are direct ByteBuffers outside of the heap
+   * @param capacity expected number of versions
+   * @return empty builder
+   */
+  public static Builder builder(boolean direct, int capacity) {
+    return new Builder(direct, Math.max(capacity, 1), Math.max(capacity, 1) * 4);
+  }
+
+  /**
+   * Create array of versions on heap.
+   *
+   * @param vers the versions, must not contain nulls
+   * @return array with the versions in the same order
+   */
+  public static VersionArray of(Version... vers) {
+    final Builder builder = new Builder(false, Math.max(vers.length, 1), vers.length * 4 + 1);
+    for (Version ver : vers) {
+      builder.add(ver);
+    }
+    return builder.build();
+  }
+
+  /**
+   * Get number of versions.
+   *
+   * @return size of the array
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Check if the columns are outside of the heap.
+   *
+   * @return true if the buffers are direct
+   */
+  public boolean isDirect() {
+    return keys.isDirect();
+  }
+
+  /**
+   * Check if the versions are in ascending order.
+   *
+   * @return true if every version is not less than the previous one
+   */
+  public boolean isSorted() {
+    return sorted;
+  }
+
+  /**
+   * Get number of bytes of the columns.
+   *
+   * @return storage size without the fixed overhead of the objects
+   */
+  public long byteSize() {
+    return (long) keys.capacity() + offsets.capacity() + arena.capacity();
+  }
+
+  /**
+   * Get version at a position.
+   *
+   * @param index the position
+   * @return a new Version object equal to the stored one
+   * @throws IndexOutOfBoundsException if the index is out of range
+   */
+  public Version get(int index) {
+    checkIndex(index);
+    final int start = start(index);
+    final int len = start(index + 1) - start;
+    if (len == 0) {
+      return Version.fromPrecedenceKey(keys.getLong(index * KEY_BYTES));
+    }
+    if (arena.hasArray()) {
+      return Version.fromSortableBytes(arena.array(), arena.arrayOffset() + start, len);
+    }
+    final byte[] bytes = new byte[len];
+    for (int i = 0; i < len; i++) {
+      bytes[i] = arena.get(start + i);
+    }
+    return Version.fromSortableBytes(bytes);
+  }
+
+  /**
+   * Get precedence key of the version at a position.
+   *
+   * @param index the position
+   * @return the key or {@link Version#NO_PRECEDENCE_KEY}
+   * @throws IndexOutOfBoundsException if the index is out of range
+   */
+  public long precedenceKey(int index) {
+    checkIndex(index);
+    return keys.getLong(index * KEY_BYTES);
+  }
+
+  /**
+   * Get read-only list view of the versions.
+   *
+   * @return list that calls {@link #get(int)} on access
+   */
+  public List<Version> asList() {
+    return new VersionList(this);
+  }
+
+  /**
+   * Compare versions at two positions.
+   *
+   * @param indexA the first position
+   * @param indexB the second position
+   * @return negative, zero or positive as the first version is less
+   *     than, same as or greater than the second one
+   */
+  public int compare(int indexA, int indexB) {
+    checkIndex(indexA);
+    checkIndex(indexB);
+    return new Comparison().compare(indexA, indexB);
+  }
+
+  /**
+   * Get array with the same versions in ascending order.
+   *
+   * <p>Uses the radix sort of the keys of {@link Version#sort(Version[])}.
+   *
+   * @return sorted copy in the same kind of storage, this array if it
+   *     is sorted already
+   */
+  public VersionArray sorted() {
+    if (sorted) {
+      return this;
+    }
+    final int[] order = order();
+    return select(order, order.length);
+  }
+
+  /**
+   * Get positions of the versions in the order of a stable sort.
+   */
+  int[] order() {
+    return VersionSorter.order(new Comparison(), 0, size);
+  }
+
+  /**
+   * Get array of the versions at the first count positions, in the same kind of storage.
+   */
+  VersionArray select(int[] positions, int count) {
+    final Builder builder = new Builder(isDirect(), Math.max(count, 1),
+                                        Math.max(start(size), 1));
+    for (int i = 0; i < count; i++) {
+      builder.copy(this, positions[i]);
+    }
+    return builder.build();
+  }
+
+  /**
+   * Compare versions at two positions as {@link Version#compareTo} does.
+   */
+  int comparePrecedence(int indexA, int indexB) {
+    return new Comparison().compare(indexA, indexB, true);
+  }
+
+  /**
+   * Check if the version at a position has prerelease identifiers.
+   */
+  boolean isPrerelease(int index) {
+    final long key = keys.getLong(index * KEY_BYTES);
+    if (key >= 0) {
+      return (key & 1L) == 0;
+    }
+    return Version.isSortablePrerelease(arena, start(index));
+  }
+
+  /**
+   * Search a sorted array for a version.
+   *
+   * @param ver the version to find
+   * @return index of the version, if it is in the array, otherwise
+   *     (-(insertion point) - 1), as {@link java.util.Arrays#binarySearch(Object[], Object)}
+   * @throws IllegalStateException if the array is not sorted
+   */
+  public int binarySearch(Version ver) {
+    if (!sorted) {
+      throw new IllegalStateException("VersionArray is not sorted");
+    }
+    final Comparison cmp = new Comparison();
+    final long key = ver.precedenceKey();
+    final ByteBuffer bytes = ByteBuffer.wrap(ver.toSortableBytes());
+    int low = 0;
+    int high = size - 1;
+    while (low <= high) {
+      final int mid = (low + high) >>> 1;
+      final int result = cmp.compare(mid, key, bytes, false);
+      if (result < 0) {
+        low = mid + 1;
+      } else if (result > 0) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -(low + 1);
+  }
+
+  /**
+   * Get index of the first version that is not less than a version.
+   *
+   * <p>Versions that are equal for compareTo but differ in build
+   * identifiers or notation of numbers count as not less.
+   *
+   * @param ver the version
+   * @return index in [0, size]
+   * @throws IllegalStateException if the array is not sorted
+   */
+  public int lowerBound(Version ver) {
+    return bound(ver, false);
+  }
+
+  /**
+   * Get index of the first version that is greater than a version.
+   *
+   * <p>Versions that are equal for compareTo but differ in build
+   * identifiers or notation of numbers count as not greater.
+   *
+   * @param ver the version
+   * @return index in [0, size]
+   * @throws IllegalStateException if the array is not sorted
+   */
+  public int upperBound(Version ver) {
+    return bound(ver, true);
+  }
+
+  private int bound(Version ver, boolean upper) {
+    if (!sorted) {
+      throw new IllegalStateException("VersionArray is not sorted");
+    }
+    return bound(ver, upper, 0, size);
+  }
+
+  /**
+   * Get lower or upper bound of a version in the sorted positions [from, to).
+   *
+   * <p>The sortable form of the version is only made if the keys do
+   * not decide, so semantic releases are found without allocation.
+   */
+  int bound(Version ver, boolean upper, int from, int to) {
+    final long key = ver.precedenceKey();
+    Comparison cmp = null;
+    ByteBuffer bytes = null;
+    int low = from;
+    int high = to;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      final long keyA = keys.getLong(mid * KEY_BYTES);
+      final int result;
+      if ((keyA | key) >= 0 && (keyA != key || (key & 1L) != 0)) {
+        result = Long.compare(keyA, key);
+      } else {
+        if (null == cmp) {
+          cmp = new Comparison();
+          bytes = ByteBuffer.wrap(ver.toSortableBytes());
+        }
+        result = cmp.compare(mid, key, bytes, true);
+      }
+      if (result < 0 || (upper && result == 0)) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Get index of the first version in the sorted positions [from,
+   * to) whose version components are not less than the ones of a version.
+   */
+  int sectionBound(Version ver, int from, int to) {
+    final Comparison cmp = new Comparison();
+    final ByteBuffer bytes = ByteBuffer.wrap(Version.sortableSectionBound(ver));
+    int low = from;
+    int high = to;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      // the bound never equals a sortable form
+      if (cmp.compare(mid, Version.NO_PRECEDENCE_KEY, bytes, false) < 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+  }
+
+  private int start(int index) {
+    return offsets.getInt(index * OFFSET_BYTES);
+  }
+
+  /**
+   * Comparison of the elements, holds the buffers for the sortable
+   * forms of plain releases that are not stored.
+   */
+  private final class Comparison extends VersionSorter.Source {
+    private final byte[] releaseA = new byte[Version.RELEASE_SORTABLE_LENGTH];
+    private final byte[] releaseB = new byte[Version.RELEASE_SORTABLE_LENGTH];
+    private final ByteBuffer wrapA = ByteBuffer.wrap(releaseA);
+    private final ByteBuffer wrapB = ByteBuffer.wrap(releaseB);
+
+    @Override
+    long key(int pos) {
+      return keys.getLong(pos * KEY_BYTES);
+    }
+
+    @Override
+    boolean hasTies(long key) {
+      // releases may differ by build identifiers
+      return true;
+    }
+
+    @Override
+    int compare(int posA, int posB) {
+      return compare(posA, posB, false);
+    }
+
+    /**
+     * Compare two elements.
+     *
+     * @param precedence if true, compare only the parts of the sortable
+     *     forms that decide precedence, as compareTo does
+     */
+    int compare(int posA, int posB, boolean precedence) {
+      final long keyA = key(posA);
+      final long keyB = key(posB);
+      if ((keyA | keyB) >= 0) {
+        if (keyA != keyB) {
+          return keyA < keyB ? -1 : 1;
+        }
+        if (precedence && (keyA & 1L) != 0) {
+          // equal releases
+          return 0;
+        }
+      }
+      int startA = start(posA);
+      int lenA = start(posA + 1) - startA;
+      ByteBuffer bufA = arena;
+      if (lenA == 0) {
+        startA = 0;
+        lenA = Version.releaseSortableBytes(keyA, releaseA);
+        bufA = wrapA;
+      }
+      int startB = start(posB);
+      int lenB = start(posB + 1) - startB;
+      ByteBuffer bufB = arena;
+      if (lenB == 0) {
+        startB = 0;
+        lenB = Version.releaseSortableBytes(keyB, releaseB);
+        bufB = wrapB;
+      }
+      if (precedence) {
+        lenA = Version.sortablePrecedenceLength(bufA, startA);
+        lenB = Version.sortablePrecedenceLength(bufB, startB);
+      }
+      return compareBytes(bufA, startA, lenA, bufB, startB, lenB);
+    }
+
+    /**
+     * Compare element with a version given by its key and sortable form.
+     *
+     * @param precedence if true, compare only the parts of the sortable
+     *     forms that decide precedence, as compareTo does
+     */
+    int compare(int pos, long key, ByteBuffer bytes, boolean precedence) {
+      final long keyA = key(pos);
+      if ((keyA | key) >= 0) {
+        if (keyA != key) {
+          return keyA < key ? -1 : 1;
+        }
+        if (precedence && (key & 1L) != 0) {
+          // equal releases
+          return 0;
+        }
+      }
+      int start = start(pos);
+      int len = start(pos + 1) - start;
+      ByteBuffer buf = arena;
+      if (len == 0) {
+        start = 0;
+        len = Version.releaseSortableBytes(keyA, releaseA);
+        buf = wrapA;
+      }
+      int blen = bytes.capacity();
+      if (precedence) {
+        len = Version.sortablePrecedenceLength(buf, start);
+        blen = Version.sortablePrecedenceLength(bytes, 0);
+      }
+      return compareBytes(buf, start, len, bytes, 0, blen);
+    }
+  }
+
+  /**
+   * Compare byte ranges as unsigned bytes.
+   */
+  private static int compareBytes(ByteBuffer bufA, int startA, int lenA,
+                                  ByteBuffer bufB, int startB, int lenB) {
+    final int min = Math.min(lenA, lenB);
+    for (int i = 0; i < min; i++) {
+      final int result = (bufA.get(startA + i) & 0xff) - (bufB.get(startB + i) & 0xff);
+      if (result != 0) {
+        return result;
+      }
+    }
+    return lenA - lenB;
+  }
+
+  /**
+   * Read-only list view of the array.
+   */
+  private static final class VersionList extends AbstractList<Version> implements RandomAccess {
+    private final VersionArray array;
+
+    VersionList(VersionArray array) {
+      this.array = array;
+    }
+
+    @Override
+    public Version get(int index) {
+      return array.get(index);
+    }
+
+    @Override
+    public int size() {
+      return array.size();
+    }
+  }
+
+  /**
+   * Builder of {@link VersionArray}, grows the columns as versions are
+   * added. Not thread safe.
+   */
+  public static final class Builder {
+    private final boolean direct;
+    private ByteBuffer keys;
+    private ByteBuffer offsets;
+    private ByteBuffer arena;
+    private int size;
+    private int arenaSize;
+    private boolean sorted = true;
+    private VersionArray last;
+    private Comparison lastComparison;
+
+    private Builder(boolean direct, int capacity, int arenaCapacity) {
+      this.direct = direct;
+      this.keys = allocate((long) capacity * KEY_BYTES);
+      this.offsets = allocate((long) (capacity + 1) * OFFSET_BYTES);
+      this.arena = allocate(arenaCapacity);
+    }
+
+    private ByteBuffer allocate(long capacity) {
+      if (capacity > Integer.MAX_VALUE) {
+        throw new IllegalStateException("VersionArray column is too big: " + capacity);
+      }
+      return direct ? ByteBuffer.allocateDirect((int) capacity)
+        : ByteBuffer.allocate((int) capacity);
+    }
+
+    private ByteBuffer grow(ByteBuffer buf, long needed) {
+      if (needed <= buf.capacity()) {
+        return buf;
+      }
+      return resize(buf, buf.capacity(),
+                  Math.min(Math.max(needed, 2L * buf.capacity()), Integer.MAX_VALUE));
+    }
+
+    /**
+     * Copy first len bytes of a buffer to a new buffer of a capacity.
+     */
+    private ByteBuffer resize(ByteBuffer buf, int len, long capacity) {
+      final ByteBuffer src = buf.duplicate();
+      ((Buffer) src).position(0).limit(len);
+      final ByteBuffer result = allocate(capacity);
+      result.put(src);
+      return result;
+    }
+
+    /**
+     * Add version at the end.
+     *
+     * @param ver the version
+     * @return this builder
+     * @throws NullPointerException if the version is null
+     */
+    public Builder add(Version ver) {
+      final long key = ver.precedenceKey();
+      final byte[] bytes = key >= 0 && (key & 1L) != 0 && ver.getBuildIds().isEmpty()
+          ? null : ver.toSortableBytes();
+      append(key, bytes, null, 0, null == bytes ? 0 : bytes.length);
+      return this;
+    }
+
+    /**
+     * Add all the versions at the end.
+     *
+     * @param vers the versions
+     * @return this builder
+     */
+    public Builder addAll(Iterable<Version> vers) {
+      for (Version ver : vers) {
+        add(ver);
+      }
+      return this;
+    }
+
+    void copy(VersionArray src, int index) {
+      final int start = src.start(index);
+      append(src.keys.getLong(index * KEY_BYTES), null, src.arena, start,
+             src.start(index + 1) - start);
+    }
+
+    private void append(long key, byte[] bytes, ByteBuffer from, int start, int len) {
+      keys = grow(keys, (long) (size + 1) * KEY_BYTES);
+      offsets = grow(offsets, (long) (size + 2) * OFFSET_BYTES);
+      arena = grow(arena, (long) arenaSize + len);
+      keys.putLong(size * KEY_BYTES, key);
+      offsets.putInt(size * OFFSET_BYTES, arenaSize);
+      for (int i = 0; i < len; i++) {
+        arena.put(arenaSize + i, null == bytes ? from.get(start + i) : bytes[i]);
+      }
+      arenaSize += len;
+      offsets.putInt((size + 1) * OFFSET_BYTES, arenaSize);
+      size++;
+      if (sorted && size > 1) {
+        sorted = comparison().compare(size - 2, size - 1) <= 0;
+      }
+    }
+
+    /**
+     * Get comparison of the added versions, the columns are replaced as they grow.
+     */
+    private Comparison comparison() {
+      if (null == last || last.keys != keys || last.offsets != offsets || last.arena != arena) {
+        last = new VersionArray(keys, offsets, arena, size, false);
+        lastComparison = last.new Comparison();
+      }
+      return lastComparison;
+    }
+
+    /**
+     * Get number of added versions.
+     *
+     * @return size of the array to build
+     */
+    public int size() {
+      return size;
+    }
+
+    /**
+     * Create the array.
+     *
+     * <p>The columns are trimmed to the added versions and the builder
+     * must not be used after that.
+     *
+     * @return array of the added versions
+     */
+    public VersionArray build() {
+      final VersionArray result = new VersionArray(trim(keys, (long) size * KEY_BYTES),
+                                                   trim(offsets, (long) (size + 1) * OFFSET_BYTES),
+                                                   trim(arena, arenaSize), size, sorted);
+      keys = null;
+      offsets = null;
+      arena = null;
+      return result;
+    }
+
+    private ByteBuffer trim(ByteBuffer buf, long len) {
+      return buf.capacity() == len ? buf : resize(buf, (int) len, len);
+    }
+  }
+}
@@ -0,0 +1,277 @@
+package io.opsit.version;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded thread safe cache of parsed versions keyed by their
+ * specification strings.
+ *
+ * <p>Repeated specifications are parsed only once while they stay in
+ * the cache. The cache is split into segments, each one an LRU map
+ * guarded by its own lock, so threads that look up different
+ * specifications rarely contend. When a segment is full its least
+ * recently used entry is evicted.
+ *
+ * <p>Cached Version objects are shared between all callers, this
+ * is safe because Version objects are immutable.
+ */
+public class VersionCache {
+  /**
+   * Default maximum number of entries of the cache used by {@link Version#parseCached(String)}.
+   */
+  public static final int DEFAULT_MAX_SIZE = 4096;
+
+  private static final int MAX_SEGMENTS = 1 << 8;
+
+  private final Segment[] segments;
+  private final int segmentMask;
+  private final int maxSize;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * Create cache with the specified maximum size.
+   *
+   * <p>The number of segments is chosen from the number of available
+   * processors.
+   *
+   * @param maxSize maximum number of cached versions
+   */
+  public VersionCache(int maxSize) {
+    this(maxSize, 4 * Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Create cache with the specified maximum size and concurrency level.
+   *
+   * @param maxSize maximum number of cached versions
+   * @param concurrency expected number of concurrently accessing threads,
+   *        determines the number of segments
+   */
+  public VersionCache(int maxSize, int concurrency) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("Invalid cache size: " + maxSize);
+    }
+    if (concurrency <= 0) {
+      throw new IllegalArgumentException("Invalid concurrency level: " + concurrency);
+    }
+    int nsegs = 1;
+    // every segment holds at least one entry
+    while (nsegs < concurrency && nsegs < MAX_SEGMENTS && nsegs * 2 <= maxSize) {
+      nsegs <<= 1;
+    }
+    this.maxSize = maxSize;
+    this.segmentMask = nsegs - 1;
+    this.segments = new Segment[nsegs];
+    // the capacities add up to maxSize
+    final int segSize = maxSize / nsegs;
+    final int larger = maxSize % nsegs;
+    for (int i = 0; i < nsegs; i++) {
+      segments[i] = new Segment(i < larger ? segSize + 1 : segSize);
+    }
+  }
+
+  /**
+   * Get the cache used by {@link Version#parseCached(String)}.
+   *
+   * @return shared cache with {@link #DEFAULT_MAX_SIZE} entries
+   */
+  public static VersionCache getDefault() {
+    return DefaultHolder.INSTANCE;
+  }
+
+  private static final class DefaultHolder {
+    static final VersionCache INSTANCE = new VersionCache(DEFAULT_MAX_SIZE);
+  }
+
+  /**
+   * Parse version specification using the cache.
+   *
+   * @param  str  version specification, may be null
+   * @return Return version object or null on null input
+   * @see Version#parseVersion(String)
+   */
+  public Version parse(String str) {
+    if (null == str) {
+      return null;
+    }
+    final Segment seg = segmentFor(str);
+    Version ver;
+    synchronized (seg) {
+      ver = seg.get(str);
+    }
+    if (null != ver) {
+      hits.increment();
+      return ver;
+    }
+    misses.increment();
+    ver = Version.parseVersion(str);
+    synchronized (seg) {
+      final Version prev = seg.putIfAbsent(str, ver);
+      return null == prev ? ver : prev;
+    }
+  }
+
+  /**
+   * Parse version specification using the cache and ensure that resulting
+   * object represents valid version.
+   *
+   * @param  str  version specification, may be null
+   * @return Return version object or null on null input
+   * @throws IllegalArgumentException if the version is not valid
+   * @see Version#parseValidVersion(String)
+   */
+  public Version parseValid(String str) throws IllegalArgumentException {
+    if (null == str) {
+      return null;
+    }
+    final ParseResult result = Version.checkValid(parse(str));
+    if (!result.isSuccess()) {
+      throw new IllegalArgumentException("Invalid version spec: " + result);
+    }
+    return result.getVersion();
+  }
+
+  /**
+   * Parse version specification using the cache and ensure that resulting
+   * object represents valid semantic version.
+   *
+   * @param  str  version specification, may be null
+   * @return Return version object or null on null input
+   * @throws IllegalArgumentException if the version is not semantic
+   * @see Version#parseSemanticVersion(String)
+   */
+  public Version parseSemantic(String str) throws IllegalArgumentException {
+    if (null == str) {
+      return null;
+    }
+    final ParseResult result = Version.checkSemantic(str, parse(str));
+    if (!result.isSuccess()) {
+      throw new IllegalArgumentException("Not a semantic version specification: " + result);
+    }
+    return result.getVersion();
+  }
+
+  /**
+   * Parse version specification using the cache without throwing if it
+   * is not valid.
+   *
+   * @param  str  version specification, may be null
+   * @return result, failure with {@link ParseError#NULL_SPEC} on null input
+   * @see Version#tryParseValid(String)
+   */
+  public ParseResult tryParseValid(String str) {
+    if (null == str) {
+      return ParseResult.failure(ParseError.NULL_SPEC, 0);
+    }
+    return Version.checkValid(parse(str));
+  }
+
+  /**
+   * Parse version specification using the cache without throwing if it
+   * is not semantic.
+   *
+   * @param  str  version specification, may be null
+   * @return result, failure with {@link ParseError#NULL_SPEC} on null input
+   * @see Version#tryParseSemantic(String)
+   */
+  public ParseResult tryParseSemantic(String str) {
+    if (null == str) {
+      return ParseResult.failure(ParseError.NULL_SPEC, 0);
+    }
+    return Version.checkSemantic(str, parse(str));
+  }
+
+  /**
+   * Get number of lookups that found the version in the cache.
+   *
+   * @return number of cache hits
+   */
+  public long hitCount() {
+    return hits.sum();
+  }
+
+  /**
+   * Get number of lookups that had to parse the specification.
+   *
+   * @return number of cache misses
+   */
+  public long missCount() {
+    return misses.sum();
+  }
+
+  /**
+   * Get number of entries evicted to keep the cache size bounded.
+   *
+   * @return number of evictions
+   */
+  public long evictionCount() {
+    return evictions.sum();
+  }
+
+  /**
+   * Get maximum number of cached versions.
+   *
+   * @return maximum size
+   */
+  public int maxSize() {
+    return maxSize;
+  }
+
+  /**
+   * Get current number of cached versions.
+   *
+   * @return number of entries
+   */
+  public int size() {
+    int size = 0;
+    for (Segment seg : segments) {
+      synchronized (seg) {
+        size += seg.size();
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Remove all the entries. Counters are not reset.
+   */
+  public void clear() {
+    for (Segment seg : segments) {
+      synchronized (seg) {
+        seg.clear();
+      }
+    }
+  }
+
+  private Segment segmentFor(String str) {
+    final int hash = str.hashCode();
+    return segments[(hash ^ (hash >>> 16)) & segmentMask];
+  }
+
+  /**
+   * LRU map, must be accessed while holding its monitor.
+   */
+  private final class Segment extends LinkedHashMap<String, Version> {
+    static final long serialVersionUID = 1;
+
+    private final int capacity;
+
+    Segment(int capacity) {
+      super(16, 0.75f, true);
+      this.capacity = capacity;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Version> eldest) {
+      if (size() > capacity) {
+        evictions.increment();
+        return true;
+      }
+      return false;
+    }
+  }
+}
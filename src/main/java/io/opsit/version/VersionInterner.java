@@ -0,0 +1,56 @@
+package io.opsit.version;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Weak interner of Version objects used by {@link Version#intern()}.
+ *
+ * <p>The instances are kept in segments, each one a WeakHashMap
+ * guarded by its own monitor. Entries disappear when their canonical
+ * Version is no longer referenced elsewhere.
+ */
+final class VersionInterner {
+  static final VersionInterner INSTANCE = new VersionInterner(64);
+
+  private final Map<Version, WeakReference<Version>>[] segments;
+  private final int segmentMask;
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  VersionInterner(int concurrency) {
+    int nsegs = 1;
+    while (nsegs < concurrency) {
+      nsegs <<= 1;
+    }
+    this.segmentMask = nsegs - 1;
+    this.segments = new Map[nsegs];
+    for (int i = 0; i < nsegs; i++) {
+      segments[i] = new WeakHashMap<Version, WeakReference<Version>>();
+    }
+  }
+
+  Version intern(Version ver) {
+    final int hash = ver.hashCode();
+    final Map<Version, WeakReference<Version>> seg = segments[(hash ^ (hash >>> 16)) & segmentMask];
+    synchronized (seg) {
+      final WeakReference<Version> ref = seg.get(ver);
+      final Version canonical = null == ref ? null : ref.get();
+      if (null != canonical) {
+        return canonical;
+      }
+      seg.put(ver, new WeakReference<Version>(ver));
+      return ver;
+    }
+  }
+
+  int size() {
+    int size = 0;
+    for (Map<Version, WeakReference<Version>> seg : segments) {
+      synchronized (seg) {
+        size += seg.size();
+      }
+    }
+    return size;
+  }
+}
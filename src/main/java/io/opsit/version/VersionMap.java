@@ -0,0 +1,316 @@
+package io.opsit.version;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Immutable map with version keys sorted by {@link Version#compareTo(Version)}.
+ *
+ * <p>The keys are a {@link VersionSet}, the values are kept in an
+ * array aligned to the positions of the keys. As with TreeMap.put,
+ * of the keys that are equal for compareTo the first added one is
+ * kept, with the last added value.
+ *
+ * <p>Navigation and "newest matching" queries return entries, views
+ * share the storage of this map.
+ *
+ * @param <V> type of the values
+ */
+public final class VersionMap<V> extends AbstractMap<Version, V> {
+  private final VersionSet keys;
+  private final Object[] values;
+
+  private VersionMap(VersionSet keys, Object[] values) {
+    this.keys = keys;
+    this.values = values;
+  }
+
+  /**
+   * Create builder of a map.
+   *
+   * @param <V> type of the values
+   * @return empty builder
+   */
+  public static <V> Builder<V> builder() {
+    return new Builder<V>();
+  }
+
+  /**
+   * Create map with the entries of a map.
+   *
+   * @param <V> type of the values
+   * @param map the map
+   * @return the map
+   * @throws NullPointerException if a key is null
+   */
+  public static <V> VersionMap<V> copyOf(Map<Version, ? extends V> map) {
+    final Builder<V> builder = new Builder<V>();
+    for (Map.Entry<Version, ? extends V> entry : map.entrySet()) {
+      builder.put(entry.getKey(), entry.getValue());
+    }
+    return builder.build();
+  }
+
+  @Override
+  public int size() {
+    return keys.size();
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return keys.contains(key);
+  }
+
+  @Override
+  public V get(Object key) {
+    if (!(key instanceof Version)) {
+      return null;
+    }
+    return value(keys.indexOf((Version) key));
+  }
+
+  /**
+   * Get the keys.
+   *
+   * @return sorted set of the keys
+   */
+  @Override
+  public VersionSet keySet() {
+    return keys;
+  }
+
+  @Override
+  public Set<Map.Entry<Version, V>> entrySet() {
+    return new AbstractSet<Map.Entry<Version, V>>() {
+      @Override
+      public int size() {
+        return keys.size();
+      }
+
+      @Override
+      public Iterator<Map.Entry<Version, V>> iterator() {
+        return new Iterator<Map.Entry<Version, V>>() {
+          private int index = keys.from();
+
+          @Override
+          public boolean hasNext() {
+            return index < keys.to();
+          }
+
+          @Override
+          public Map.Entry<Version, V> next() {
+            if (index >= keys.to()) {
+              throw new NoSuchElementException();
+            }
+            return entry(index++);
+          }
+        };
+      }
+    };
+  }
+
+  /**
+   * Get entry with the least key.
+   *
+   * @return the entry or null if the map is empty
+   */
+  public Map.Entry<Version, V> firstEntry() {
+    return entry(keys.isEmpty() ? -1 : keys.from());
+  }
+
+  /**
+   * Get entry with the greatest key.
+   *
+   * @return the entry or null if the map is empty
+   */
+  public Map.Entry<Version, V> lastEntry() {
+    return entry(keys.isEmpty() ? -1 : keys.to() - 1);
+  }
+
+  /**
+   * Get entry with the greatest key less than or equal to a version.
+   *
+   * @param ver the version
+   * @return the entry or null if there is no such key
+   */
+  public Map.Entry<Version, V> floorEntry(Version ver) {
+    return entry(keys.floorIndex(ver));
+  }
+
+  /**
+   * Get entry with the least key greater than or equal to a version.
+   *
+   * @param ver the version
+   * @return the entry or null if there is no such key
+   */
+  public Map.Entry<Version, V> ceilingEntry(Version ver) {
+    return entry(keys.ceilingIndex(ver));
+  }
+
+  /**
+   * Get entry with the greatest key strictly less than a version.
+   *
+   * @param ver the version
+   * @return the entry or null if there is no such key
+   */
+  public Map.Entry<Version, V> lowerEntry(Version ver) {
+    return entry(keys.lowerIndex(ver));
+  }
+
+  /**
+   * Get entry with the least key strictly greater than a version.
+   *
+   * @param ver the version
+   * @return the entry or null if there is no such key
+   */
+  public Map.Entry<Version, V> higherEntry(Version ver) {
+    return entry(keys.higherIndex(ver));
+  }
+
+  /**
+   * Get entry with the greatest key that matches a predicate.
+   *
+   * @param predicate the predicate of the keys
+   * @return the entry or null if no key matches
+   */
+  public Map.Entry<Version, V> latest(Predicate<? super Version> predicate) {
+    final VersionArray array = keys.array();
+    for (int i = keys.to() - 1; i >= keys.from(); i--) {
+      final Version ver = array.get(i);
+      if (predicate.test(ver)) {
+        return new AbstractMap.SimpleImmutableEntry<Version, V>(ver, value(i));
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Get entry with the greatest key without prerelease identifiers.
+   *
+   * @return the entry or null if all the keys are prereleases
+   */
+  public Map.Entry<Version, V> latestStable() {
+    return entry(keys.latestStableIndex());
+  }
+
+  /**
+   * Get view of the entries with keys between two versions.
+   *
+   * @param fromVer the low version
+   * @param fromInclusive true if the low version belongs to the view
+   * @param toVer the high version
+   * @param toInclusive true if the high version belongs to the view
+   * @return the view
+   * @throws IllegalArgumentException if the low version is greater than the high one
+   */
+  public VersionMap<V> subMap(Version fromVer, boolean fromInclusive,
+                              Version toVer, boolean toInclusive) {
+    return view(keys.subSet(fromVer, fromInclusive, toVer, toInclusive));
+  }
+
+  /**
+   * Get view of the entries with keys less than a version.
+   *
+   * @param toVer the high version
+   * @param inclusive true if the high version belongs to the view
+   * @return the view
+   */
+  public VersionMap<V> headMap(Version toVer, boolean inclusive) {
+    return view(keys.headSet(toVer, inclusive));
+  }
+
+  /**
+   * Get view of the entries with keys greater than a version.
+   *
+   * @param fromVer the low version
+   * @param inclusive true if the low version belongs to the view
+   * @return the view
+   */
+  public VersionMap<V> tailMap(Version fromVer, boolean inclusive) {
+    return view(keys.tailSet(fromVer, inclusive));
+  }
+
+  /**
+   * Get view of the entries with keys of a major version number.
+   *
+   * @param major the major version number
+   * @return the view
+   * @throws IllegalArgumentException if the number is negative
+   * @see VersionSet#majorLine(long)
+   */
+  public VersionMap<V> majorLine(long major) {
+    return view(keys.majorLine(major));
+  }
+
+  private VersionMap<V> view(VersionSet viewKeys) {
+    return viewKeys == keys ? this : new VersionMap<V>(viewKeys, values);
+  }
+
+  @SuppressWarnings("unchecked")
+  private V value(int index) {
+    return index < 0 ? null : (V) values[index];
+  }
+
+  private Map.Entry<Version, V> entry(int index) {
+    if (index < 0) {
+      return null;
+    }
+    return new AbstractMap.SimpleImmutableEntry<Version, V>(keys.array().get(index),
+                                                            value(index));
+  }
+
+  /**
+   * Builder of a map.
+   *
+   * @param <V> type of the values
+   */
+  public static final class Builder<V> {
+    private final VersionArray.Builder keys = VersionArray.builder();
+    private final List<V> values = new ArrayList<V>();
+
+    private Builder() {
+    }
+
+    /**
+     * Add entry.
+     *
+     * @param key the key
+     * @param value the value, may be null
+     * @return this builder
+     * @throws NullPointerException if the key is null
+     */
+    public Builder<V> put(Version key, V value) {
+      keys.add(key);
+      values.add(value);
+      return this;
+    }
+
+    /**
+     * Create the map.
+     *
+     * <p>The builder must not be used after that.
+     *
+     * @return map of the added entries
+     */
+    public VersionMap<V> build() {
+      final VersionArray array = keys.build();
+      final int[] order = VersionSet.order(array);
+      final int[] firsts = new int[order.length];
+      final int[] lasts = new int[order.length];
+      final int count = VersionSet.groups(array, order, firsts, lasts);
+      final Object[] sortedValues = new Object[count];
+      for (int i = 0; i < count; i++) {
+        sortedValues[i] = values.get(lasts[i]);
+      }
+      return new VersionMap<V>(new VersionSet(array.select(firsts, count), 0, count),
+                               sortedValues);
+    }
+  }
+}
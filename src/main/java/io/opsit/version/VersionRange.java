@@ -0,0 +1,745 @@
+package io.opsit.version;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Set of versions given by a constraint like {@code ^1.2} or
+ * {@code >=1.0 <2.0 || 3.x}.
+ *
+ * <p>The constraints use the syntax of npm ({@link Syntax#NPM}) or of
+ * Cargo ({@link Syntax#CARGO}): comparators {@code <}, {@code <=},
+ * {@code >}, {@code >=} and {@code =} of full or partial versions,
+ * x-ranges like {@code 1.2.x}, {@code 1.*} and {@code *}, tilde ranges
+ * like {@code ~1.2.3} that allow patch updates, caret ranges like
+ * {@code ^1.2.3} that allow updates which keep the leftmost non zero
+ * number, npm hyphen ranges like {@code 1.2 - 2.3.4}, comparators
+ * that all must match separated by spaces (npm) or commas (Cargo),
+ * and npm unions of alternatives separated by {@code ||}. A version
+ * without an operator is an exact match for npm and a caret range for
+ * Cargo.
+ *
+ * <p>The constraint is compiled once into a sorted list of disjoint
+ * intervals of the {@link Version#compareTo} order. The interval
+ * bounds keep {@link Version#precedenceKey()} of their versions, so
+ * checking a semantic version is a binary search over a few long
+ * comparisons. compareTo is only called for prereleases of the bound
+ * versions and for versions without a precedence key.
+ *
+ * <p>Like with npm and Cargo a prerelease only matches if a
+ * comparator of the matching alternative has a prerelease of the same
+ * major.minor.patch: {@code >=1.2.3-beta} matches 1.2.3-rc, but not
+ * 1.3.0-rc. The implicit upper bounds of tilde, caret and x-ranges
+ * exclude prereleases of the bound, {@code ^1.2} does not match
+ * 2.0.0-rc. {@link #withPrereleases()} drops the prerelease rule.
+ *
+ * <p>VersionRange objects are immutable.
+ */
+public final class VersionRange {
+  /**
+   * Syntax of constraints.
+   */
+  public enum Syntax {
+    /**
+     * Comparators separated by spaces, alternatives separated by
+     * {@code ||}, hyphen ranges, a bare version is an exact match.
+     */
+    NPM,
+    /**
+     * Comparators separated by commas, a bare version is a caret range.
+     */
+    CARGO
+  }
+
+  private static final Interval[] NO_INTERVALS = new Interval[0];
+
+  private static final Comparator<Interval> BY_LOW = new Comparator<Interval>() {
+      @Override
+      public int compare(Interval intA, Interval intB) {
+        return Cut.compare(intA.low, intB.low);
+      }
+    };
+
+  private final String spec;
+  private final Interval[] releases;
+  private final Interval[] prereleases;
+  // low and high thresholds of the intervals, null if compareTo is needed
+  private final long[] releaseKeys;
+  private final long[] prereleaseKeys;
+
+  private VersionRange(String spec, Interval[] releases, Interval[] prereleases) {
+    this.spec = spec;
+    this.releases = releases;
+    this.prereleases = prereleases;
+    this.releaseKeys = thresholds(releases);
+    this.prereleaseKeys = prereleases == releases ? releaseKeys : thresholds(prereleases);
+  }
+
+  /**
+   * Get thresholds of the interval bounds if all of them have one.
+   */
+  private static long[] thresholds(Interval[] intervals) {
+    final long[] result = new long[intervals.length * 2];
+    for (int i = 0; i < intervals.length; i++) {
+      result[2 * i] = intervals[i].low.threshold;
+      result[2 * i + 1] = intervals[i].high.threshold;
+      if ((result[2 * i] | result[2 * i + 1]) < 0) {
+        return null;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Parse npm style version constraint.
+   *
+   * @param spec constraint, may be null
+   * @return compiled range or null on null input
+   * @throws IllegalArgumentException if the constraint is malformed,
+   *     the message tells why and where
+   */
+  public static VersionRange parse(String spec) {
+    return parse(spec, Syntax.NPM);
+  }
+
+  /**
+   * Parse version constraint.
+   *
+   * @param spec constraint, may be null
+   * @param syntax syntax of the constraint
+   * @return compiled range or null on null input
+   * @throws IllegalArgumentException if the constraint is malformed,
+   *     the message tells why and where
+   */
+  public static VersionRange parse(String spec, Syntax syntax) {
+    if (null == spec) {
+      return null;
+    }
+    return new Compiler(spec, syntax).compile();
+  }
+
+  /**
+   * Check if the range contains a version.
+   *
+   * @param version version to check
+   * @return true if the version satisfies the constraint
+   */
+  public boolean contains(Version version) {
+    final boolean prerelease = version.isPrerelease();
+    final long vkey = version.precedenceKey();
+    final long[] keys = prerelease ? prereleaseKeys : releaseKeys;
+    if (vkey >= 0 && null != keys) {
+      return containsKey(keys, vkey);
+    }
+    final Interval[] intervals = prerelease ? prereleases : releases;
+    // the last interval that does not start above the version
+    int lo = 0;
+    int hi = intervals.length - 1;
+    int found = -1;
+    while (lo <= hi) {
+      final int mid = (lo + hi) >>> 1;
+      if (intervals[mid].low.below(version)) {
+        hi = mid - 1;
+      } else {
+        found = mid;
+        lo = mid + 1;
+      }
+    }
+    return found >= 0 && intervals[found].high.below(version);
+  }
+
+  private static boolean containsKey(long[] keys, long vkey) {
+    if (keys.length == 2) {
+      // most constraints are a single interval
+      return vkey >= keys[0] && vkey < keys[1];
+    }
+    int lo = 0;
+    int hi = keys.length / 2 - 1;
+    int found = -1;
+    while (lo <= hi) {
+      final int mid = (lo + hi) >>> 1;
+      if (vkey < keys[2 * mid]) {
+        hi = mid - 1;
+      } else {
+        found = mid;
+        lo = mid + 1;
+      }
+    }
+    return found >= 0 && vkey < keys[2 * found + 1];
+  }
+
+  /**
+   * Check if no version satisfies the constraint.
+   *
+   * @return true if the range is empty
+   */
+  public boolean isEmpty() {
+    return releases.length == 0 && prereleases.length == 0;
+  }
+
+  /**
+   * Get range of the versions that are in both ranges.
+   *
+   * @param other the other range
+   * @return intersection of the ranges
+   */
+  public VersionRange intersect(VersionRange other) {
+    return new VersionRange("(" + spec + ") && (" + other.spec + ")",
+                            intersectIntervals(releases, other.releases),
+                            intersectIntervals(prereleases, other.prereleases));
+  }
+
+  /**
+   * Get range of the versions that are in any of the ranges.
+   *
+   * @param other the other range
+   * @return union of the ranges
+   */
+  public VersionRange union(VersionRange other) {
+    return new VersionRange("(" + spec + ") || (" + other.spec + ")",
+                            unionIntervals(releases, other.releases),
+                            unionIntervals(prereleases, other.prereleases));
+  }
+
+  /**
+   * Get range that matches prereleases like releases.
+   *
+   * <p>Same as the npm option includePrerelease: a prerelease matches
+   * if it lies between the bounds, whatever the comparators are.
+   *
+   * @return range without the prerelease rule
+   */
+  public VersionRange withPrereleases() {
+    return new VersionRange(spec, releases, releases);
+  }
+
+  /**
+   * Get the intervals of the range.
+   *
+   * @param prerelease true for the intervals that prereleases are
+   *     checked against, false for the ones of releases
+   * @return sorted disjoint intervals, must not be modified
+   */
+  Interval[] intervals(boolean prerelease) {
+    return prerelease ? prereleases : releases;
+  }
+
+  /**
+   * Get specification of the range.
+   *
+   * <p>Ranges made by {@link #intersect} and {@link #union} show the
+   * specifications of their operands.
+   *
+   * @return the specification
+   */
+  @Override
+  public String toString() {
+    return spec;
+  }
+
+  /**
+   * Intersect two sorted lists of disjoint intervals.
+   */
+  static Interval[] intersectIntervals(Interval[] intsA, Interval[] intsB) {
+    final List<Interval> result = new ArrayList<Interval>();
+    int idxA = 0;
+    int idxB = 0;
+    while (idxA < intsA.length && idxB < intsB.length) {
+      final Interval intA = intsA[idxA];
+      final Interval intB = intsB[idxB];
+      final Cut low = Cut.max(intA.low, intB.low);
+      final Cut high = Cut.min(intA.high, intB.high);
+      if (Cut.compare(low, high) < 0) {
+        result.add(new Interval(low, high));
+      }
+      if (Cut.compare(intA.high, intB.high) < 0) {
+        idxA++;
+      } else {
+        idxB++;
+      }
+    }
+    return result.toArray(NO_INTERVALS);
+  }
+
+  private static Interval[] unionIntervals(Interval[] intsA, Interval[] intsB) {
+    final List<Interval> all = new ArrayList<Interval>(intsA.length + intsB.length);
+    all.addAll(Arrays.asList(intsA));
+    all.addAll(Arrays.asList(intsB));
+    return normalize(all);
+  }
+
+  /**
+   * Sort non empty intervals and merge the overlapping and adjacent ones.
+   */
+  static Interval[] normalize(List<Interval> intervals) {
+    if (intervals.isEmpty()) {
+      return NO_INTERVALS;
+    }
+    final Interval[] sorted = intervals.toArray(NO_INTERVALS);
+    Arrays.sort(sorted, BY_LOW);
+    final List<Interval> result = new ArrayList<Interval>();
+    Interval cur = sorted[0];
+    for (int i = 1; i < sorted.length; i++) {
+      final Interval next = sorted[i];
+      if (Cut.compare(next.low, cur.high) <= 0) {
+        if (Cut.compare(next.high, cur.high) > 0) {
+          cur = new Interval(cur.low, next.high);
+        }
+      } else {
+        result.add(cur);
+        cur = next;
+      }
+    }
+    result.add(cur);
+    return result.toArray(NO_INTERVALS);
+  }
+
+  /**
+   * Position between versions in the compareTo order.
+   *
+   * <p>A cut lies just below or just above its version, or just below
+   * all the prereleases of its version. The cuts without version are
+   * below or above all versions.
+   */
+  static final class Cut {
+    static final int BEFORE_PRERELEASES = 0;
+    static final int BEFORE = 1;
+    static final int AFTER = 2;
+
+    static final Cut MIN = new Cut(null, BEFORE);
+    static final Cut MAX = new Cut(null, AFTER);
+
+    final Version version;
+    final int side;
+    /**
+     * Precedence key that versions are compared with, for
+     * BEFORE_PRERELEASES the one of the prereleases of the version.
+     */
+    final long key;
+    /**
+     * The versions with precedence keys below the threshold are below
+     * the cut, negative if it is not enough to compare the keys.
+     */
+    final long threshold;
+
+    private Cut(Version version, int side) {
+      this.version = version;
+      this.side = side;
+      final long vkey = null == version ? Version.NO_PRECEDENCE_KEY : version.precedenceKey();
+      this.key = side == BEFORE_PRERELEASES && vkey >= 0 ? vkey & ~1L : vkey;
+      if (null == version) {
+        this.threshold = side == AFTER ? Long.MAX_VALUE : 0L;
+      } else if (key < 0 || (side != BEFORE_PRERELEASES && (key & 1L) == 0)) {
+        // prereleases of the version are ordered by compareTo
+        this.threshold = -1L;
+      } else {
+        this.threshold = side == AFTER ? key + 1 : key;
+      }
+    }
+
+    static Cut before(Version version) {
+      return new Cut(version, BEFORE);
+    }
+
+    static Cut after(Version version) {
+      return new Cut(version, AFTER);
+    }
+
+    static Cut beforePrereleases(Version release) {
+      return new Cut(release, BEFORE_PRERELEASES);
+    }
+
+    /**
+     * Check if a version lies below the cut.
+     */
+    boolean below(Version ver) {
+      if (null == version) {
+        return side == AFTER;
+      }
+      final long vkey = ver.precedenceKey();
+      if ((key | vkey) >= 0) {
+        if (vkey != key) {
+          return vkey < key;
+        }
+        // equal keys of releases are equal versions
+        if ((key & 1L) != 0 || side == BEFORE_PRERELEASES) {
+          return side == AFTER;
+        }
+      }
+      int cmp;
+      if (side == BEFORE_PRERELEASES) {
+        cmp = ver.compareSection(version);
+      } else {
+        cmp = ver.compareTo(version);
+      }
+      return side == AFTER ? cmp <= 0 : cmp < 0;
+    }
+
+    static int compare(Cut cutA, Cut cutB) {
+      if (null == cutA.version || null == cutB.version) {
+        return Integer.compare(rank(cutA), rank(cutB));
+      }
+      final long keyA = cutA.key;
+      final long keyB = cutB.key;
+      if ((keyA | keyB) >= 0 && (keyA >>> 1) != (keyB >>> 1)) {
+        return keyA < keyB ? -1 : 1;
+      }
+      int cmp;
+      if (cutA.side == BEFORE_PRERELEASES || cutB.side == BEFORE_PRERELEASES) {
+        cmp = cutA.version.compareSection(cutB.version);
+        if (cmp != 0) {
+          return cmp;
+        }
+        return (cutA.side == BEFORE_PRERELEASES ? 0 : 1)
+          - (cutB.side == BEFORE_PRERELEASES ? 0 : 1);
+      }
+      cmp = cutA.version.compareTo(cutB.version);
+      return cmp != 0 ? cmp : cutA.side - cutB.side;
+    }
+
+    private static int rank(Cut cut) {
+      if (null != cut.version) {
+        return 0;
+      }
+      return cut.side == AFTER ? 1 : -1;
+    }
+
+    static Cut max(Cut cutA, Cut cutB) {
+      return compare(cutA, cutB) >= 0 ? cutA : cutB;
+    }
+
+    static Cut min(Cut cutA, Cut cutB) {
+      return compare(cutA, cutB) <= 0 ? cutA : cutB;
+    }
+  }
+
+  /**
+   * Non empty interval of versions from a low cut to a high cut.
+   */
+  static final class Interval {
+    final Cut low;
+    final Cut high;
+
+    Interval(Cut low, Cut high) {
+      this.low = low;
+      this.high = high;
+    }
+
+    boolean contains(Version ver) {
+      return !low.below(ver) && high.below(ver);
+    }
+  }
+
+  /**
+   * Version of a comparator, numbers after a wildcard are missing.
+   */
+  private static final class Partial {
+    final long[] nums;
+    final int nparts;
+    /**
+     * The version if all three numbers are given.
+     */
+    final Version version;
+
+    Partial(long[] nums, int nparts, Version version) {
+      this.nums = nums;
+      this.nparts = nparts;
+      this.version = version;
+    }
+  }
+
+  /**
+   * Recursive descent compiler of constraints.
+   */
+  private static final class Compiler {
+    private final String spec;
+    private final Syntax syntax;
+    private final int len;
+    private int pos;
+
+    // bounds of the current alternative
+    private Cut low;
+    private Cut high;
+    private final List<Version> prereleaseTuples = new ArrayList<Version>();
+
+    Compiler(String spec, Syntax syntax) {
+      this.spec = spec;
+      this.syntax = syntax;
+      this.len = spec.length();
+    }
+
+    VersionRange compile() {
+      final List<Interval> releases = new ArrayList<Interval>();
+      final List<Interval> prereleases = new ArrayList<Interval>();
+      do {
+        alternative(releases, prereleases);
+      } while (syntax == Syntax.NPM && accept("||"));
+      skipSpaces();
+      if (pos < len) {
+        throw error("unexpected character '" + spec.charAt(pos) + "'", pos);
+      }
+      return new VersionRange(spec, normalize(releases), normalize(prereleases));
+    }
+
+    private void alternative(List<Interval> releases, List<Interval> prereleases) {
+      low = Cut.MIN;
+      high = Cut.MAX;
+      prereleaseTuples.clear();
+      skipSpaces();
+      if (atAlternativeEnd()) {
+        if (syntax == Syntax.CARGO) {
+          throw error("empty constraint", pos);
+        }
+        // an empty npm alternative matches everything
+      } else {
+        comparators();
+      }
+      if (Cut.compare(low, high) >= 0) {
+        return;
+      }
+      releases.add(new Interval(low, high));
+      for (Version tuple : prereleaseTuples) {
+        final Cut from = Cut.max(low, Cut.beforePrereleases(tuple));
+        final Cut to = Cut.min(high, Cut.before(tuple));
+        if (Cut.compare(from, to) < 0) {
+          prereleases.add(new Interval(from, to));
+        }
+      }
+    }
+
+    private void comparators() {
+      boolean first = true;
+      while (true) {
+        final String op = operator();
+        skipSpaces();
+        final Partial ver = partial();
+        if (first && op.isEmpty() && syntax == Syntax.NPM && hyphen()) {
+          hyphenRange(ver, partial());
+          skipSpaces();
+          if (!atAlternativeEnd()) {
+            throw error("unexpected character after hyphen range", pos);
+          }
+          return;
+        }
+        comparator(op, ver);
+        first = false;
+        final boolean spaced = skipSpaces();
+        if (atAlternativeEnd()) {
+          return;
+        }
+        if (syntax == Syntax.CARGO) {
+          if (!accept(",")) {
+            throw error("expected ','", pos);
+          }
+          skipSpaces();
+        } else if (!spaced) {
+          throw error("expected space", pos);
+        }
+      }
+    }
+
+    private void comparator(String op, Partial ver) {
+      if (ver.nparts == 0) {
+        if (op.equals("<") || op.equals(">")) {
+          // below or above any version
+          high = Cut.MIN;
+        }
+        return;
+      }
+      if (null != ver.version && ver.version.isPrerelease()) {
+        prereleaseTuples.add(release(ver.nums[0], ver.nums[1], ver.nums[2]));
+      }
+      final String kind = op.isEmpty() ? (syntax == Syntax.CARGO ? "^" : "=") : op;
+      final boolean full = ver.nparts == 3;
+      if (kind.equals("=")) {
+        lower(Cut.before(floor(ver)));
+        upper(full ? Cut.after(ver.version) : Cut.beforePrereleases(next(ver, ver.nparts)));
+      } else if (kind.equals(">")) {
+        lower(full ? Cut.after(ver.version) : Cut.before(next(ver, ver.nparts)));
+      } else if (kind.equals(">=")) {
+        lower(Cut.before(floor(ver)));
+      } else if (kind.equals("<")) {
+        upper(full ? Cut.before(ver.version) : Cut.beforePrereleases(floor(ver)));
+      } else if (kind.equals("<=")) {
+        upper(full ? Cut.after(ver.version) : Cut.beforePrereleases(next(ver, ver.nparts)));
+      } else if (kind.equals("~")) {
+        lower(Cut.before(floor(ver)));
+        upper(Cut.beforePrereleases(next(ver, Math.min(ver.nparts, 2))));
+      } else {
+        // caret: the leftmost non zero number or the last given one is kept
+        int keep = 1;
+        while (keep < ver.nparts && ver.nums[keep - 1] == 0) {
+          keep++;
+        }
+        lower(Cut.before(floor(ver)));
+        upper(Cut.beforePrereleases(next(ver, keep)));
+      }
+    }
+
+    private void hyphenRange(Partial from, Partial to) {
+      if (null != from.version && from.version.isPrerelease()) {
+        prereleaseTuples.add(release(from.nums[0], from.nums[1], from.nums[2]));
+      }
+      if (null != to.version && to.version.isPrerelease()) {
+        prereleaseTuples.add(release(to.nums[0], to.nums[1], to.nums[2]));
+      }
+      if (from.nparts > 0) {
+        lower(Cut.before(floor(from)));
+      }
+      if (to.nparts == 3) {
+        upper(Cut.after(to.version));
+      } else if (to.nparts > 0) {
+        upper(Cut.beforePrereleases(next(to, to.nparts)));
+      }
+    }
+
+    private void lower(Cut cut) {
+      low = Cut.max(low, cut);
+    }
+
+    private void upper(Cut cut) {
+      high = Cut.min(high, cut);
+    }
+
+    /**
+     * Get the lowest version of a partial version.
+     */
+    private Version floor(Partial ver) {
+      return ver.nparts == 3 ? ver.version : release(ver.nums[0], ver.nums[1], 0);
+    }
+
+    /**
+     * Get the release after the versions whose first numbers are the given ones.
+     */
+    private Version next(Partial ver, int nkeep) {
+      final long[] nums = ver.nums.clone();
+      if (nums[nkeep - 1] == Long.MAX_VALUE) {
+        throw error("version number is too big", pos);
+      }
+      nums[nkeep - 1]++;
+      for (int i = nkeep; i < nums.length; i++) {
+        nums[i] = 0;
+      }
+      return release(nums[0], nums[1], nums[2]);
+    }
+
+    private static Version release(long major, long minor, long patch) {
+      return Version.parseVersion(major + "." + minor + "." + patch);
+    }
+
+    private String operator() {
+      final String[] ops = {"<=", ">=", "<", ">", "=", "^", "~"};
+      for (String op : ops) {
+        if (accept(op)) {
+          return op;
+        }
+      }
+      return "";
+    }
+
+    private Partial partial() {
+      if (pos < len && (spec.charAt(pos) == 'v' || spec.charAt(pos) == 'V')) {
+        pos++;
+      }
+      final int start = pos;
+      final long[] nums = new long[3];
+      int nparts = 0;
+      boolean wildcard = false;
+      for (int i = 0; i < nums.length; i++) {
+        if (i > 0 && !accept(".")) {
+          break;
+        }
+        if (pos < len && isWildcard(spec.charAt(pos))) {
+          pos++;
+          wildcard = true;
+        } else if (wildcard) {
+          throw error("expected wildcard", pos);
+        } else {
+          nums[i] = number();
+          nparts++;
+        }
+      }
+      if (nparts < 3) {
+        return new Partial(nums, nparts, null);
+      }
+      if (pos < len && (spec.charAt(pos) == '-' || spec.charAt(pos) == '+')) {
+        while (pos < len && isIdentifierChar(spec.charAt(pos))) {
+          pos++;
+        }
+      }
+      final ParseResult result = Version.tryParseSemantic(spec.substring(start, pos));
+      if (!result.isSuccess()) {
+        throw error(result.getError().getDescription(), start + result.getPosition());
+      }
+      return new Partial(nums, nparts, result.getVersion());
+    }
+
+    private long number() {
+      final int start = pos;
+      long value = 0;
+      while (pos < len && spec.charAt(pos) >= '0' && spec.charAt(pos) <= '9') {
+        final int digit = spec.charAt(pos) - '0';
+        if (value > (Long.MAX_VALUE - digit) / 10) {
+          throw error("version number is too big", start);
+        }
+        value = value * 10 + digit;
+        pos++;
+      }
+      if (pos == start) {
+        throw error("expected version number", start);
+      }
+      if (spec.charAt(start) == '0' && pos - start > 1) {
+        throw error("leading zero in version number", start);
+      }
+      return value;
+    }
+
+    /**
+     * Skip a hyphen surrounded by spaces.
+     */
+    private boolean hyphen() {
+      final int start = pos;
+      if (skipSpaces() && accept("-") && skipSpaces()) {
+        return true;
+      }
+      pos = start;
+      return false;
+    }
+
+    private boolean atAlternativeEnd() {
+      return pos == len || (syntax == Syntax.NPM && spec.startsWith("||", pos));
+    }
+
+    private boolean accept(String str) {
+      if (spec.startsWith(str, pos)) {
+        pos += str.length();
+        return true;
+      }
+      return false;
+    }
+
+    private boolean skipSpaces() {
+      final int start = pos;
+      while (pos < len && Character.isWhitespace(spec.charAt(pos))) {
+        pos++;
+      }
+      return pos > start;
+    }
+
+    private static boolean isWildcard(char chr) {
+      return chr == 'x' || chr == 'X' || chr == '*';
+    }
+
+    private static boolean isIdentifierChar(char chr) {
+      return (chr >= '0' && chr <= '9') || (chr >= 'a' && chr <= 'z')
+        || (chr >= 'A' && chr <= 'Z') || chr == '-' || chr == '+' || chr == '.';
+    }
+
+    private IllegalArgumentException error(String why, int where) {
+      return new IllegalArgumentException("Invalid version range: " + why
+                                          + " at " + where + " in '" + spec + "'");
+    }
+  }
+}
@@ -0,0 +1,436 @@
+package io.opsit.version;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+
+/**
+ * Immutable index of values by version ranges, like security
+ * advisories by the ranges of affected versions.
+ *
+ * <p>The index finds the values whose ranges contain a version. The
+ * intervals of the ranges (see {@link VersionRange}) are kept in a
+ * centered interval tree: every node holds the intervals that contain
+ * its center sorted by their low and by their high bounds, the
+ * intervals below and above the center go to the subtrees. A query
+ * walks down one path of the tree and scans only the intervals that
+ * match, so it takes O(log n + k) comparisons for n intervals and k
+ * matches. Bounds with precedence keys are compared as longs.
+ *
+ * <p>{@link #matchSorted} matches many versions in one pass: the
+ * versions, sorted in ascending order, are merge-walked with the
+ * intervals sorted by their bounds while the intervals that contain
+ * the current version are kept in an active set.
+ *
+ * @param <T> type of the values
+ */
+public final class VersionRangeIndex<T> {
+  private final List<T> values;
+  private final Tree releases;
+  private final Tree prereleases;
+
+  private VersionRangeIndex(List<T> values, List<VersionRange> ranges) {
+    this.values = values;
+    this.releases = new Tree(ranges, false);
+    this.prereleases = new Tree(ranges, true);
+  }
+
+  /**
+   * Create builder of an index.
+   *
+   * @param <T> type of the values
+   * @return empty builder
+   */
+  public static <T> Builder<T> builder() {
+    return new Builder<T>();
+  }
+
+  /**
+   * Get collector that builds an index of the stream elements.
+   *
+   * <p>Works with parallel streams, the partial results are
+   * concatenated.
+   *
+   * @param <T> type of the values
+   * @param rangeOf function that gives range of an element
+   * @return collector of the index
+   */
+  public static <T> Collector<T, ?, VersionRangeIndex<T>> collector(
+      final Function<? super T, VersionRange> rangeOf) {
+    return Collector.of(
+        new Supplier<Builder<T>>() {
+          @Override
+          public Builder<T> get() {
+            return new Builder<T>();
+          }
+        },
+        new BiConsumer<Builder<T>, T>() {
+          @Override
+          public void accept(Builder<T> builder, T value) {
+            builder.add(rangeOf.apply(value), value);
+          }
+        },
+        new BinaryOperator<Builder<T>>() {
+          @Override
+          public Builder<T> apply(Builder<T> builderA, Builder<T> builderB) {
+            builderA.values.addAll(builderB.values);
+            builderA.ranges.addAll(builderB.ranges);
+            return builderA;
+          }
+        },
+        new Function<Builder<T>, VersionRangeIndex<T>>() {
+          @Override
+          public VersionRangeIndex<T> apply(Builder<T> builder) {
+            return builder.build();
+          }
+        });
+  }
+
+  /**
+   * Get number of the indexed values.
+   *
+   * @return number of values
+   */
+  public int size() {
+    return values.size();
+  }
+
+  /**
+   * Find values whose ranges contain a version.
+   *
+   * @param version the version
+   * @return matching values in no particular order
+   */
+  public List<T> matching(Version version) {
+    final List<T> result = new ArrayList<T>();
+    forEachMatch(version, new Consumer<T>() {
+        @Override
+        public void accept(T value) {
+          result.add(value);
+        }
+      });
+    return result;
+  }
+
+  /**
+   * Pass values whose ranges contain a version to a consumer.
+   *
+   * @param version the version
+   * @param action consumer of the matching values, called in no particular order
+   */
+  public void forEachMatch(Version version, Consumer<? super T> action) {
+    final Tree tree = version.isPrerelease() ? prereleases : releases;
+    final long vkey = version.precedenceKey();
+    int node = tree.root;
+    while (node >= 0) {
+      final int center = tree.centers[node];
+      final int start = tree.starts[node];
+      final int end = tree.starts[node + 1];
+      if (below(tree.lows[center], tree.lowKeys[center], version, vkey)) {
+        // all intervals of the node end above the center, check the starts
+        for (int i = start; i < end; i++) {
+          final int id = tree.byLow[i];
+          if (below(tree.lows[id], tree.lowKeys[id], version, vkey)) {
+            break;
+          }
+          action.accept(values.get(tree.owners[id]));
+        }
+        node = tree.lefts[node];
+      } else {
+        // all intervals of the node start below the center, check the ends
+        for (int i = end - 1; i >= start; i--) {
+          final int id = tree.byHigh[i];
+          if (!below(tree.highs[id], tree.highKeys[id], version, vkey)) {
+            break;
+          }
+          action.accept(values.get(tree.owners[id]));
+        }
+        node = tree.rights[node];
+      }
+    }
+  }
+
+  /**
+   * Match many versions in one pass.
+   *
+   * <p>The versions are merge-walked with the sorted interval bounds,
+   * so the cost is linear in the number of versions, intervals and
+   * matches. It pays off for batches that are not much smaller than
+   * the index, {@link #forEachMatch} is faster for a few versions.
+   *
+   * @param sorted versions in ascending order of {@link Version#compareTo}
+   * @param action consumer of the versions and their matching values
+   * @throws IllegalArgumentException if the versions are not sorted
+   */
+  public void matchSorted(List<Version> sorted, BiConsumer<? super Version, ? super T> action) {
+    final Sweep releaseSweep = new Sweep(releases);
+    final Sweep prereleaseSweep = new Sweep(prereleases);
+    Version prev = null;
+    for (Version ver : sorted) {
+      if (null != prev && prev.compareTo(ver) > 0) {
+        throw new IllegalArgumentException("Versions are not sorted: " + prev + " > " + ver);
+      }
+      prev = ver;
+      final long vkey = ver.precedenceKey();
+      releaseSweep.advance(ver, vkey);
+      prereleaseSweep.advance(ver, vkey);
+      final Sweep sweep = ver.isPrerelease() ? prereleaseSweep : releaseSweep;
+      for (int i = 0; i < sweep.count; i++) {
+        action.accept(ver, values.get(sweep.tree.owners[sweep.active[i]]));
+      }
+    }
+  }
+
+  /**
+   * Check if a version is below a cut, by the threshold if both have keys.
+   */
+  private static boolean below(VersionRange.Cut cut, long threshold, Version ver, long vkey) {
+    if ((threshold | vkey) >= 0) {
+      return vkey < threshold;
+    }
+    return cut.below(ver);
+  }
+
+  /**
+   * Centered interval tree over the release or the prerelease
+   * intervals of the ranges.
+   *
+   * <p>Intervals are numbered in the order of their low bounds. The
+   * intervals of a node are consecutive in byLow, ordered by the low
+   * bounds, and at the same positions in byHigh, ordered by the high
+   * bounds.
+   */
+  private static final class Tree {
+    final VersionRange.Cut[] lows;
+    final VersionRange.Cut[] highs;
+    final long[] lowKeys;
+    final long[] highKeys;
+    final int[] owners;
+    // interval ids in the order of the high bounds
+    final int[] sortedByHigh;
+
+    final int[] byLow;
+    final int[] byHigh;
+    int[] centers;
+    int[] starts;
+    int[] lefts;
+    int[] rights;
+    int nodes;
+    final int root;
+
+    Tree(List<VersionRange> ranges, boolean prerelease) {
+      final List<VersionRange.Interval> intervals = new ArrayList<VersionRange.Interval>();
+      final List<Integer> intervalOwners = new ArrayList<Integer>();
+      for (int i = 0; i < ranges.size(); i++) {
+        for (VersionRange.Interval interval : ranges.get(i).intervals(prerelease)) {
+          intervals.add(interval);
+          intervalOwners.add(i);
+        }
+      }
+      final int size = intervals.size();
+      final VersionRange.Cut[] unsortedLows = new VersionRange.Cut[size];
+      final VersionRange.Cut[] unsortedHighs = new VersionRange.Cut[size];
+      for (int i = 0; i < size; i++) {
+        unsortedLows[i] = intervals.get(i).low;
+        unsortedHighs[i] = intervals.get(i).high;
+      }
+      final int[] lowOrder = order(unsortedLows);
+      lows = new VersionRange.Cut[size];
+      highs = new VersionRange.Cut[size];
+      lowKeys = new long[size];
+      highKeys = new long[size];
+      owners = new int[size];
+      for (int id = 0; id < size; id++) {
+        final int pos = lowOrder[id];
+        lows[id] = unsortedLows[pos];
+        highs[id] = unsortedHighs[pos];
+        lowKeys[id] = lows[id].threshold;
+        highKeys[id] = highs[id].threshold;
+        owners[id] = intervalOwners.get(pos);
+      }
+      sortedByHigh = order(highs);
+
+      byLow = new int[size];
+      byHigh = new int[size];
+      centers = new int[16];
+      starts = new int[17];
+      lefts = new int[16];
+      rights = new int[16];
+      final int[] nodeOf = new int[size];
+      final int[] ids = new int[size];
+      for (int id = 0; id < size; id++) {
+        ids[id] = id;
+      }
+      root = build(ids, 0, size, nodeOf, new int[size], new int[size]);
+      // distribute the ids in high order to the nodes
+      final int[] fill = starts.clone();
+      for (int id : sortedByHigh) {
+        byHigh[fill[nodeOf[id]]++] = id;
+      }
+    }
+
+    /**
+     * Get positions of the cuts in ascending order.
+     */
+    private static int[] order(final VersionRange.Cut[] cuts) {
+      return VersionSorter.order(new VersionSorter.Source() {
+          @Override
+          long key(int pos) {
+            return cuts[pos].threshold;
+          }
+
+          @Override
+          boolean hasTies(long key) {
+            // different cuts may have the same threshold
+            return true;
+          }
+
+          @Override
+          int compare(int posA, int posB) {
+            return VersionRange.Cut.compare(cuts[posA], cuts[posB]);
+          }
+        }, 0, cuts.length);
+    }
+
+    /**
+     * Build subtree of the intervals ids[from, to), the ids are ascending.
+     *
+     * @return the node or -1 if there are no intervals
+     */
+    private int build(int[] ids, int from, int to, int[] nodeOf, int[] left, int[] right) {
+      if (from >= to) {
+        return -1;
+      }
+      final int center = ids[(from + to) >>> 1];
+      final VersionRange.Cut cut = lows[center];
+      final int node = newNode(center);
+      int nleft = 0;
+      int nright = 0;
+      int pos = starts[node];
+      for (int i = from; i < to; i++) {
+        final int id = ids[i];
+        if (VersionRange.Cut.compare(highs[id], cut) <= 0) {
+          left[nleft++] = id;
+        } else if (VersionRange.Cut.compare(lows[id], cut) > 0) {
+          right[nright++] = id;
+        } else {
+          byLow[pos++] = id;
+          nodeOf[id] = node;
+        }
+      }
+      starts[node + 1] = pos;
+      // ids is free now, the children reuse it and the scratch arrays
+      System.arraycopy(left, 0, ids, from, nleft);
+      System.arraycopy(right, 0, ids, from + nleft, nright);
+      // the node arrays may grow while the children are built
+      final int leftNode = build(ids, from, from + nleft, nodeOf, left, right);
+      final int rightNode = build(ids, from + nleft, from + nleft + nright, nodeOf, left, right);
+      lefts[node] = leftNode;
+      rights[node] = rightNode;
+      return node;
+    }
+
+    private int newNode(int center) {
+      if (nodes == centers.length) {
+        final int capacity = nodes * 2;
+        centers = Arrays.copyOf(centers, capacity);
+        starts = Arrays.copyOf(starts, capacity + 1);
+        lefts = Arrays.copyOf(lefts, capacity);
+        rights = Arrays.copyOf(rights, capacity);
+      }
+      // the start of the node was set by the previous one
+      final int node = nodes++;
+      centers[node] = center;
+      return node;
+    }
+  }
+
+  /**
+   * State of a merge-walk over the intervals of a tree.
+   */
+  private static final class Sweep {
+    final Tree tree;
+    // intervals that contain the current version and their positions
+    final int[] active;
+    final int[] positions;
+    int count;
+    private int nextLow;
+    private int nextHigh;
+
+    Sweep(Tree tree) {
+      this.tree = tree;
+      this.active = new int[tree.lows.length];
+      this.positions = new int[tree.lows.length];
+    }
+
+    /**
+     * Move to a version that is not below the previous one.
+     */
+    void advance(Version ver, long vkey) {
+      final int size = tree.lows.length;
+      while (nextLow < size && !below(tree.lows[nextLow], tree.lowKeys[nextLow], ver, vkey)) {
+        positions[nextLow] = count;
+        active[count++] = nextLow;
+        nextLow++;
+      }
+      while (nextHigh < size) {
+        final int id = tree.sortedByHigh[nextHigh];
+        if (below(tree.highs[id], tree.highKeys[id], ver, vkey)) {
+          break;
+        }
+        // the interval started before it ended, so it is active
+        final int pos = positions[id];
+        final int last = active[--count];
+        active[pos] = last;
+        positions[last] = pos;
+        nextHigh++;
+      }
+    }
+  }
+
+  /**
+   * Builder of an index.
+   *
+   * @param <T> type of the values
+   */
+  public static final class Builder<T> {
+    private final List<T> values = new ArrayList<T>();
+    private final List<VersionRange> ranges = new ArrayList<VersionRange>();
+
+    private Builder() {
+    }
+
+    /**
+     * Add value with its range.
+     *
+     * @param range range of the value
+     * @param value the value
+     * @return this builder
+     */
+    public Builder<T> add(VersionRange range, T value) {
+      if (null == range) {
+        throw new IllegalArgumentException("Null version range of " + value);
+      }
+      ranges.add(range);
+      values.add(value);
+      return this;
+    }
+
+    /**
+     * Build the index.
+     *
+     * <p>The builder may be used further, the index does not change.
+     *
+     * @return index of the added values
+     */
+    public VersionRangeIndex<T> build() {
+      return new VersionRangeIndex<T>(new ArrayList<T>(values), ranges);
+    }
+  }
+}
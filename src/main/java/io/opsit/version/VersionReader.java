@@ -0,0 +1,591 @@
+package io.opsit.version;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Streaming reader of version specifications, one per line.
+ *
+ * <p>Lines are read into a fixed size buffer and parsed in place with
+ * the {@link Version} parser, so the versions are the same as {@link
+ * Version#parseVersion(String)} gives for the lines, and memory use
+ * does not depend on the size of the input. Lines may end with LF or
+ * CR LF, blank lines are skipped.
+ *
+ * <p>By default the whole line without the surrounding whitespace is
+ * the specification, {@link #column(int)} selects a field of lines
+ * like {@code "org.example:lib 1.2.3"}. Lines that are not valid
+ * versions (or not semantic ones, see {@link #requireSemantic(boolean)})
+ * are skipped and passed to the {@link InvalidLineHandler} if there
+ * is one.
+ *
+ * <p>Byte input is expected in UTF-8. Files can be read through
+ * memory mapped windows with {@link #map(Path)}.
+ */
+public class VersionReader implements Closeable {
+  /**
+   * Maximal length of a line in chars (bytes for byte input) without
+   * the LF terminator, longer lines are reported as {@link ParseError#TOO_LONG}.
+   */
+  public static final int MAX_LINE_LENGTH = 1 << 16;
+
+  /**
+   * Size of the memory mapped windows of {@link #map(Path)}.
+   */
+  static final int MAP_WINDOW = 1 << 26;
+
+  /**
+   * Receiver of the lines that were skipped as invalid.
+   */
+  public interface InvalidLineHandler {
+    /**
+     * Called for each invalid line.
+     *
+     * @param lineNumber number of the line, first line is 1
+     * @param spec the specification (the selected field of the line)
+     * @param result failure with the reason, position is relative to spec
+     */
+    void invalidLine(long lineNumber, String spec, ParseResult result);
+  }
+
+  private final LineSource source;
+  private int column = -1;
+  private boolean semantic;
+  private InvalidLineHandler handler;
+  private long lineNumber;
+  private long invalidCount;
+
+  /**
+   * Create reader of characters.
+   *
+   * @param in source of the lines
+   */
+  public VersionReader(Reader in) {
+    this(new CharSource(in));
+  }
+
+  /**
+   * Create reader of UTF-8 bytes.
+   *
+   * @param in source of the lines
+   */
+  public VersionReader(InputStream in) {
+    this(new StreamSource(in));
+  }
+
+  private VersionReader(LineSource source) {
+    this.source = source;
+  }
+
+  /**
+   * Open file for reading.
+   *
+   * @param path UTF-8 file
+   * @return reader of the file
+   * @throws IOException if the file cannot be opened
+   */
+  public static VersionReader open(Path path) throws IOException {
+    return new VersionReader(Files.newInputStream(path));
+  }
+
+  /**
+   * Open file for reading through memory mapped windows.
+   *
+   * <p>Avoids copying the file content into the heap, only the text
+   * of the versions that need it is copied.
+   *
+   * @param path UTF-8 file
+   * @return reader of the file
+   * @throws IOException if the file cannot be opened
+   */
+  public static VersionReader map(Path path) throws IOException {
+    return map(path, MAP_WINDOW);
+  }
+
+  static VersionReader map(Path path, int window) throws IOException {
+    // a window fits any line that is not too long
+    return new VersionReader(new MappedSource(FileChannel.open(path, StandardOpenOption.READ),
+                                              Math.max(window, MAX_LINE_LENGTH + 1)));
+  }
+
+  /**
+   * Select field of the lines that holds the version.
+   *
+   * @param column index of the field, fields are separated by runs of
+   *     spaces and tabs, -1 (the default) for the whole line
+   * @return this reader
+   */
+  public VersionReader column(int column) {
+    this.column = column;
+    return this;
+  }
+
+  /**
+   * Require semantic versions.
+   *
+   * @param semantic if true, lines that are valid but not semantic
+   *     versions are invalid too
+   * @return this reader
+   */
+  public VersionReader requireSemantic(boolean semantic) {
+    this.semantic = semantic;
+    return this;
+  }
+
+  /**
+   * Set receiver of the invalid lines.
+   *
+   * @param handler receiver, null to skip invalid lines silently
+   * @return this reader
+   */
+  public VersionReader onInvalid(InvalidLineHandler handler) {
+    this.handler = handler;
+    return this;
+  }
+
+  /**
+   * Get number of the last line read.
+   *
+   * @return line number, 0 before the first line
+   */
+  public long getLineNumber() {
+    return lineNumber;
+  }
+
+  /**
+   * Get number of the lines skipped as invalid.
+   *
+   * @return invalid line count
+   */
+  public long getInvalidCount() {
+    return invalidCount;
+  }
+
+  /**
+   * Read next version.
+   *
+   * @return next version or null at the end of input
+   * @throws IOException on read errors
+   */
+  public Version next() throws IOException {
+    while (source.nextLine()) {
+      lineNumber++;
+      final LineSource src = source;
+      if (src.tooLong) {
+        invalid(null, ParseResult.failure(ParseError.TOO_LONG, MAX_LINE_LENGTH));
+        continue;
+      }
+      int start = 0;
+      int end = src.length;
+      if (column < 0) {
+        while (start < end && isBlank(src.charAt(start))) {
+          start++;
+        }
+        if (start == end) {
+          // blank line
+          continue;
+        }
+        while (isBlank(src.charAt(end - 1))) {
+          end--;
+        }
+      } else {
+        int field = -1;
+        int pos = 0;
+        while (field < column && pos < end) {
+          while (pos < end && isBlank(src.charAt(pos))) {
+            pos++;
+          }
+          start = pos;
+          while (pos < end && !isBlank(src.charAt(pos))) {
+            pos++;
+          }
+          if (pos > start) {
+            field++;
+          }
+        }
+        if (field < 0) {
+          // blank line
+          continue;
+        }
+        if (field < column) {
+          invalid(null, ParseResult.failure(ParseError.EMPTY, 0));
+          continue;
+        }
+        end = pos;
+      }
+      final Version ver = src.parse(start, end);
+      if (!ver.isValid()) {
+        invalid(src.text(start, end), Version.checkValid(ver));
+      } else if (semantic && !ver.isSemantic()) {
+        final String spec = src.text(start, end);
+        invalid(spec, Version.checkSemantic(spec, ver));
+      } else {
+        return ver;
+      }
+    }
+    return null;
+  }
+
+  private void invalid(String spec, ParseResult result) {
+    invalidCount++;
+    if (null != handler) {
+      handler.invalidLine(lineNumber, null == spec ? "" : spec, result);
+    }
+  }
+
+  private static boolean isBlank(int chr) {
+    return chr == ' ' || chr == '\t' || chr == '\r';
+  }
+
+  /**
+   * Read all the versions.
+   *
+   * @param action receiver of the versions
+   * @throws IOException on read errors
+   */
+  public void forEach(Consumer<? super Version> action) throws IOException {
+    for (Version ver = next(); null != ver; ver = next()) {
+      action.accept(ver);
+    }
+  }
+
+  /**
+   * Get the versions as a sequential stream.
+   *
+   * <p>Read errors are thrown as {@link UncheckedIOException}, closing
+   * the stream closes the reader.
+   *
+   * @return stream of the versions
+   */
+  public Stream<Version> stream() {
+    final Spliterator<Version> spliterator = new Spliterators.AbstractSpliterator<Version>(
+        Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+        @Override
+        public boolean tryAdvance(Consumer<? super Version> action) {
+          final Version ver;
+          try {
+            ver = next();
+          } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+          }
+          if (null == ver) {
+            return false;
+          }
+          action.accept(ver);
+          return true;
+        }
+      };
+    return StreamSupport.stream(spliterator, false).onClose(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            close();
+          } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+          }
+        }
+      });
+  }
+
+  @Override
+  public void close() throws IOException {
+    source.close();
+  }
+
+  /**
+   * Source of lines, the current line is [0, length) of the source.
+   */
+  private abstract static class LineSource implements Closeable {
+    /** Length of the current line without the line terminator. */
+    int length;
+    /** The current line was longer than MAX_LINE_LENGTH and was dropped. */
+    boolean tooLong;
+
+    /**
+     * Advance to the next line.
+     *
+     * @return false at the end of input
+     */
+    abstract boolean nextLine() throws IOException;
+
+    abstract int charAt(int idx);
+
+    abstract Version parse(int start, int end);
+
+    abstract String text(int start, int end);
+  }
+
+  /**
+   * Lines read into a buffer that holds a line of MAX_LINE_LENGTH and
+   * its terminator, the current line is [lineStart, lineStart + length).
+   */
+  private abstract static class BufferedSource extends LineSource {
+    private final int capacity = MAX_LINE_LENGTH + 1;
+    private int pos;
+    private int limit;
+    private boolean eof;
+    int lineStart;
+
+    /**
+     * Read into the buffer at off, see {@link Reader#read(char[], int, int)}.
+     */
+    abstract int read(int off, int len) throws IOException;
+
+    abstract boolean isNewline(int idx);
+
+    /**
+     * Move len elements of the buffer from start to the beginning.
+     */
+    abstract void compact(int start, int len);
+
+    @Override
+    boolean nextLine() throws IOException {
+      tooLong = false;
+      int start = pos;
+      int scan = pos;
+      while (true) {
+        for (; scan < limit; scan++) {
+          if (isNewline(scan)) {
+            lineStart = start;
+            length = scan - start;
+            pos = scan + 1;
+            return true;
+          }
+        }
+        if (eof) {
+          pos = limit;
+          lineStart = start;
+          length = limit - start;
+          return start < limit || tooLong;
+        }
+        if (start > 0) {
+          // keep the partial line
+          compact(start, limit - start);
+          limit -= start;
+          scan = limit;
+          start = 0;
+        } else if (limit == capacity) {
+          // drop the line, look for its end
+          tooLong = true;
+          limit = 0;
+          scan = 0;
+        }
+        final int count = read(limit, capacity - limit);
+        if (count < 0) {
+          eof = true;
+        } else {
+          limit += count;
+        }
+      }
+    }
+  }
+
+  /**
+   * Lines of a Reader.
+   */
+  private static final class CharSource extends BufferedSource {
+    private final Reader in;
+    private final char[] buf = new char[MAX_LINE_LENGTH + 1];
+
+    CharSource(Reader in) {
+      this.in = in;
+    }
+
+    @Override
+    int read(int off, int len) throws IOException {
+      return in.read(buf, off, len);
+    }
+
+    @Override
+    boolean isNewline(int idx) {
+      return buf[idx] == '\n';
+    }
+
+    @Override
+    void compact(int start, int len) {
+      System.arraycopy(buf, start, buf, 0, len);
+    }
+
+    @Override
+    int charAt(int idx) {
+      return buf[lineStart + idx];
+    }
+
+    @Override
+    Version parse(int start, int end) {
+      return Version.parseVersion(buf, lineStart + start, end - start);
+    }
+
+    @Override
+    String text(int start, int end) {
+      return new String(buf, lineStart + start, end - start);
+    }
+
+    @Override
+    public void close() throws IOException {
+      in.close();
+    }
+  }
+
+  /**
+   * Lines of an InputStream of UTF-8 bytes.
+   */
+  private static final class StreamSource extends BufferedSource {
+    private final InputStream in;
+    private final byte[] buf = new byte[MAX_LINE_LENGTH + 1];
+
+    StreamSource(InputStream in) {
+      this.in = in;
+    }
+
+    @Override
+    int read(int off, int len) throws IOException {
+      return in.read(buf, off, len);
+    }
+
+    @Override
+    boolean isNewline(int idx) {
+      return buf[idx] == '\n';
+    }
+
+    @Override
+    void compact(int start, int len) {
+      System.arraycopy(buf, start, buf, 0, len);
+    }
+
+    @Override
+    int charAt(int idx) {
+      return buf[lineStart + idx];
+    }
+
+    @Override
+    Version parse(int start, int end) {
+      return Version.parseVersion(buf, lineStart + start, end - start);
+    }
+
+    @Override
+    String text(int start, int end) {
+      return new String(buf, lineStart + start, end - start, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+      in.close();
+    }
+  }
+
+  /**
+   * Lines of a file mapped window by window.
+   */
+  private static final class MappedSource extends LineSource {
+    private final FileChannel channel;
+    private final long size;
+    private final int window;
+    /** File position of the mapped window. */
+    private long base;
+    private MappedByteBuffer map;
+    /** Position of the next line in the window. */
+    private int pos;
+    private int lineStart;
+
+    MappedSource(FileChannel channel, int window) throws IOException {
+      this.channel = channel;
+      this.size = channel.size();
+      this.window = window;
+      remap(0L);
+    }
+
+    private void remap(long position) throws IOException {
+      base = position;
+      pos = 0;
+      map = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(window, size - position));
+    }
+
+    @Override
+    boolean nextLine() throws IOException {
+      tooLong = false;
+      while (true) {
+        final int limit = map.limit();
+        if (base + pos >= size) {
+          return false;
+        }
+        final int start = pos;
+        int scan = pos;
+        // a line of MAX_LINE_LENGTH is followed by a terminator or the end of file
+        final int maxEnd = (int) Math.min((long) start + MAX_LINE_LENGTH + 1, limit);
+        while (scan < maxEnd && map.get(scan) != '\n') {
+          scan++;
+        }
+        if (scan < maxEnd || (base + scan == size && scan - start <= MAX_LINE_LENGTH)) {
+          // line terminator or end of file
+          lineStart = start;
+          length = scan - start;
+          pos = scan + 1;
+          return true;
+        }
+        if (scan - start > MAX_LINE_LENGTH) {
+          // skip the line
+          tooLong = true;
+          length = 0;
+          long filePos = base + scan;
+          while (filePos < size) {
+            if (scan == map.limit()) {
+              remap(filePos);
+              scan = 0;
+            }
+            if (map.get(scan) == '\n') {
+              break;
+            }
+            scan++;
+            filePos++;
+          }
+          lineStart = scan;
+          pos = scan + 1;
+          return true;
+        }
+        // the line crosses the window end
+        remap(base + start);
+      }
+    }
+
+    @Override
+    int charAt(int idx) {
+      return map.get(lineStart + idx);
+    }
+
+    @Override
+    Version parse(int start, int end) {
+      return Version.parseVersion(map, lineStart + start, end - start);
+    }
+
+    @Override
+    String text(int start, int end) {
+      final byte[] bytes = new byte[end - start];
+      for (int i = 0; i < bytes.length; i++) {
+        bytes[i] = map.get(lineStart + start + i);
+      }
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+      map = null;
+      channel.close();
+    }
+  }
+}
@@ -0,0 +1,140 @@
+package io.opsit.version;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Resolver of version constraints against a catalog of available versions.
+ *
+ * <p>The resolver picks the highest version of the catalog that
+ * satisfies all the constraints of a query. The interval sets of the
+ * constraints (see {@link VersionRange}) are intersected first, then
+ * the bounds of the remaining intervals are binary searched in the
+ * sorted catalog, from the highest interval down. Only the versions
+ * between the highest bound and the answer are looked at, by their
+ * stored keys, so a query takes O(k log n) comparisons for k
+ * intervals and a catalog of n versions as long as releases are not
+ * buried under many prereleases.
+ *
+ * <p>The catalog is a {@link VersionSet}, sorted once and shared by all
+ * the queries; {@link #resolveAll} runs a batch of queries against it.
+ * Resolvers are immutable and may be used from many threads.
+ */
+public final class VersionResolver {
+  private static final VersionRange ANY = VersionRange.parse("*");
+
+  private final VersionSet catalog;
+
+  private VersionResolver(VersionSet catalog) {
+    this.catalog = catalog;
+  }
+
+  /**
+   * Create resolver of a catalog.
+   *
+   * @param catalog available versions, a VersionSet is used as is
+   * @return the resolver
+   * @throws NullPointerException if a version is null
+   */
+  public static VersionResolver of(Collection<Version> catalog) {
+    return new VersionResolver(VersionSet.copyOf(catalog));
+  }
+
+  /**
+   * Get the catalog.
+   *
+   * @return sorted available versions
+   */
+  public VersionSet catalog() {
+    return catalog;
+  }
+
+  /**
+   * Get the highest version of the catalog that satisfies all the constraints.
+   *
+   * @param constraints the constraints, none stands for {@code *}
+   * @return the version or null if no version satisfies the constraints
+   */
+  public Version resolve(VersionRange... constraints) {
+    return resolve(Arrays.asList(constraints));
+  }
+
+  /**
+   * Get the highest version of the catalog that satisfies all the constraints.
+   *
+   * @param constraints the constraints, none stands for {@code *}
+   * @return the version or null if no version satisfies the constraints
+   */
+  public Version resolve(Collection<VersionRange> constraints) {
+    final int index = resolveIndex(constraints);
+    return index < 0 ? null : catalog.array().get(index);
+  }
+
+  /**
+   * Resolve a batch of queries.
+   *
+   * @param queries constraints of each query
+   * @return versions in the order of the queries, null for the queries
+   *     that no version satisfies
+   * @see #resolve(Collection)
+   */
+  public List<Version> resolveAll(List<? extends Collection<VersionRange>> queries) {
+    final List<Version> result = new ArrayList<Version>(queries.size());
+    for (Collection<VersionRange> constraints : queries) {
+      result.add(resolve(constraints));
+    }
+    return result;
+  }
+
+  private int resolveIndex(Collection<VersionRange> constraints) {
+    VersionRange.Interval[] releases = null;
+    VersionRange.Interval[] prereleases = null;
+    for (VersionRange range : constraints) {
+      releases = intersect(releases, range.intervals(false));
+      prereleases = intersect(prereleases, range.intervals(true));
+    }
+    if (null == releases) {
+      releases = ANY.intervals(false);
+      prereleases = ANY.intervals(true);
+    }
+    final int release = highest(releases, false, catalog.from() - 1);
+    // a prerelease is only the answer if it is above the release
+    final int prerelease = highest(prereleases, true, Math.max(release, catalog.from() - 1));
+    final int found = Math.max(release, prerelease);
+    return found >= catalog.from() ? found : -1;
+  }
+
+  private static VersionRange.Interval[] intersect(VersionRange.Interval[] acc,
+                                                   VersionRange.Interval[] intervals) {
+    if (null == acc) {
+      return intervals;
+    }
+    return VersionRange.intersectIntervals(acc, intervals);
+  }
+
+  /**
+   * Find the highest release or prerelease of the catalog above a
+   * position that lies in the intervals.
+   *
+   * @return the position or floor if there is none
+   */
+  private int highest(VersionRange.Interval[] intervals, boolean prerelease, int floor) {
+    final VersionArray array = catalog.array();
+    for (int i = intervals.length - 1; i >= 0; i--) {
+      final int high = catalog.index(intervals[i].high, catalog.from(), catalog.to());
+      if (high <= floor + 1) {
+        break;
+      }
+      final int low = Math.max(catalog.index(intervals[i].low, catalog.from(), catalog.to()),
+                               floor + 1);
+      for (int pos = high - 1; pos >= low; pos--) {
+        if (array.isPrerelease(pos) == prerelease) {
+          return pos;
+        }
+      }
+    }
+    return floor;
+  }
+}
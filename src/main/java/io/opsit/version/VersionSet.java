@@ -0,0 +1,686 @@
+package io.opsit.version;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
+/**
+ * Immutable sorted set of versions.
+ *
+ * <p>The versions are ordered and told apart by {@link
+ * Version#compareTo(Version)}, as in a TreeSet: of the versions that
+ * differ only in build identifiers or in notation of numbers the first
+ * added one is kept. They are stored in a sorted {@link VersionArray},
+ * so a set takes about 12 bytes per plain release, and lookups are
+ * binary searches over the precedence keys that make no Version
+ * objects for semantic versions.
+ *
+ * <p>Besides the navigation methods ({@link #floor}, {@link #ceiling},
+ * {@link #lower}, {@link #higher}) the set answers "newest version that
+ * matches" queries by a scan from the top: {@link #latest(Predicate)}
+ * and {@link #latestStable()}, which checks the stored keys and makes
+ * only the found version. The newest release below 3.0.0 is
+ * {@code set.headSet(Version.parseVersion("3.0.0"), false).latestStable()}.
+ *
+ * <p>The set is a read-only {@link NavigableSet}. {@link #subSet},
+ * {@link #headSet}, {@link #tailSet}, {@link #majorLine} and {@link
+ * #descendingSet} return views that share the storage of this set; as
+ * with TreeSet, the bounds of a new view must lie in the range of the
+ * view it is made of.
+ */
+public final class VersionSet extends AbstractSet<Version> implements NavigableSet<Version> {
+  private static final VersionSet EMPTY = new VersionSet(VersionArray.of(), 0, 0);
+
+  private final VersionArray array;
+  private final int from;
+  private final int to;
+  // range of the view, the versions are at positions [from, to)
+  private final VersionRange.Cut low;
+  private final VersionRange.Cut high;
+
+  VersionSet(VersionArray array, int from, int to) {
+    this(array, from, to, VersionRange.Cut.MIN, VersionRange.Cut.MAX);
+  }
+
+  private VersionSet(VersionArray array, int from, int to,
+                     VersionRange.Cut low, VersionRange.Cut high) {
+    this.array = array;
+    this.from = from;
+    this.to = to;
+    this.low = low;
+    this.high = high;
+  }
+
+  /**
+   * Create set of versions.
+   *
+   * @param vers the versions
+   * @return the set
+   * @throws NullPointerException if a version is null
+   */
+  public static VersionSet of(Version... vers) {
+    return copyOf(VersionArray.of(vers));
+  }
+
+  /**
+   * Create set of the versions of a collection.
+   *
+   * @param vers the versions
+   * @return the set
+   * @throws NullPointerException if a version is null
+   */
+  public static VersionSet copyOf(Collection<Version> vers) {
+    if (vers instanceof VersionSet) {
+      return (VersionSet) vers;
+    }
+    return copyOf(VersionArray.builder().addAll(vers).build());
+  }
+
+  /**
+   * Create set of the versions of an array.
+   *
+   * @param vers the versions
+   * @return the set, in the same kind of storage as the array
+   */
+  public static VersionSet copyOf(VersionArray vers) {
+    if (vers.size() == 0) {
+      return EMPTY;
+    }
+    final int[] order = order(vers);
+    final int[] firsts = new int[order.length];
+    final int count = groups(vers, order, firsts, null);
+    if (count == vers.size() && vers.isSorted()) {
+      return new VersionSet(vers, 0, count);
+    }
+    return new VersionSet(vers.select(firsts, count), 0, count);
+  }
+
+  /**
+   * Get positions of the versions of an array in ascending order.
+   */
+  static int[] order(VersionArray vers) {
+    if (!vers.isSorted()) {
+      return vers.order();
+    }
+    final int[] order = new int[vers.size()];
+    for (int i = 0; i < order.length; i++) {
+      order[i] = i;
+    }
+    return order;
+  }
+
+  /**
+   * Find runs of versions that are equal for compareTo.
+   *
+   * @param order positions of the versions in ascending order
+   * @param firsts receives least position of each run
+   * @param lasts receives greatest position of each run, may be null
+   * @return number of runs
+   */
+  static int groups(VersionArray vers, int[] order, int[] firsts, int[] lasts) {
+    int count = 0;
+    for (int i = 0; i < order.length; i++) {
+      final int pos = order[i];
+      if (i > 0 && vers.comparePrecedence(order[i - 1], pos) == 0) {
+        firsts[count - 1] = Math.min(firsts[count - 1], pos);
+        if (null != lasts) {
+          lasts[count - 1] = Math.max(lasts[count - 1], pos);
+        }
+      } else {
+        firsts[count] = pos;
+        if (null != lasts) {
+          lasts[count] = pos;
+        }
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Get the versions in ascending order.
+   *
+   * @return the array of this set, whole sets are not copied
+   */
+  public VersionArray toVersionArray() {
+    if (from == 0 && to == array.size()) {
+      return array;
+    }
+    final int[] positions = new int[to - from];
+    for (int i = 0; i < positions.length; i++) {
+      positions[i] = from + i;
+    }
+    return array.select(positions, positions.length);
+  }
+
+  @Override
+  public int size() {
+    return to - from;
+  }
+
+  @Override
+  public boolean contains(Object obj) {
+    return obj instanceof Version && indexOf((Version) obj) >= 0;
+  }
+
+  @Override
+  public Iterator<Version> iterator() {
+    return new Cursor(from, to, 1);
+  }
+
+  /**
+   * Get the least version.
+   *
+   * @return the version
+   * @throws NoSuchElementException if the set is empty
+   */
+  @Override
+  public Version first() {
+    if (from == to) {
+      throw new NoSuchElementException();
+    }
+    return array.get(from);
+  }
+
+  /**
+   * Get the greatest version.
+   *
+   * @return the version
+   * @throws NoSuchElementException if the set is empty
+   */
+  @Override
+  public Version last() {
+    if (from == to) {
+      throw new NoSuchElementException();
+    }
+    return array.get(to - 1);
+  }
+
+  /**
+   * Get the greatest version less than or equal to a version.
+   *
+   * @param ver the version
+   * @return the found version or null if there is no such version
+   */
+  @Override
+  public Version floor(Version ver) {
+    return at(floorIndex(ver));
+  }
+
+  /**
+   * Get the least version greater than or equal to a version.
+   *
+   * @param ver the version
+   * @return the found version or null if there is no such version
+   */
+  @Override
+  public Version ceiling(Version ver) {
+    return at(ceilingIndex(ver));
+  }
+
+  /**
+   * Get the greatest version strictly less than a version.
+   *
+   * @param ver the version
+   * @return the found version or null if there is no such version
+   */
+  @Override
+  public Version lower(Version ver) {
+    return at(lowerIndex(ver));
+  }
+
+  /**
+   * Get the least version strictly greater than a version.
+   *
+   * @param ver the version
+   * @return the found version or null if there is no such version
+   */
+  @Override
+  public Version higher(Version ver) {
+    return at(higherIndex(ver));
+  }
+
+  /**
+   * Get the greatest version that matches a predicate.
+   *
+   * <p>The versions are tested from the greatest one down, so the
+   * scan stops at the answer.
+   *
+   * @param predicate the predicate
+   * @return the found version or null if no version matches
+   */
+  public Version latest(Predicate<? super Version> predicate) {
+    for (int i = to - 1; i >= from; i--) {
+      final Version ver = array.get(i);
+      if (predicate.test(ver)) {
+        return ver;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Get the greatest version without prerelease identifiers.
+   *
+   * <p>The stored keys tell prereleases, only the found version is made.
+   *
+   * @return the found version or null if all the versions are prereleases
+   */
+  public Version latestStable() {
+    return at(latestStableIndex());
+  }
+
+  /**
+   * Get view of the versions between two versions.
+   *
+   * @param fromVer the low version
+   * @param fromInclusive true if the low version belongs to the view
+   * @param toVer the high version
+   * @param toInclusive true if the high version belongs to the view
+   * @return the view
+   * @throws IllegalArgumentException if the low version is greater than
+   *     the high one or a version is out of the range of this view
+   */
+  @Override
+  public VersionSet subSet(Version fromVer, boolean fromInclusive,
+                           Version toVer, boolean toInclusive) {
+    if (fromVer.compareTo(toVer) > 0) {
+      throw new IllegalArgumentException("fromVer > toVer");
+    }
+    checkInRange(fromVer, fromInclusive, "fromVer");
+    checkInRange(toVer, toInclusive, "toVer");
+    return view(lowCut(fromVer, fromInclusive), highCut(toVer, toInclusive));
+  }
+
+  /**
+   * Get view of the versions from a version, inclusive, to a version, exclusive.
+   *
+   * @param fromVer the low version
+   * @param toVer the high version
+   * @return the view
+   * @throws IllegalArgumentException if the low version is greater than
+   *     the high one or a version is out of the range of this view
+   */
+  @Override
+  public VersionSet subSet(Version fromVer, Version toVer) {
+    return subSet(fromVer, true, toVer, false);
+  }
+
+  /**
+   * Get view of the versions less than a version.
+   *
+   * @param toVer the high version
+   * @param inclusive true if the high version belongs to the view
+   * @return the view
+   * @throws IllegalArgumentException if the version is out of the range of this view
+   */
+  @Override
+  public VersionSet headSet(Version toVer, boolean inclusive) {
+    checkInRange(toVer, inclusive, "toVer");
+    return view(low, highCut(toVer, inclusive));
+  }
+
+  /**
+   * Get view of the versions strictly less than a version.
+   *
+   * @param toVer the high version
+   * @return the view
+   * @throws IllegalArgumentException if the version is out of the range of this view
+   */
+  @Override
+  public VersionSet headSet(Version toVer) {
+    return headSet(toVer, false);
+  }
+
+  /**
+   * Get view of the versions greater than a version.
+   *
+   * @param fromVer the low version
+   * @param inclusive true if the low version belongs to the view
+   * @return the view
+   * @throws IllegalArgumentException if the version is out of the range of this view
+   */
+  @Override
+  public VersionSet tailSet(Version fromVer, boolean inclusive) {
+    checkInRange(fromVer, inclusive, "fromVer");
+    return view(lowCut(fromVer, inclusive), high);
+  }
+
+  /**
+   * Get view of the versions greater than or equal to a version.
+   *
+   * @param fromVer the low version
+   * @return the view
+   * @throws IllegalArgumentException if the version is out of the range of this view
+   */
+  @Override
+  public VersionSet tailSet(Version fromVer) {
+    return tailSet(fromVer, true);
+  }
+
+  /**
+   * Get view of the versions with a major version number.
+   *
+   * <p>The view holds the versions whose first component is the
+   * number, like "2", "2.1", "2.1.0-rc.1" and "2.1.0.4" for major 2.
+   * Views of views hold the versions that are in both.
+   *
+   * @param major the major version number
+   * @return the view
+   * @throws IllegalArgumentException if the number is negative
+   */
+  public VersionSet majorLine(long major) {
+    if (major < 0) {
+      throw new IllegalArgumentException("Negative major version: " + major);
+    }
+    final VersionRange.Cut lineLow =
+        VersionRange.Cut.beforePrereleases(Version.parseVersion(Long.toString(major)));
+    VersionRange.Cut lineHigh = VersionRange.Cut.MAX;
+    if (major < Long.MAX_VALUE) {
+      lineHigh = VersionRange.Cut.beforePrereleases(Version.parseVersion(Long.toString(major + 1)));
+    }
+    final VersionRange.Cut viewLow = VersionRange.Cut.max(low, lineLow);
+    final VersionRange.Cut viewHigh = VersionRange.Cut.min(high, lineHigh);
+    if (VersionRange.Cut.compare(viewLow, viewHigh) > 0) {
+      return view(viewLow, viewLow);
+    }
+    return view(viewLow, viewHigh);
+  }
+
+  /**
+   * Get comparator of the versions.
+   *
+   * @return null, the versions are in their natural order
+   */
+  @Override
+  public Comparator<? super Version> comparator() {
+    return null;
+  }
+
+  /**
+   * Get view of the versions in descending order.
+   *
+   * @return the view
+   */
+  @Override
+  public NavigableSet<Version> descendingSet() {
+    return new DescendingSet(this);
+  }
+
+  @Override
+  public Iterator<Version> descendingIterator() {
+    return new Cursor(to - 1, from - 1, -1);
+  }
+
+  /**
+   * Not supported, the set is immutable.
+   *
+   * @throws UnsupportedOperationException always
+   */
+  @Override
+  public Version pollFirst() {
+    throw new UnsupportedOperationException("VersionSet is immutable");
+  }
+
+  /**
+   * Not supported, the set is immutable.
+   *
+   * @throws UnsupportedOperationException always
+   */
+  @Override
+  public Version pollLast() {
+    throw new UnsupportedOperationException("VersionSet is immutable");
+  }
+
+  /**
+   * Check that a bound of a new view lies in the range of this view,
+   * as the views of TreeSet do.
+   *
+   * @param inclusive true if the bound version belongs to the new view,
+   *     otherwise the bound may be at the edges of the range
+   */
+  private void checkInRange(Version ver, boolean inclusive, String name) {
+    final boolean inRange;
+    if (inclusive) {
+      inRange = !low.below(ver) && high.below(ver);
+    } else {
+      inRange = VersionRange.Cut.compare(VersionRange.Cut.after(ver), low) >= 0
+        && VersionRange.Cut.compare(VersionRange.Cut.before(ver), high) <= 0;
+    }
+    if (!inRange) {
+      throw new IllegalArgumentException(name + " out of range");
+    }
+  }
+
+  private static VersionRange.Cut lowCut(Version ver, boolean inclusive) {
+    return inclusive ? VersionRange.Cut.before(ver) : VersionRange.Cut.after(ver);
+  }
+
+  private static VersionRange.Cut highCut(Version ver, boolean inclusive) {
+    return inclusive ? VersionRange.Cut.after(ver) : VersionRange.Cut.before(ver);
+  }
+
+  private VersionSet view(VersionRange.Cut viewLow, VersionRange.Cut viewHigh) {
+    if (viewLow == low && viewHigh == high) {
+      return this;
+    }
+    final int start = index(viewLow, from, to);
+    final int end = Math.max(start, index(viewHigh, start, to));
+    return new VersionSet(array, start, end, viewLow, viewHigh);
+  }
+
+  /**
+   * Get position of the first version above a cut in the sorted positions [start, end).
+   */
+  int index(VersionRange.Cut cut, int start, int end) {
+    if (null == cut.version) {
+      return cut.side == VersionRange.Cut.AFTER ? end : start;
+    }
+    switch (cut.side) {
+      case VersionRange.Cut.BEFORE_PRERELEASES:
+        return array.sectionBound(cut.version, start, end);
+      case VersionRange.Cut.BEFORE:
+        return array.bound(cut.version, false, start, end);
+      default:
+        return array.bound(cut.version, true, start, end);
+    }
+  }
+
+  private Version at(int index) {
+    return index < 0 ? null : array.get(index);
+  }
+
+  VersionArray array() {
+    return array;
+  }
+
+  int from() {
+    return from;
+  }
+
+  int to() {
+    return to;
+  }
+
+  int indexOf(Version ver) {
+    final int index = array.bound(ver, false, from, to);
+    return index < to && array.bound(ver, true, index, index + 1) > index ? index : -1;
+  }
+
+  int floorIndex(Version ver) {
+    final int index = array.bound(ver, true, from, to) - 1;
+    return index >= from ? index : -1;
+  }
+
+  int lowerIndex(Version ver) {
+    final int index = array.bound(ver, false, from, to) - 1;
+    return index >= from ? index : -1;
+  }
+
+  int ceilingIndex(Version ver) {
+    final int index = array.bound(ver, false, from, to);
+    return index < to ? index : -1;
+  }
+
+  int higherIndex(Version ver) {
+    final int index = array.bound(ver, true, from, to);
+    return index < to ? index : -1;
+  }
+
+  int latestStableIndex() {
+    for (int i = to - 1; i >= from; i--) {
+      if (!array.isPrerelease(i)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Iterator over the positions from start to end, exclusive, by step.
+   */
+  private final class Cursor implements Iterator<Version> {
+    private final int end;
+    private final int step;
+    private int index;
+
+    Cursor(int start, int end, int step) {
+      this.index = start;
+      this.end = end;
+      this.step = step;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return index != end;
+    }
+
+    @Override
+    public Version next() {
+      if (index == end) {
+        throw new NoSuchElementException();
+      }
+      final Version ver = array.get(index);
+      index += step;
+      return ver;
+    }
+  }
+
+  /**
+   * Descending view of a set, the navigation goes the other way.
+   */
+  private static final class DescendingSet extends AbstractSet<Version>
+      implements NavigableSet<Version> {
+    private final VersionSet set;
+
+    DescendingSet(VersionSet set) {
+      this.set = set;
+    }
+
+    @Override
+    public int size() {
+      return set.size();
+    }
+
+    @Override
+    public boolean contains(Object obj) {
+      return set.contains(obj);
+    }
+
+    @Override
+    public Iterator<Version> iterator() {
+      return set.descendingIterator();
+    }
+
+    @Override
+    public Iterator<Version> descendingIterator() {
+      return set.iterator();
+    }
+
+    @Override
+    public Comparator<? super Version> comparator() {
+      return Collections.reverseOrder();
+    }
+
+    @Override
+    public Version first() {
+      return set.last();
+    }
+
+    @Override
+    public Version last() {
+      return set.first();
+    }
+
+    @Override
+    public Version lower(Version ver) {
+      return set.higher(ver);
+    }
+
+    @Override
+    public Version floor(Version ver) {
+      return set.ceiling(ver);
+    }
+
+    @Override
+    public Version ceiling(Version ver) {
+      return set.floor(ver);
+    }
+
+    @Override
+    public Version higher(Version ver) {
+      return set.lower(ver);
+    }
+
+    @Override
+    public Version pollFirst() {
+      return set.pollLast();
+    }
+
+    @Override
+    public Version pollLast() {
+      return set.pollFirst();
+    }
+
+    @Override
+    public NavigableSet<Version> descendingSet() {
+      return set;
+    }
+
+    @Override
+    public NavigableSet<Version> subSet(Version fromVer, boolean fromInclusive,
+                                        Version toVer, boolean toInclusive) {
+      return set.subSet(toVer, toInclusive, fromVer, fromInclusive).descendingSet();
+    }
+
+    @Override
+    public NavigableSet<Version> subSet(Version fromVer, Version toVer) {
+      return subSet(fromVer, true, toVer, false);
+    }
+
+    @Override
+    public NavigableSet<Version> headSet(Version toVer, boolean inclusive) {
+      return set.tailSet(toVer, inclusive).descendingSet();
+    }
+
+    @Override
+    public NavigableSet<Version> headSet(Version toVer) {
+      return headSet(toVer, false);
+    }
+
+    @Override
+    public NavigableSet<Version> tailSet(Version fromVer, boolean inclusive) {
+      return set.headSet(fromVer, inclusive).descendingSet();
+    }
+
+    @Override
+    public NavigableSet<Version> tailSet(Version fromVer) {
+      return tailSet(fromVer, true);
+    }
+  }
+}
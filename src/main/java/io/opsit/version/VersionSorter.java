@@ -0,0 +1,238 @@
+package io.opsit.version;
+
+import java.util.Arrays;
+
+/**
+ * Sorting of version arrays on precomputed primitive keys.
+ *
+ * <p>Versions with a {@link Version#precedenceKey()} are ordered by
+ * an LSD radix sort of the keys, only runs of prereleases with equal
+ * keys need {@link Version#compareTo(Version)}. The versions without
+ * a key are merge sorted with compareTo and both groups are merged.
+ * All the steps are stable and ties between the groups are resolved
+ * by the original positions, so the result is the one of a stable
+ * sort by compareTo.
+ *
+ * <p>The steps work on positions of a {@link Source}, so that
+ * versions stored in other forms than Version objects, like {@link
+ * VersionArray}, are sorted the same way.
+ */
+final class VersionSorter {
+  /**
+   * Below this size plain merge sort by compareTo is faster than
+   * setting up the radix passes.
+   */
+  static final int RADIX_THRESHOLD = 256;
+
+  private static final int RADIX_BITS = 8;
+  private static final int RADIX = 1 << RADIX_BITS;
+  private static final int KEY_BITS = 63;
+
+  private VersionSorter() {
+  }
+
+  /**
+   * Sorted elements addressed by their positions.
+   */
+  abstract static class Source {
+    /**
+     * Get precedence key of an element.
+     *
+     * @return the key, negative if the element has none
+     */
+    abstract long key(int pos);
+
+    /**
+     * Compare two elements, must be consistent with the keys.
+     */
+    abstract int compare(int posA, int posB);
+
+    /**
+     * Check if elements with the key may differ by {@link #compare}.
+     */
+    boolean hasTies(long key) {
+      // equal keys of releases are equal versions
+      return (key & 1L) == 0;
+    }
+  }
+
+  /**
+   * Source over a Version array.
+   */
+  private static final class ArraySource extends Source {
+    private final Version[] vers;
+
+    ArraySource(Version[] vers) {
+      this.vers = vers;
+    }
+
+    @Override
+    long key(int pos) {
+      return vers[pos].precedenceKey();
+    }
+
+    @Override
+    int compare(int posA, int posB) {
+      return vers[posA].compareTo(vers[posB]);
+    }
+  }
+
+  static void sort(Version[] vers, int from, int to) {
+    final int size = to - from;
+    if (size < 2) {
+      return;
+    }
+    final int[] order = order(new ArraySource(vers), from, to);
+    final Version[] result = new Version[size];
+    for (int i = 0; i < size; i++) {
+      result[i] = vers[order[i]];
+    }
+    System.arraycopy(result, 0, vers, from, size);
+  }
+
+  /**
+   * Get positions [from, to) in the order of a stable sort.
+   */
+  static int[] order(Source src, int from, int to) {
+    final int size = to - from;
+    final int[] keyed = new int[size];
+    final int[] keyless = new int[size];
+    int nkeyed = 0;
+    int nkeyless = 0;
+    for (int i = from; i < to; i++) {
+      if (src.key(i) >= 0) {
+        keyed[nkeyed++] = i;
+      } else {
+        keyless[nkeyless++] = i;
+      }
+    }
+    final int[] tmp = new int[size];
+    if (nkeyed < RADIX_THRESHOLD) {
+      mergeSort(src, keyed, tmp, 0, nkeyed);
+    } else {
+      radixSort(src, keyed, tmp, nkeyed);
+      sortTieRuns(src, keyed, tmp, nkeyed);
+    }
+    mergeSort(src, keyless, tmp, 0, nkeyless);
+    if (nkeyless == 0) {
+      return keyed;
+    }
+    // merge the groups, original position decides between equal versions
+    int ik = 0;
+    int il = 0;
+    for (int i = 0; i < size; i++) {
+      final boolean takeKeyed;
+      if (ik == nkeyed) {
+        takeKeyed = false;
+      } else if (il == nkeyless) {
+        takeKeyed = true;
+      } else {
+        final int cmp = src.compare(keyed[ik], keyless[il]);
+        takeKeyed = cmp < 0 || (cmp == 0 && keyed[ik] < keyless[il]);
+      }
+      tmp[i] = takeKeyed ? keyed[ik++] : keyless[il++];
+    }
+    return tmp;
+  }
+
+  /**
+   * Stable LSD radix sort of the positions by the precedence keys.
+   */
+  private static void radixSort(Source source, int[] idx, int[] tmp, int size) {
+    long[] keys = new long[size];
+    long[] keysTmp = new long[size];
+    int[] src = idx;
+    int[] dst = tmp;
+    for (int i = 0; i < size; i++) {
+      keys[i] = source.key(idx[i]);
+    }
+    final int[] counts = new int[RADIX];
+    for (int shift = 0; shift < KEY_BITS; shift += RADIX_BITS) {
+      Arrays.fill(counts, 0);
+      for (int i = 0; i < size; i++) {
+        counts[(int) (keys[i] >>> shift) & (RADIX - 1)]++;
+      }
+      if (counts[(int) (keys[0] >>> shift) & (RADIX - 1)] == size) {
+        // all the keys have the same digit
+        continue;
+      }
+      int sum = 0;
+      for (int d = 0; d < RADIX; d++) {
+        final int count = counts[d];
+        counts[d] = sum;
+        sum += count;
+      }
+      for (int i = 0; i < size; i++) {
+        final int pos = counts[(int) (keys[i] >>> shift) & (RADIX - 1)]++;
+        keysTmp[pos] = keys[i];
+        dst[pos] = src[i];
+      }
+      final long[] swapKeys = keys;
+      keys = keysTmp;
+      keysTmp = swapKeys;
+      final int[] swap = src;
+      src = dst;
+      dst = swap;
+    }
+    if (src != idx) {
+      System.arraycopy(src, 0, idx, 0, size);
+    }
+  }
+
+  /**
+   * Order runs of equal keys that may differ, like prereleases, by compare.
+   */
+  private static void sortTieRuns(Source src, int[] idx, int[] tmp, int size) {
+    int start = 0;
+    while (start < size) {
+      final long key = src.key(idx[start]);
+      int end = start + 1;
+      while (end < size && src.key(idx[end]) == key) {
+        end++;
+      }
+      if (end - start > 1 && src.hasTies(key)) {
+        mergeSort(src, idx, tmp, start, end);
+      }
+      start = end;
+    }
+  }
+
+  /**
+   * Stable merge sort of positions [from, to) of idx by compare of the elements.
+   */
+  private static void mergeSort(Source src, int[] idx, int[] tmp, int from, int to) {
+    final int size = to - from;
+    if (size < 2) {
+      return;
+    }
+    if (size <= 16) {
+      // insertion sort, stable since only bigger elements are shifted
+      for (int i = from + 1; i < to; i++) {
+        final int cur = idx[i];
+        int pos = i - 1;
+        while (pos >= from && src.compare(idx[pos], cur) > 0) {
+          idx[pos + 1] = idx[pos];
+          pos--;
+        }
+        idx[pos + 1] = cur;
+      }
+      return;
+    }
+    final int mid = (from + to) >>> 1;
+    mergeSort(src, idx, tmp, from, mid);
+    mergeSort(src, idx, tmp, mid, to);
+    if (src.compare(idx[mid - 1], idx[mid]) <= 0) {
+      return;
+    }
+    System.arraycopy(idx, from, tmp, from, size);
+    int left = from;
+    int right = mid;
+    for (int i = from; i < to; i++) {
+      if (right >= to || (left < mid && src.compare(tmp[left], tmp[right]) <= 0)) {
+        idx[i] = tmp[left++];
+      } else {
+        idx[i] = tmp[right++];
+      }
+    }
+  }
+}
@@ -0,0 +1,199 @@
+package io.opsit.version;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fork-join tasks of the bulk operations of Version.
+ *
+ * <p>The work is split into ranges of at least {@link #THRESHOLD}
+ * elements. Sorting sorts the ranges with {@link VersionSorter} and
+ * merges them with a parallel stable merge, so the result is the
+ * same as of the sequential sort.
+ */
+final class VersionTasks {
+  /**
+   * Minimal number of elements a task processes without splitting.
+   */
+  static final int THRESHOLD = 8192;
+
+  /**
+   * Number of sorted ranges per thread of the pool.
+   */
+  static final int RANGES_PER_THREAD = 4;
+
+  private VersionTasks() {
+  }
+
+  /**
+   * Parse specs[from, to) into vers[from, to).
+   */
+  static final class ParseTask extends RecursiveAction {
+    static final long serialVersionUID = 1;
+
+    private final String[] specs;
+    private final Version[] vers;
+    private final int from;
+    private final int to;
+
+    ParseTask(String[] specs, Version[] vers, int from, int to) {
+      this.specs = specs;
+      this.vers = vers;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= THRESHOLD) {
+        for (int i = from; i < to; i++) {
+          vers[i] = Version.parseVersion(specs[i]);
+        }
+        return;
+      }
+      final int mid = (from + to) >>> 1;
+      invokeAll(new ParseTask(specs, vers, from, mid), new ParseTask(specs, vers, mid, to));
+    }
+  }
+
+  /**
+   * Stable sort of vers[from, to), buf is scratch space of the same size as vers.
+   *
+   * <p>Ranges up to grain elements are sorted sequentially, each merge
+   * level costs a compareTo per element so the grain should give few
+   * more ranges than threads.
+   */
+  static final class SortTask extends RecursiveAction {
+    static final long serialVersionUID = 1;
+
+    private final Version[] vers;
+    private final Version[] buf;
+    private final int from;
+    private final int to;
+    private final int grain;
+
+    SortTask(Version[] vers, Version[] buf, int from, int to, int grain) {
+      this.vers = vers;
+      this.buf = buf;
+      this.from = from;
+      this.to = to;
+      this.grain = grain;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= grain) {
+        VersionSorter.sort(vers, from, to);
+        return;
+      }
+      final int mid = (from + to) >>> 1;
+      invokeAll(new SortTask(vers, buf, from, mid, grain),
+                new SortTask(vers, buf, mid, to, grain));
+      if (vers[mid - 1].compareTo(vers[mid]) <= 0) {
+        // already in order
+        return;
+      }
+      new MergeTask(vers, from, mid, mid, to, buf, from).compute();
+      System.arraycopy(buf, from, vers, from, to - from);
+    }
+  }
+
+  /**
+   * Stable merge of the sorted ranges src[lo1, hi1) and src[lo2, hi2),
+   * the first range precedes the second in the input, into dst
+   * starting at pos.
+   */
+  static final class MergeTask extends RecursiveAction {
+    static final long serialVersionUID = 1;
+
+    private final Version[] src;
+    private final int lo1;
+    private final int hi1;
+    private final int lo2;
+    private final int hi2;
+    private final Version[] dst;
+    private final int pos;
+
+    MergeTask(Version[] src, int lo1, int hi1, int lo2, int hi2, Version[] dst, int pos) {
+      this.src = src;
+      this.lo1 = lo1;
+      this.hi1 = hi1;
+      this.lo2 = lo2;
+      this.hi2 = hi2;
+      this.dst = dst;
+      this.pos = pos;
+    }
+
+    @Override
+    protected void compute() {
+      final int len1 = hi1 - lo1;
+      final int len2 = hi2 - lo2;
+      if (len1 + len2 <= THRESHOLD) {
+        merge();
+        return;
+      }
+      // split the longer range in the middle, find the split of the
+      // other one so that equal elements of the first range go first
+      int split1;
+      int split2;
+      if (len1 >= len2) {
+        split1 = (lo1 + hi1) >>> 1;
+        split2 = lowerBound(src, lo2, hi2, src[split1]);
+      } else {
+        split2 = (lo2 + hi2) >>> 1;
+        split1 = upperBound(src, lo1, hi1, src[split2]);
+      }
+      final int pos2 = pos + (split1 - lo1) + (split2 - lo2);
+      invokeAll(new MergeTask(src, lo1, split1, lo2, split2, dst, pos),
+                new MergeTask(src, split1, hi1, split2, hi2, dst, pos2));
+    }
+
+    private void merge() {
+      int idx1 = lo1;
+      int idx2 = lo2;
+      int out = pos;
+      while (idx1 < hi1 && idx2 < hi2) {
+        dst[out++] = src[idx2].compareTo(src[idx1]) < 0 ? src[idx2++] : src[idx1++];
+      }
+      while (idx1 < hi1) {
+        dst[out++] = src[idx1++];
+      }
+      while (idx2 < hi2) {
+        dst[out++] = src[idx2++];
+      }
+    }
+  }
+
+  /**
+   * Find first position in the sorted range with element not less than ver.
+   */
+  static int lowerBound(Version[] vers, int from, int to, Version ver) {
+    int lo = from;
+    int hi = to;
+    while (lo < hi) {
+      final int mid = (lo + hi) >>> 1;
+      if (vers[mid].compareTo(ver) < 0) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  /**
+   * Find first position in the sorted range with element greater than ver.
+   */
+  static int upperBound(Version[] vers, int from, int to, Version ver) {
+    int lo = from;
+    int hi = to;
+    while (lo < hi) {
+      final int mid = (lo + hi) >>> 1;
+      if (vers[mid].compareTo(ver) <= 0) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+}
@@ -0,0 +1,200 @@
+package io.opsit.version;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Function;
+
+/**
+ * Thread safe tracker of the greatest version seen for each key, like
+ * the latest release of each artifact in a stream of release events.
+ *
+ * <p>Each key has a slot whose maxima are replaced by compare-and-set:
+ * an update reads the current maximum, returns if it is not less than
+ * the new version and retries only if another thread won the race. No
+ * lock is taken but the one of the map bin when a key is seen for the
+ * first time. Semantic versions are compared by their packed
+ * precedence keys (see {@link Version#precedenceKey()}), so the most
+ * common update, an old version that loses, is a volatile read and a
+ * long comparison.
+ *
+ * <p>A tracker can keep separate maxima of the releases and of the
+ * prereleases, then {@link #latest} is the greater of the two. Of the
+ * versions that are equal for compareTo the first one stays.
+ *
+ * @param <K> type of the keys
+ */
+public final class VersionTracker<K> {
+  private static final AtomicReferenceFieldUpdater<Slot, Version> STABLE =
+      AtomicReferenceFieldUpdater.newUpdater(Slot.class, Version.class, "stable");
+  private static final AtomicReferenceFieldUpdater<Slot, Version> PRERELEASE =
+      AtomicReferenceFieldUpdater.newUpdater(Slot.class, Version.class, "prerelease");
+
+  private final ConcurrentHashMap<K, Slot> slots = new ConcurrentHashMap<K, Slot>();
+  private final boolean separatePrereleases;
+  private final Function<K, Slot> newSlot = new Function<K, Slot>() {
+      @Override
+      public Slot apply(K key) {
+        return new Slot();
+      }
+    };
+
+  /**
+   * Create tracker of the greatest versions.
+   */
+  public VersionTracker() {
+    this(false);
+  }
+
+  /**
+   * Create tracker that may keep separate maxima of releases and prereleases.
+   *
+   * @param separatePrereleases if true, {@link #latestStable} and
+   *        {@link #latestPrerelease} are tracked as well
+   */
+  public VersionTracker(boolean separatePrereleases) {
+    this.separatePrereleases = separatePrereleases;
+  }
+
+  /**
+   * Check if the tracker keeps separate maxima of releases and prereleases.
+   *
+   * @return true if it does
+   */
+  public boolean hasSeparatePrereleases() {
+    return separatePrereleases;
+  }
+
+  /**
+   * Record a version of a key.
+   *
+   * @param key the key
+   * @param ver the version
+   * @return true if the version is a new maximum
+   * @throws NullPointerException if the key or the version is null
+   */
+  public boolean update(K key, Version ver) {
+    if (null == ver) {
+      throw new NullPointerException("version is null");
+    }
+    Slot slot = slots.get(key);
+    if (null == slot) {
+      slot = slots.computeIfAbsent(key, newSlot);
+    }
+    final AtomicReferenceFieldUpdater<Slot, Version> field =
+        separatePrereleases && ver.isPrerelease() ? PRERELEASE : STABLE;
+    Version cur = field.get(slot);
+    while (null == cur || ver.compareTo(cur) > 0) {
+      if (field.compareAndSet(slot, cur, ver)) {
+        return true;
+      }
+      cur = field.get(slot);
+    }
+    return false;
+  }
+
+  /**
+   * Record a version of a key given by its specification.
+   *
+   * @param key the key
+   * @param spec the version specification
+   * @return true if the version is a new maximum
+   * @throws NullPointerException if the key or the specification is null
+   * @see Version#parseVersion(String)
+   */
+  public boolean update(K key, String spec) {
+    return update(key, Version.parseVersion(spec));
+  }
+
+  /**
+   * Get the greatest version of a key.
+   *
+   * @param key the key
+   * @return the version or null if no version of the key was recorded
+   */
+  public Version latest(K key) {
+    final Slot slot = slots.get(key);
+    return null == slot ? null : slot.latest();
+  }
+
+  /**
+   * Get the greatest release of a key.
+   *
+   * @param key the key
+   * @return the version or null if no release of the key was recorded
+   * @throws IllegalStateException if the tracker does not keep the
+   *     prereleases apart
+   */
+  public Version latestStable(K key) {
+    checkSeparate();
+    final Slot slot = slots.get(key);
+    return null == slot ? null : slot.stable;
+  }
+
+  /**
+   * Get the greatest prerelease of a key.
+   *
+   * @param key the key
+   * @return the version or null if no prerelease of the key was recorded
+   * @throws IllegalStateException if the tracker does not keep the
+   *     prereleases apart
+   */
+  public Version latestPrerelease(K key) {
+    checkSeparate();
+    final Slot slot = slots.get(key);
+    return null == slot ? null : slot.prerelease;
+  }
+
+  private void checkSeparate() {
+    if (!separatePrereleases) {
+      throw new IllegalStateException("VersionTracker does not keep prereleases apart");
+    }
+  }
+
+  /**
+   * Get number of the keys.
+   *
+   * @return number of the keys that versions were recorded for
+   */
+  public int size() {
+    return slots.size();
+  }
+
+  /**
+   * Get the greatest versions of all the keys.
+   *
+   * <p>The maxima are read one key at a time while updates go on.
+   *
+   * @return new map of the keys to their greatest versions
+   */
+  public Map<K, Version> snapshot() {
+    final Map<K, Version> result = new HashMap<K, Version>();
+    for (Map.Entry<K, Slot> entry : slots.entrySet()) {
+      final Version ver = entry.getValue().latest();
+      // the slot of a new key is added before its first version
+      if (null != ver) {
+        result.put(entry.getKey(), ver);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Maxima of a key, the stable one holds all the versions if the
+   * prereleases are not kept apart.
+   */
+  private static final class Slot {
+    volatile Version stable;
+    volatile Version prerelease;
+
+    Version latest() {
+      final Version pre = prerelease;
+      final Version rel = stable;
+      if (null == pre) {
+        return rel;
+      }
+      return null == rel || pre.compareTo(rel) > 0 ? pre : rel;
+    }
+  }
+}
@@ -0,0 +1,149 @@
+package io.opsit.version;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class VersionArrayTests {
+  private static List<Version> randomVersions(Random rnd, int size) {
+    final List<Version> result = new ArrayList<Version>();
+    for (int i = 0; i < size; i++) {
+      result.add(Version.parseVersion(rnd.nextInt(10) == 0
+                                      ? rnd.nextInt(3) + "." + rnd.nextInt(3)
+                                      : VersionSorterTests.randomSpec(rnd)));
+    }
+    return result;
+  }
+
+  private static VersionArray build(List<Version> vers, boolean direct) {
+    return VersionArray.builder(direct, 3).addAll(vers).build();
+  }
+
+  @Test
+  public void testGet() throws Exception {
+    final List<Version> vers = randomVersions(new Random(23), 2000);
+    vers.add(Version.parseVersion("1.2").sub(Version.parseVersion("1.2.3")));
+    vers.add(new Version());
+    vers.add(Version.parseVersion("1.007.-0+b"));
+    for (boolean direct : new boolean[] {false, true}) {
+      final VersionArray arr = build(vers, direct);
+      assertEquals(direct, arr.isDirect());
+      assertEquals(vers.size(), arr.size());
+      for (int i = 0; i < vers.size(); i++) {
+        final Version ver = arr.get(i);
+        assertEquals(vers.get(i), ver);
+        assertEquals(vers.get(i).toString(), ver.toString());
+        assertEquals(vers.get(i).precedenceKey(), arr.precedenceKey(i));
+      }
+      assertEquals(vers, arr.asList());
+      try {
+        arr.get(vers.size());
+        fail("IndexOutOfBoundsException expected");
+      } catch (IndexOutOfBoundsException ex) {
+        // expected
+      }
+    }
+    // plain releases are only keys and offsets
+    final VersionArray plain = VersionArray.of(Version.parseVersion("1.2.3"),
+                                               Version.parseVersion("4194303.1048575.1048575"));
+    assertEquals(2 * 8 + 3 * 4, plain.byteSize());
+    assertEquals("4194303.1048575.1048575", plain.get(1).toString());
+  }
+
+  @Test
+  public void testSorted() throws Exception {
+    final Random rnd = new Random(24);
+    for (int size : new int[] {0, 1, 50, VersionSorter.RADIX_THRESHOLD + 1, 20000}) {
+      final List<Version> vers = randomVersions(rnd, size);
+      for (boolean direct : new boolean[] {false, true}) {
+        final VersionArray arr = build(vers, direct);
+        final VersionArray sorted = arr.sorted();
+        assertTrue(sorted.isSorted());
+        assertEquals(direct, sorted.isDirect());
+        assertSame(sorted, sorted.sorted());
+        final List<Version> expected = new ArrayList<Version>(vers);
+        Collections.sort(expected);
+        final List<Version> result = sorted.asList();
+        assertEquals(size, result.size());
+        for (int i = 0; i < size; i++) {
+          assertEquals(0, expected.get(i).compareTo(result.get(i)));
+          if (i > 0) {
+            assertTrue(sorted.compare(i - 1, i) <= 0);
+            // equal versions are ordered by their sortable forms
+            assertEquals(result.get(i - 1).equals(result.get(i)), sorted.compare(i - 1, i) == 0);
+          }
+        }
+        final List<Version> sortedCopy = new ArrayList<Version>(result);
+        Collections.sort(sortedCopy, new java.util.Comparator<Version>() {
+            @Override
+            public int compare(Version verA, Version verB) {
+              return verA.toString().compareTo(verB.toString());
+            }
+          });
+        final List<Version> original = new ArrayList<Version>(vers);
+        Collections.sort(original, new java.util.Comparator<Version>() {
+            @Override
+            public int compare(Version verA, Version verB) {
+              return verA.toString().compareTo(verB.toString());
+            }
+          });
+        assertEquals(original, sortedCopy);
+      }
+    }
+  }
+
+  @Test
+  public void testSearch() throws Exception {
+    final Random rnd = new Random(25);
+    final List<Version> vers = randomVersions(rnd, 5000);
+    final VersionArray arr = build(vers, false).sorted();
+    final List<Version> sorted = arr.asList();
+    for (Version ver : vers) {
+      final int idx = arr.binarySearch(ver);
+      assertTrue(ver.toString(), idx >= 0);
+      assertEquals(ver, arr.get(idx));
+      final int lower = arr.lowerBound(ver);
+      final int upper = arr.upperBound(ver);
+      assertTrue(lower <= idx && idx < upper);
+      assertTrue(lower == 0 || sorted.get(lower - 1).compareTo(ver) < 0);
+      assertTrue(upper == arr.size() || sorted.get(upper).compareTo(ver) > 0);
+      for (int i = lower; i < upper; i++) {
+        assertEquals(0, sorted.get(i).compareTo(ver));
+      }
+    }
+    for (String spec : new String[] {"0", "9", "1.1.1-zzz", "1.1.1+nobuild", "1.1", "3.0.0"}) {
+      final Version ver = Version.parseVersion(spec);
+      int idx = arr.binarySearch(ver);
+      if (idx < 0) {
+        idx = -idx - 1;
+        assertTrue(spec, idx == 0 || arr.get(idx - 1).compareTo(ver) <= 0);
+        assertTrue(spec, idx == arr.size() || arr.get(idx).compareTo(ver) >= 0);
+      } else {
+        assertEquals(ver, arr.get(idx));
+      }
+    }
+    final VersionArray unsorted = VersionArray.of(Version.parseVersion("2.0.0"),
+                                                  Version.parseVersion("1.0.0"));
+    assertFalse(unsorted.isSorted());
+    try {
+      unsorted.binarySearch(Version.parseVersion("1.0.0"));
+      fail("IllegalStateException expected");
+    } catch (IllegalStateException ex) {
+      // expected
+    }
+    assertTrue(VersionArray.of(Version.parseVersion("1.0.0-rc"),
+                               Version.parseVersion("1.0.0")).isSorted());
+    assertEquals(Arrays.asList(Version.parseVersion("1.0.0"), Version.parseVersion("2.0.0")),
+                 unsorted.sorted().asList());
+  }
+}
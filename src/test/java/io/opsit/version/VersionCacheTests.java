@@ -0,0 +1,140 @@
+package io.opsit.version;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class VersionCacheTests {
+  @Test
+  public void testHitsAndMisses() throws Exception {
+    VersionCache cache = new VersionCache(16);
+    Version v1 = cache.parse("1.2.3-SNAPSHOT");
+    Version v2 = cache.parse("1.2.3-SNAPSHOT");
+    assertSame(v1, v2);
+    assertEquals(Version.parseVersion("1.2.3-SNAPSHOT"), v1);
+    assertEquals(1L, cache.hitCount());
+    assertEquals(1L, cache.missCount());
+    assertEquals(0L, cache.evictionCount());
+    assertEquals(1, cache.size());
+    assertNull(cache.parse(null));
+  }
+
+  @Test
+  public void testLruEviction() throws Exception {
+    VersionCache cache = new VersionCache(2, 1);
+    final Version v1 = cache.parse("1.0.0");
+    cache.parse("2.0.0");
+    cache.parse("1.0.0");
+    cache.parse("3.0.0");
+    assertEquals(1L, cache.evictionCount());
+    assertEquals(2, cache.size());
+    assertSame(v1, cache.parse("1.0.0"));
+    assertEquals(3L, cache.missCount());
+    cache.parse("2.0.0");
+    assertEquals(4L, cache.missCount());
+    assertEquals(2L, cache.evictionCount());
+  }
+
+  @Test
+  public void testBounded() throws Exception {
+    VersionCache cache = new VersionCache(100, 8);
+    for (int i = 0; i < 1000; i++) {
+      cache.parse("1.0." + i);
+    }
+    assertTrue(cache.size() <= 100);
+    assertEquals(1000L, cache.missCount());
+    assertEquals(1000L - cache.size(), cache.evictionCount());
+    cache.clear();
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testBoundedWithManySegments() throws Exception {
+    for (int maxSize : new int[] {1, 3, 10, 1000}) {
+      VersionCache cache = new VersionCache(maxSize, 64);
+      assertEquals(maxSize, cache.maxSize());
+      for (int i = 0; i < 5000; i++) {
+        cache.parse("1." + i + ".0");
+        assertTrue(cache.size() <= maxSize);
+        assertEquals(i + 1L - cache.size(), cache.evictionCount());
+      }
+    }
+    // spread over the segments the entries fill the cache exactly
+    VersionCache cache = new VersionCache(10, 64);
+    for (int i = 0; i < 5000; i++) {
+      cache.parse("2." + i + ".0");
+    }
+    assertEquals(10, cache.size());
+  }
+
+  @Test
+  public void testSemanticAndValid() throws Exception {
+    VersionCache cache = new VersionCache(10);
+    assertEquals(Version.parseVersion("1.2.3"), cache.parseSemantic("1.2.3"));
+    assertEquals(Version.parseVersion("1.2"), cache.parseValid("1.2"));
+    try {
+      cache.parseSemantic("1.2");
+      fail("Exception was expected");
+    } catch (IllegalArgumentException ex) {
+      assertEquals("Not a semantic version specification: "
+                   + "expected exactly 3 version numbers at position 3", ex.getMessage());
+    }
+    try {
+      cache.parseValid("");
+      fail("Exception was expected");
+    } catch (IllegalArgumentException ex) {
+      assertEquals("Invalid version spec: empty version specification at position 0",
+                   ex.getMessage());
+    }
+    assertTrue(cache.tryParseSemantic("1.2.3").getVersion() == cache.parse("1.2.3"));
+    assertEquals(ParseError.COMPONENT_COUNT, cache.tryParseSemantic("1.2").getError());
+    assertEquals(ParseError.EMPTY, cache.tryParseValid("").getError());
+  }
+
+  @Test
+  public void testConcurrentAccess() throws Exception {
+    final VersionCache cache = new VersionCache(64);
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+      for (int t = 0; t < 8; t++) {
+        final int seed = t;
+        results.add(pool.submit(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+              for (int i = 0; i < 20000; i++) {
+                String spec = "1." + ((i * 7 + seed) % 100) + ".0-rc";
+                if (!Version.parseVersion(spec).equals(cache.parse(spec))) {
+                  return false;
+                }
+              }
+              return true;
+            }
+          }));
+      }
+      for (Future<Boolean> result : results) {
+        assertTrue(result.get());
+      }
+    } finally {
+      pool.shutdown();
+    }
+    assertEquals(8L * 20000, cache.hitCount() + cache.missCount());
+  }
+
+  @Test
+  public void testParseCached() throws Exception {
+    assertSame(Version.parseCached("7.7.7-cached"), Version.parseCached("7.7.7-cached"));
+    assertNull(Version.parseCached(null));
+  }
+}
@@ -0,0 +1,77 @@
+package io.opsit.version;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+public class VersionMapTests {
+  private static void assertSameEntry(Map.Entry<Version, Integer> expected,
+                                      Map.Entry<Version, Integer> actual) {
+    if (null == expected) {
+      assertNull(actual);
+    } else {
+      assertEquals(expected.getKey().toString(), actual.getKey().toString());
+      assertEquals(expected.getValue(), actual.getValue());
+    }
+  }
+
+  @Test
+  public void testNavigation() {
+    final Random rnd = new Random(31);
+    final List<Version> keys = VersionSetTests.randomVersions(rnd, 3000);
+    final TreeMap<Version, Integer> expected = new TreeMap<Version, Integer>();
+    final VersionMap.Builder<Integer> builder = VersionMap.builder();
+    for (int i = 0; i < keys.size(); i++) {
+      expected.put(keys.get(i), i);
+      builder.put(keys.get(i), i);
+    }
+    final VersionMap<Integer> map = builder.build();
+    assertEquals(expected, map);
+    assertEquals(expected.keySet(), map.keySet());
+    assertSameEntry(expected.firstEntry(), map.firstEntry());
+    assertSameEntry(expected.lastEntry(), map.lastEntry());
+    for (Version probe : VersionSetTests.randomVersions(rnd, 500)) {
+      assertEquals(expected.get(probe), map.get(probe));
+      assertEquals(expected.containsKey(probe), map.containsKey(probe));
+      assertSameEntry(expected.floorEntry(probe), map.floorEntry(probe));
+      assertSameEntry(expected.ceilingEntry(probe), map.ceilingEntry(probe));
+      assertSameEntry(expected.lowerEntry(probe), map.lowerEntry(probe));
+      assertSameEntry(expected.higherEntry(probe), map.higherEntry(probe));
+      assertEquals(expected.headMap(probe, true), map.headMap(probe, true));
+      assertEquals(expected.tailMap(probe, false), map.tailMap(probe, false));
+    }
+    assertEquals(VersionMap.copyOf(expected), map);
+  }
+
+  @Test
+  public void testLatest() {
+    final VersionMap<String> map = VersionMap.<String>builder()
+        .put(Version.parseVersion("1.4.0"), "a")
+        .put(Version.parseVersion("2.0.0-rc.1"), "b")
+        .put(Version.parseVersion("1.5.0"), "c")
+        .put(Version.parseVersion("1.6.0-rc+b1"), "d")
+        .put(Version.parseVersion("1.6.0-rc+b2"), "f")
+        .put(Version.parseVersion("2.1.0"), "e")
+        .build();
+    assertEquals(5, map.size());
+    assertEquals("c", map.majorLine(1).latestStable().getValue());
+    assertEquals("1.6.0-rc+b1", map.majorLine(1).lastEntry().getKey().toString());
+    assertEquals("f", map.majorLine(1).lastEntry().getValue());
+    assertNull(map.subMap(Version.parseVersion("1.5.0"), false,
+                          Version.parseVersion("2.1.0"), false).latestStable());
+    assertEquals("e", map.latestStable().getValue());
+    assertEquals("b", map.headMap(Version.parseVersion("2.1.0"), false).lastEntry().getValue());
+    assertNull(map.majorLine(3).firstEntry());
+    assertTrue(map.keySet().contains(Version.parseVersion("1.5.0")));
+    assertFalse(map.containsKey("1.5.0"));
+    assertNull(map.get("1.5.0"));
+  }
+}
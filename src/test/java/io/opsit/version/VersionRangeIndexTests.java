@@ -0,0 +1,169 @@
+package io.opsit.version;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+public class VersionRangeIndexTests {
+  private static final String[] OPS = {"", "^", "~", ">=", "<", "<=", ">", "="};
+  private static final String[] TAGS = {"", "", "", "-rc.1", "-beta", "-0"};
+
+  private static String randomVersion(Random rnd) {
+    final StringBuilder buf = new StringBuilder();
+    buf.append(rnd.nextInt(20) == 0 ? 5000000 : rnd.nextInt(4));
+    switch (rnd.nextInt(6)) {
+      case 0:
+        break;
+      case 1:
+        buf.append('.').append(rnd.nextInt(4));
+        break;
+      default:
+        buf.append('.').append(rnd.nextInt(4)).append('.').append(rnd.nextInt(4))
+          .append(TAGS[rnd.nextInt(TAGS.length)]);
+        break;
+    }
+    return buf.toString();
+  }
+
+  static String randomRange(Random rnd) {
+    final StringBuilder buf = new StringBuilder();
+    final int nalts = 1 + rnd.nextInt(2);
+    for (int i = 0; i < nalts; i++) {
+      buf.append(i > 0 ? " || " : "");
+      if (rnd.nextInt(8) == 0) {
+        buf.append(randomVersion(rnd)).append(" - ").append(randomVersion(rnd));
+        continue;
+      }
+      final int ncomps = 1 + rnd.nextInt(2);
+      for (int j = 0; j < ncomps; j++) {
+        buf.append(j > 0 ? " " : "").append(OPS[rnd.nextInt(OPS.length)])
+          .append(randomVersion(rnd));
+      }
+    }
+    return buf.toString();
+  }
+
+  private static List<Version> probes(Random rnd, int size) {
+    final List<Version> result = new ArrayList<Version>();
+    for (int i = 0; i < size; i++) {
+      result.add(Version.parseVersion(rnd.nextBoolean()
+                                      ? VersionSorterTests.randomSpec(rnd)
+                                      : randomVersion(rnd)));
+    }
+    return result;
+  }
+
+  private static List<Integer> naiveMatching(List<VersionRange> ranges, Version ver) {
+    final List<Integer> result = new ArrayList<Integer>();
+    for (int i = 0; i < ranges.size(); i++) {
+      if (ranges.get(i).contains(ver)) {
+        result.add(i);
+      }
+    }
+    return result;
+  }
+
+  @Test
+  public void testMatching() {
+    final Random rnd = new Random(77);
+    for (int size : new int[] {0, 1, 10, 3000}) {
+      final List<VersionRange> ranges = new ArrayList<VersionRange>();
+      final VersionRangeIndex.Builder<Integer> builder = VersionRangeIndex.builder();
+      for (int i = 0; i < size; i++) {
+        final VersionRange range = VersionRange.parse(randomRange(rnd));
+        ranges.add(rnd.nextInt(10) == 0 ? range.withPrereleases() : range);
+        builder.add(ranges.get(i), i);
+      }
+      final VersionRangeIndex<Integer> index = builder.build();
+      assertEquals(size, index.size());
+      for (Version ver : probes(rnd, 500)) {
+        final List<Integer> found = index.matching(ver);
+        Collections.sort(found);
+        assertEquals(ver.toString(), naiveMatching(ranges, ver), found);
+      }
+    }
+  }
+
+  @Test
+  public void testMatchSorted() {
+    final Random rnd = new Random(78);
+    final List<String> specs = new ArrayList<String>();
+    for (int i = 0; i < 2000; i++) {
+      specs.add(randomRange(rnd));
+    }
+    final VersionRangeIndex<String> index = specs.parallelStream().collect(
+        VersionRangeIndex.collector(new Function<String, VersionRange>() {
+            @Override
+            public VersionRange apply(String spec) {
+              return VersionRange.parse(spec);
+            }
+          }));
+    assertEquals(specs.size(), index.size());
+    final List<Version> sorted = probes(rnd, 3000);
+    Version.sort(sorted);
+    final List<String> found = new ArrayList<String>();
+    index.matchSorted(sorted, new BiConsumer<Version, String>() {
+        @Override
+        public void accept(Version ver, String spec) {
+          found.add(ver + " " + spec);
+        }
+      });
+    final List<String> expected = new ArrayList<String>();
+    for (Version ver : sorted) {
+      for (String spec : index.matching(ver)) {
+        expected.add(ver + " " + spec);
+      }
+    }
+    Collections.sort(found);
+    Collections.sort(expected);
+    assertEquals(expected.size(), found.size());
+    assertEquals(expected, found);
+    assertTrue(found.size() > sorted.size());
+
+    final BiConsumer<Version, String> ignore = new BiConsumer<Version, String>() {
+        @Override
+        public void accept(Version ver, String spec) {
+        }
+      };
+    try {
+      index.matchSorted(Arrays.asList(Version.parseVersion("2.0.0"), Version.parseVersion("1.0.0")),
+                        ignore);
+      fail("must reject unsorted versions");
+    } catch (IllegalArgumentException ex) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testAdvisories() {
+    final VersionRangeIndex<String> index = VersionRangeIndex.<String>builder()
+        .add(VersionRange.parse("<1.2.5"), "CVE-1")
+        .add(VersionRange.parse(">=1.2.0 <1.2.8 || >=2.0.0-rc.1 <2.0.3"), "CVE-2")
+        .add(VersionRange.parse("^2.0.1"), "CVE-3")
+        .add(VersionRange.parse("*"), "CVE-4")
+        .build();
+    final String[][] cases = {
+      {"1.2.4", "CVE-1", "CVE-2", "CVE-4"},
+      {"1.2.7", "CVE-2", "CVE-4"},
+      {"2.0.0-rc.2", "CVE-2"},
+      {"2.0.2", "CVE-2", "CVE-3", "CVE-4"},
+      {"2.5.0", "CVE-3", "CVE-4"},
+      {"3.0.0-alpha"},
+    };
+    for (String[] testCase : cases) {
+      final List<String> found = index.matching(Version.parseVersion(testCase[0]));
+      Collections.sort(found);
+      assertEquals(testCase[0], Arrays.asList(testCase).subList(1, testCase.length), found);
+    }
+  }
+}
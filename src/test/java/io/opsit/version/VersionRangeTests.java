@@ -0,0 +1,282 @@
+package io.opsit.version;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class VersionRangeTests {
+  private static void checkRange(VersionRange range, String[] matching, String[] other) {
+    for (String spec : matching) {
+      assertTrue(range + " must contain " + spec, range.contains(Version.parseVersion(spec)));
+    }
+    for (String spec : other) {
+      assertFalse(range + " must not contain " + spec,
+                  range.contains(Version.parseVersion(spec)));
+    }
+  }
+
+  private static void checkRange(String range, String[] matching, String[] other) {
+    checkRange(VersionRange.parse(range), matching, other);
+  }
+
+  @Test
+  public void testComparators() {
+    checkRange(">=1.2.3 <2.0.0",
+               new String[] {"1.2.3", "1.10.0", "1.999.999"},
+               new String[] {"1.2.2", "2.0.0", "2.0.1", "0.9.9"});
+    checkRange(">1.2.3 <=2.0.0",
+               new String[] {"1.2.4", "2.0.0"},
+               new String[] {"1.2.3", "2.0.1"});
+    checkRange("1.2.3", new String[] {"1.2.3"}, new String[] {"1.2.4", "1.2.3-rc"});
+    // build identifiers do not matter
+    checkRange("=1.2.3-rc+b", new String[] {"1.2.3-rc", "1.2.3-rc+c"},
+               new String[] {"1.2.3", "1.2.3-rc.1"});
+    checkRange("=v1.2.3", new String[] {"1.2.3"}, new String[] {"1.2.4"});
+    checkRange(">= 1.0.0", new String[] {"1.0.0", "100.0.0"}, new String[] {"0.1.0"});
+    checkRange(">2.0.0 <1.0.0", new String[0], new String[] {"0.5.0", "1.5.0", "2.5.0"});
+    assertTrue(VersionRange.parse(">2.0.0 <1.0.0").isEmpty());
+    assertFalse(VersionRange.parse(">=2.0.0").isEmpty());
+  }
+
+  @Test
+  public void testCaret() {
+    checkRange("^1.2.3", new String[] {"1.2.3", "1.9.0"},
+               new String[] {"1.2.2", "2.0.0", "2.0.0-rc"});
+    checkRange("^0.2.3", new String[] {"0.2.3", "0.2.9"},
+               new String[] {"0.3.0", "0.2.2"});
+    checkRange("^0.0.3", new String[] {"0.0.3"}, new String[] {"0.0.4", "0.0.2"});
+    checkRange("^1.2", new String[] {"1.2.0", "1.9.9"}, new String[] {"1.1.9", "2.0.0"});
+    checkRange("^0.0", new String[] {"0.0.0", "0.0.9"}, new String[] {"0.1.0"});
+    checkRange("^0", new String[] {"0.0.0", "0.9.9"}, new String[] {"1.0.0"});
+    checkRange("^0.0.x", new String[] {"0.0.5"}, new String[] {"0.1.0"});
+    checkRange("^1.x", new String[] {"1.0.0", "1.9.0"}, new String[] {"2.0.0", "0.9.0"});
+    checkRange("^1.2.3-beta.2", new String[] {"1.2.3-beta.2", "1.2.3-beta.10", "1.2.3", "1.3.0"},
+               new String[] {"1.2.3-beta.1", "1.2.4-beta.3", "2.0.0"});
+  }
+
+  @Test
+  public void testTilde() {
+    checkRange("~1.2.3", new String[] {"1.2.3", "1.2.9"}, new String[] {"1.3.0", "1.2.2"});
+    checkRange("~1.2", new String[] {"1.2.0", "1.2.9"}, new String[] {"1.3.0", "1.1.0"});
+    checkRange("~1", new String[] {"1.0.0", "1.9.9"}, new String[] {"2.0.0", "0.9.0"});
+    checkRange("~0.2.3", new String[] {"0.2.3"}, new String[] {"0.3.0"});
+  }
+
+  @Test
+  public void testXRanges() {
+    checkRange("*", new String[] {"0.0.0", "1.2.3", "1.2.3.4", "1.2"},
+               new String[] {"1.2.3-rc"});
+    checkRange("", new String[] {"0.0.0", "9.9.9"}, new String[0]);
+    checkRange("1.x", new String[] {"1.0.0", "1.9.9"}, new String[] {"2.0.0", "0.9.9"});
+    checkRange("1.2.*", new String[] {"1.2.0", "1.2.9"}, new String[] {"1.3.0"});
+    checkRange("1.2", new String[] {"1.2.0", "1.2.9"}, new String[] {"1.3.0"});
+    checkRange(">1.2", new String[] {"1.3.0"}, new String[] {"1.2.9"});
+    checkRange(">1", new String[] {"2.0.0"}, new String[] {"1.9.9"});
+    checkRange("<1.2", new String[] {"1.1.9"}, new String[] {"1.2.0", "1.2.0-rc"});
+    checkRange("<=1.2", new String[] {"1.2.9"}, new String[] {"1.3.0"});
+    checkRange(">=1.2", new String[] {"1.2.0"}, new String[] {"1.1.9"});
+    checkRange("<*", new String[0], new String[] {"0.0.0", "1.0.0"});
+    checkRange(">=*", new String[] {"0.0.0", "1.0.0"}, new String[0]);
+  }
+
+  @Test
+  public void testHyphen() {
+    checkRange("1.2.3 - 2.3.4", new String[] {"1.2.3", "2.3.4"},
+               new String[] {"1.2.2", "2.3.5"});
+    checkRange("1.2 - 2.3", new String[] {"1.2.0", "2.3.9"},
+               new String[] {"1.1.9", "2.4.0"});
+    checkRange("1 - 2", new String[] {"1.0.0", "2.9.9"}, new String[] {"3.0.0"});
+    checkRange("* - 2", new String[] {"0.0.0", "2.9.9"}, new String[] {"3.0.0"});
+  }
+
+  @Test
+  public void testUnion() {
+    final VersionRange range = VersionRange.parse(">=1.0 <2.0 || 3.x || ^2.5.0");
+    checkRange(range, new String[] {"1.0.0", "1.9.9", "3.0.0", "3.9.9", "2.5.0", "2.9.9"},
+               new String[] {"0.9.9", "2.0.0", "2.4.9", "4.0.0"});
+    // overlapping and adjacent alternatives are merged
+    assertEquals(1, VersionRange.parse("1.x || ~1.5 || >=1.9 <1.9.5").intervals(false).length);
+    assertEquals(1, VersionRange.parse(">=1 <2.0.0 || >=2.0.0 <3").intervals(false).length);
+    // prereleases of 2.0.0 are between the alternatives
+    assertEquals(2, VersionRange.parse("1.x || 2.x").intervals(false).length);
+    assertEquals(3, range.intervals(false).length);
+    checkRange("1.2.3 ||", new String[] {"1.2.3", "7.0.0"}, new String[0]);
+  }
+
+  @Test
+  public void testPrereleases() {
+    checkRange(">=1.2.3-beta", new String[] {"1.2.3-beta", "1.2.3-rc", "1.2.3", "1.3.0"},
+               new String[] {"1.2.3-alpha", "1.3.0-rc", "2.0.0-rc"});
+    checkRange("<1.2.3-beta", new String[] {"1.2.3-alpha", "1.2.2"},
+               new String[] {"1.2.3-beta", "1.2.2-rc"});
+    checkRange(">=1.2.3-beta <1.3.0 || >=2.0.0-rc <2.0.0",
+               new String[] {"1.2.3-beta", "2.0.0-rc.1"},
+               new String[] {"1.2.4-rc", "2.0.0-alpha", "2.0.0"});
+    checkRange("1.2.3-beta - 1.2.3-rc", new String[] {"1.2.3-beta.7", "1.2.3-rc"},
+               new String[] {"1.2.3-rc.1", "1.2.3"});
+    final VersionRange range = VersionRange.parse("^1.2").withPrereleases();
+    checkRange(range, new String[] {"1.3.0-rc", "1.2.0", "1.9.9"},
+               new String[] {"1.2.0-rc", "2.0.0-rc", "2.0.0"});
+  }
+
+  @Test
+  public void testCargo() {
+    final VersionRange.Syntax cargo = VersionRange.Syntax.CARGO;
+    checkRange(VersionRange.parse("1.2.3", cargo), new String[] {"1.2.3", "1.9.0"},
+               new String[] {"2.0.0", "1.2.2"});
+    checkRange(VersionRange.parse(">= 1.2, < 1.5", cargo), new String[] {"1.2.0", "1.4.9"},
+               new String[] {"1.5.0", "1.1.0"});
+    checkRange(VersionRange.parse("=1.2.3", cargo), new String[] {"1.2.3"},
+               new String[] {"1.2.4"});
+    checkRange(VersionRange.parse("0.1", cargo), new String[] {"0.1.0", "0.1.9"},
+               new String[] {"0.2.0"});
+    checkRange(VersionRange.parse("~1.2,*", cargo), new String[] {"1.2.0"},
+               new String[] {"1.3.0"});
+  }
+
+  @Test
+  public void testNonSemanticVersions() {
+    // 2 and 2.0 sort below 2.0.0 and so below the bound of the caret range
+    checkRange("^1.2.3", new String[] {"1.2.3.4", "1.3", "1.2.4.0.1", "2", "2.0"},
+               new String[] {"1.2", "2.0.0.0", "1.2.2.9"});
+    // numbers too big for precedence keys
+    checkRange(">=1.2.3 <=5000000.0.0", new String[] {"4999999.0.0", "5000000.0.0"},
+               new String[] {"5000000.0.1", "5000001.0.0"});
+    checkRange(">=1.0.0-a.b", new String[] {"1.0.0-a.b.c", "1.0.0-b", "1.0.0-a.b.0"},
+               new String[] {"1.0.0-a", "1.0.0-a.a"});
+  }
+
+  @Test
+  public void testMalformed() {
+    assertNull(VersionRange.parse(null));
+    final String[] bad = {
+      "1.2.3 - ", "1.2.3 -", ">=", ">=1.2.3 ||| 2.0.0", "1.x.3", "01.2.3", "1.2.3+b",
+      "1.2-beta", "^1.2.3 foo", "1.2.3 - 2.0.0 <3.0.0", "1..2",
+      "99999999999999999999.0.0", String.valueOf(Long.MAX_VALUE) + ".x",
+    };
+    for (String spec : bad) {
+      try {
+        VersionRange.parse(spec);
+        fail("must reject '" + spec + "'");
+      } catch (IllegalArgumentException ex) {
+        assertTrue(ex.getMessage(), ex.getMessage().startsWith("Invalid version range: "));
+      }
+    }
+    final String[] badCargo = {"", "1.2 || 1.3", ">=1.2 <2.0", "1.2,", "1.2 - 1.3"};
+    for (String spec : badCargo) {
+      try {
+        VersionRange.parse(spec, VersionRange.Syntax.CARGO);
+        fail("must reject '" + spec + "'");
+      } catch (IllegalArgumentException ex) {
+        assertTrue(ex.getMessage(), ex.getMessage().startsWith("Invalid version range: "));
+      }
+    }
+  }
+
+  private static final String[] POOL = {
+    "0.0.0", "0.1.0", "1.0.0", "1.0.0-alpha", "1.0.0-alpha.1", "1.0.0-beta", "1.0.0-rc.1",
+    "1.0.1", "1.2.0", "1.2.0-rc", "1.2.3", "1.10.0", "2.0.0", "2.0.0-rc.1", "2.0.0-rc.2",
+    "3.0.0", "3.1.4-x", "10.0.0",
+  };
+
+  private static final String[] OPS = {"<", "<=", ">", ">=", "=", ""};
+
+  private static final String[] PROBES = {
+    "1.0", "1.0.0.0", "2", "1.2.3.4", "1.2.3-rc+b", "0.0.0-0", "4194304.0.0", "1.0.0-alpha.0",
+  };
+
+  /**
+   * Evaluate a range of plain comparators by compareTo.
+   */
+  private static boolean naiveContains(List<List<String[]>> alts, Version ver,
+                                       boolean prereleases) {
+    for (List<String[]> alt : alts) {
+      boolean matches = true;
+      boolean tupleFound = !ver.isPrerelease() || prereleases;
+      for (String[] comparator : alt) {
+        final Version bound = Version.parseVersion(comparator[1]);
+        final int cmp = ver.compareTo(bound);
+        final String op = comparator[0];
+        matches &= op.equals("<") ? cmp < 0
+          : op.equals("<=") ? cmp <= 0
+          : op.equals(">") ? cmp > 0
+          : op.equals(">=") ? cmp >= 0
+          : cmp == 0;
+        tupleFound |= bound.isPrerelease() && ver.getVersions().equals(bound.getVersions());
+      }
+      if (matches && tupleFound) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Test
+  public void testAgainstComparators() {
+    final Random rnd = new Random(41);
+    final List<Version> probes = new ArrayList<Version>();
+    for (String spec : POOL) {
+      probes.add(Version.parseVersion(spec));
+    }
+    for (String spec : PROBES) {
+      probes.add(Version.parseVersion(spec));
+    }
+    for (int round = 0; round < 2000; round++) {
+      final List<List<String[]>> alts = new ArrayList<List<String[]>>();
+      final StringBuilder spec = new StringBuilder();
+      final int nalts = 1 + rnd.nextInt(3);
+      for (int i = 0; i < nalts; i++) {
+        final List<String[]> alt = new ArrayList<String[]>();
+        spec.append(i > 0 ? " || " : "");
+        final int ncomps = 1 + rnd.nextInt(3);
+        for (int j = 0; j < ncomps; j++) {
+          final String[] comparator = {
+            OPS[rnd.nextInt(OPS.length)], POOL[rnd.nextInt(POOL.length)]
+          };
+          alt.add(comparator);
+          spec.append(j > 0 ? " " : "").append(comparator[0]).append(comparator[1]);
+        }
+        alts.add(alt);
+      }
+      final VersionRange range = VersionRange.parse(spec.toString());
+      final VersionRange withPre = range.withPrereleases();
+      for (Version ver : probes) {
+        assertEquals(spec + " on " + ver, naiveContains(alts, ver, false), range.contains(ver));
+        assertEquals(spec + " on " + ver, naiveContains(alts, ver, true), withPre.contains(ver));
+      }
+    }
+  }
+
+  @Test
+  public void testIntersectUnion() {
+    final String[] specs = {
+      "^1.2", "~1.2.3", ">=1.0.0-rc <2", "1.x || 3.x", "*", "<0.5", ">=2.0.0-rc.1", "<*",
+      "1.2.3 - 2.0.0-rc.2", "^0.0.3",
+    };
+    for (String specA : specs) {
+      for (String specB : specs) {
+        final VersionRange rangeA = VersionRange.parse(specA);
+        final VersionRange rangeB = VersionRange.parse(specB);
+        final VersionRange both = rangeA.intersect(rangeB);
+        final VersionRange any = rangeA.union(rangeB);
+        assertEquals("(" + specA + ") && (" + specB + ")", both.toString());
+        for (String spec : POOL) {
+          final Version ver = Version.parseVersion(spec);
+          assertEquals(both + " on " + spec, rangeA.contains(ver) && rangeB.contains(ver),
+                       both.contains(ver));
+          assertEquals(any + " on " + spec, rangeA.contains(ver) || rangeB.contains(ver),
+                       any.contains(ver));
+        }
+      }
+    }
+    assertTrue(VersionRange.parse("^1.2").intersect(VersionRange.parse(">=2")).isEmpty());
+  }
+}
@@ -0,0 +1,187 @@
+package io.opsit.version;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class VersionReaderTests {
+  @Rule
+  public TemporaryFolder tmp = new TemporaryFolder();
+
+  private static final String[] JUNK = {
+    "", "   ", "-rc", "+build", "été", "1.2.3-é", "v1.2", " 1.0\t", "1..2"
+  };
+
+  private Path write(String content) throws IOException {
+    final Path path = tmp.newFile().toPath();
+    Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+    return path;
+  }
+
+  private static List<Version> readAll(VersionReader reader) throws IOException {
+    final List<Version> result = new ArrayList<Version>();
+    try {
+      reader.forEach(result::add);
+    } finally {
+      reader.close();
+    }
+    return result;
+  }
+
+  private List<List<Version>> readAllSources(String content, int column) throws IOException {
+    final Path path = write(content);
+    return Arrays.asList(
+        readAll(new VersionReader(new StringReader(content)).column(column)),
+        readAll(new VersionReader(new ByteArrayInputStream(
+            content.getBytes(StandardCharsets.UTF_8))).column(column)),
+        readAll(VersionReader.open(path).column(column)),
+        readAll(VersionReader.map(path).column(column)),
+        readAll(VersionReader.map(path, 1).column(column)));
+  }
+
+  @Test
+  public void testMatchesParseVersion() throws Exception {
+    final Random rnd = new Random(17);
+    final StringBuilder buf = new StringBuilder();
+    final List<Version> expected = new ArrayList<Version>();
+    // several buffers and mapped windows worth of lines
+    while (buf.length() < 5 * VersionReader.MAX_LINE_LENGTH) {
+      final String line = rnd.nextInt(10) == 0
+          ? JUNK[rnd.nextInt(JUNK.length)] : VersionSorterTests.randomSpec(rnd);
+      buf.append(line).append(rnd.nextBoolean() ? "\n" : "\r\n");
+      final Version ver = Version.parseVersion(line.trim());
+      if (ver.isValid()) {
+        expected.add(ver);
+      }
+    }
+    // last line without terminator
+    buf.append("7.8.9");
+    expected.add(Version.parseVersion("7.8.9"));
+    for (List<Version> result : readAllSources(buf.toString(), -1)) {
+      assertEquals(expected, result);
+    }
+  }
+
+  @Test
+  public void testColumn() throws Exception {
+    final String content = "org.example:lib 1.2.3 jar\n"
+        + "\n"
+        + "  org.example:app\t2.0.0-rc.1\n"
+        + "org.example:none\r\n"
+        + "org.example:rc -rc\n";
+    final List<Version> expected = Arrays.asList(Version.parseVersion("1.2.3"),
+                                                 Version.parseVersion("2.0.0-rc.1"),
+                                                 Version.parseVersion("-rc"));
+    for (List<Version> result : readAllSources(content, 1)) {
+      assertEquals(expected, result);
+    }
+  }
+
+  @Test
+  public void testInvalidLines() throws Exception {
+    final String content = "1.2.3\n-rc\n1.2\n\n1.2.3-a_b\n2.0.0\n";
+    final List<String> invalid = new ArrayList<String>();
+    final VersionReader reader = new VersionReader(new StringReader(content))
+        .requireSemantic(true)
+        .onInvalid(new VersionReader.InvalidLineHandler() {
+            @Override
+            public void invalidLine(long lineNumber, String spec, ParseResult result) {
+              invalid.add(lineNumber + ":" + spec + ":" + result.getError());
+            }
+          });
+    assertEquals(Version.parseVersion("1.2.3"), reader.next());
+    assertEquals(1, reader.getLineNumber());
+    assertEquals(Version.parseVersion("2.0.0"), reader.next());
+    assertNull(reader.next());
+    assertEquals(6, reader.getLineNumber());
+    assertEquals(3, reader.getInvalidCount());
+    assertEquals(Arrays.asList("2:-rc:" + ParseError.INVALID_NUMBER,
+                               "3:1.2:" + ParseError.COMPONENT_COUNT,
+                               "5:1.2.3-a_b:" + ParseError.INVALID_IDENTIFIER),
+                 invalid);
+  }
+
+  @Test
+  public void testTooLong() throws Exception {
+    final char[] longLine = new char[VersionReader.MAX_LINE_LENGTH + 10];
+    Arrays.fill(longLine, '1');
+    for (String content : new String[] {
+        "1.0\n" + new String(longLine) + "\n2.0\n",
+        "1.0\n" + new String(longLine)}) {
+      final Path path = write(content);
+      for (VersionReader reader : new VersionReader[] {
+          new VersionReader(new StringReader(content)), VersionReader.open(path),
+          VersionReader.map(path)}) {
+        final List<ParseError> errors = new ArrayList<ParseError>();
+        reader.onInvalid(new VersionReader.InvalidLineHandler() {
+            @Override
+            public void invalidLine(long lineNumber, String spec, ParseResult result) {
+              assertEquals(2, lineNumber);
+              errors.add(result.getError());
+            }
+          });
+        final List<Version> result = readAll(reader);
+        assertEquals(Arrays.asList(ParseError.TOO_LONG), errors);
+        assertEquals(Version.parseVersion("1.0"), result.get(0));
+        assertEquals(content.endsWith("\n") ? 2 : 1, result.size());
+      }
+    }
+  }
+
+  @Test
+  public void testLineLengthLimit() throws Exception {
+    for (int len : new int[] {VersionReader.MAX_LINE_LENGTH, VersionReader.MAX_LINE_LENGTH + 1}) {
+      final char[] chars = new char[len];
+      Arrays.fill(chars, '1');
+      chars[1] = '.';
+      final String line = new String(chars);
+      final boolean fits = len <= VersionReader.MAX_LINE_LENGTH;
+      for (String content : new String[] {line, line + "\n", "2.0\n" + line, line + "\n2.0\n"}) {
+        final Path path = write(content);
+        for (VersionReader reader : new VersionReader[] {
+            new VersionReader(new StringReader(content)),
+            new VersionReader(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8))),
+            VersionReader.open(path), VersionReader.map(path), VersionReader.map(path, 1)}) {
+          final List<Version> result = readAll(reader);
+          final String msg = len + " " + content.replace(line, "line");
+          assertEquals(msg, fits ? 0 : 1, reader.getInvalidCount());
+          assertEquals(msg, content.contains("2.0") ? 2 : 1, result.size() + (fits ? 0 : 1));
+          if (fits) {
+            assertTrue(msg, result.contains(Version.parseVersion(line)));
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testStream() throws Exception {
+    final Path path = write("1.2.3\n1.2.4\nfoo\n1.10.0\n");
+    try (Stream<Version> stream = VersionReader.map(path).requireSemantic(true).stream()) {
+      assertEquals("1.10.0", stream.max(Version::compareTo).get().toString());
+    }
+    try (Stream<Version> stream = VersionReader.open(path).stream()) {
+      assertEquals(Arrays.asList("1.2.3", "1.2.4", "foo", "1.10.0"),
+                   stream.map(Version::toString).collect(Collectors.toList()));
+    }
+    assertTrue(readAll(VersionReader.open(write(""))).isEmpty());
+    assertTrue(readAll(VersionReader.map(write(""))).isEmpty());
+  }
+}
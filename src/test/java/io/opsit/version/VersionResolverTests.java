@@ -0,0 +1,93 @@
+package io.opsit.version;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class VersionResolverTests {
+  private static Version naiveResolve(List<Version> catalog, List<VersionRange> constraints) {
+    Version result = null;
+    for (Version ver : catalog) {
+      boolean matches = true;
+      for (VersionRange range : constraints) {
+        matches = matches && range.contains(ver);
+      }
+      if (matches && (null == result || ver.compareTo(result) > 0)) {
+        result = ver;
+      }
+    }
+    return result;
+  }
+
+  @Test
+  public void testResolve() {
+    final Random rnd = new Random(41);
+    for (int size : new int[] {0, 1, 20, 3000}) {
+      final List<Version> catalog = VersionSetTests.randomVersions(rnd, size);
+      final VersionResolver resolver = VersionResolver.of(catalog);
+      final List<List<VersionRange>> queries = new ArrayList<List<VersionRange>>();
+      final List<Version> expected = new ArrayList<Version>();
+      int found = 0;
+      for (int i = 0; i < 1000; i++) {
+        final List<VersionRange> constraints = new ArrayList<VersionRange>();
+        final int count = rnd.nextInt(4);
+        for (int j = 0; j < count; j++) {
+          final VersionRange range = VersionRange.parse(VersionRangeIndexTests.randomRange(rnd));
+          constraints.add(rnd.nextInt(10) == 0 ? range.withPrereleases() : range);
+        }
+        if (constraints.isEmpty()) {
+          constraints.add(VersionRange.parse("*"));
+        }
+        final Version naive = naiveResolve(catalog, constraints);
+        final Version resolved = resolver.resolve(constraints);
+        if (null == naive) {
+          assertNull(constraints.toString(), resolved);
+        } else {
+          assertEquals(constraints.toString(), naive.toString(), resolved.toString());
+          found++;
+        }
+        queries.add(constraints);
+        expected.add(resolved);
+      }
+      assertEquals(expected, resolver.resolveAll(queries));
+      assertTrue(size < 1000 || found > 100);
+    }
+  }
+
+  @Test
+  public void testCatalog() {
+    final VersionResolver resolver = VersionResolver.of(Arrays.asList(
+        Version.parseVersion("1.2.0"),
+        Version.parseVersion("1.4.2"),
+        Version.parseVersion("1.5.0-rc.1"),
+        Version.parseVersion("2.0.0-beta.3"),
+        Version.parseVersion("2.0.0"),
+        Version.parseVersion("2.3.1"),
+        Version.parseVersion("3.0.0-alpha")));
+    assertEquals(Version.parseVersion("2.3.1"), resolver.resolve());
+    assertEquals(Version.parseVersion("1.4.2"),
+                 resolver.resolve(VersionRange.parse("^1.2"), VersionRange.parse("<1.6")));
+    assertEquals(Version.parseVersion("1.5.0-rc.1"),
+                 resolver.resolve(VersionRange.parse(">=1.5.0-rc.0 <2")));
+    // every constraint must allow the prerelease
+    assertNull(resolver.resolve(VersionRange.parse("^1.2"), VersionRange.parse(">=1.5.0-rc.0")));
+    assertEquals(Version.parseVersion("2.0.0"),
+                 resolver.resolve(VersionRange.parse(">=1.0 <2.1 || 3.x")));
+    assertEquals(Version.parseVersion("3.0.0-alpha"),
+                 resolver.resolve(VersionRange.parse(">=2").withPrereleases()));
+    assertNull(resolver.resolve(VersionRange.parse("^1.2"), VersionRange.parse("^2.0")));
+    assertNull(resolver.resolve(VersionRange.parse("~2.3.2")));
+    assertEquals(Arrays.asList(Version.parseVersion("1.2.0"), null),
+                 resolver.resolveAll(Arrays.asList(
+                     Collections.singletonList(VersionRange.parse("~1.2")),
+                     Collections.singletonList(VersionRange.parse("4.x")))));
+  }
+}
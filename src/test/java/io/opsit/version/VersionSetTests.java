@@ -0,0 +1,306 @@
+package io.opsit.version;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+public class VersionSetTests {
+  private static final String[] SHORT = {"1", "2", "2.1", "01.5", "3.0.0.1", "2.0-rc.1", "10"};
+
+  static List<Version> randomVersions(Random rnd, int size) {
+    final List<Version> result = new ArrayList<Version>();
+    for (int i = 0; i < size; i++) {
+      final String spec = rnd.nextInt(8) == 0
+          ? SHORT[rnd.nextInt(SHORT.length)] : VersionSorterTests.randomSpec(rnd);
+      result.add(Version.parseVersion(spec));
+    }
+    return result;
+  }
+
+  private static void assertSameVersion(Version expected, Version actual) {
+    if (null == expected) {
+      assertNull(actual);
+    } else {
+      assertEquals(expected.toString(), actual.toString());
+    }
+  }
+
+  private static void checkNavigation(NavigableSet<Version> expected, NavigableSet<Version> set,
+                                      List<Version> probes) {
+    assertEquals(expected.size(), set.size());
+    final List<String> expectedList = new ArrayList<String>();
+    for (Version ver : expected) {
+      expectedList.add(ver.toString());
+    }
+    final List<String> list = new ArrayList<String>();
+    for (Version ver : set) {
+      list.add(ver.toString());
+    }
+    assertEquals(expectedList, list);
+    for (Version probe : probes) {
+      final String msg = probe.toString();
+      assertEquals(msg, expected.contains(probe), set.contains(probe));
+      assertSameVersion(expected.floor(probe), set.floor(probe));
+      assertSameVersion(expected.ceiling(probe), set.ceiling(probe));
+      assertSameVersion(expected.lower(probe), set.lower(probe));
+      assertSameVersion(expected.higher(probe), set.higher(probe));
+    }
+    if (!expected.isEmpty()) {
+      assertSameVersion(expected.first(), set.first());
+      assertSameVersion(expected.last(), set.last());
+    }
+  }
+
+  private static void checkSet(NavigableSet<Version> expected, VersionSet set,
+                               List<Version> probes) {
+    checkNavigation(expected, set, probes);
+    checkNavigation(expected.descendingSet(), set.descendingSet(), probes);
+    Version stable = null;
+    for (Version ver : expected.descendingSet()) {
+      if (ver.getPrereleaseIds().isEmpty()) {
+        stable = ver;
+        break;
+      }
+    }
+    assertSameVersion(stable, set.latestStable());
+  }
+
+  @Test
+  public void testNavigation() {
+    final Random rnd = new Random(23);
+    for (int size : new int[] {0, 1, 2, 50, 3000}) {
+      final List<Version> vers = randomVersions(rnd, size);
+      final TreeSet<Version> expected = new TreeSet<Version>();
+      for (Version ver : vers) {
+        expected.add(ver);
+      }
+      final VersionSet set = VersionSet.copyOf(vers);
+      final List<Version> probes = randomVersions(rnd, 300);
+      checkSet(expected, set, probes);
+      for (int i = 0; i + 1 < probes.size(); i += 2) {
+        Version low = probes.get(i);
+        Version high = probes.get(i + 1);
+        if (low.compareTo(high) > 0) {
+          low = probes.get(i + 1);
+          high = probes.get(i);
+        }
+        final boolean lowInclusive = rnd.nextBoolean();
+        final boolean highInclusive = rnd.nextBoolean();
+        checkSet(expected.subSet(low, lowInclusive, high, highInclusive),
+                 set.subSet(low, lowInclusive, high, highInclusive), probes);
+        checkSet(expected.headSet(high, highInclusive), set.headSet(high, highInclusive), probes);
+        checkSet(expected.tailSet(low, lowInclusive), set.tailSet(low, lowInclusive), probes);
+      }
+    }
+  }
+
+  /**
+   * Make a view of a view, or null if the call throws IllegalArgumentException.
+   */
+  private static NavigableSet<Version> view(NavigableSet<Version> set, int kind,
+                                            Version low, boolean lowInclusive,
+                                            Version high, boolean highInclusive) {
+    try {
+      switch (kind) {
+        case 0:
+          return set.subSet(low, lowInclusive, high, highInclusive);
+        case 1:
+          return set.headSet(high, highInclusive);
+        default:
+          return set.tailSet(low, lowInclusive);
+      }
+    } catch (IllegalArgumentException ex) {
+      return null;
+    }
+  }
+
+  @Test
+  public void testNestedViews() {
+    final Random rnd = new Random(25);
+    final List<Version> vers = randomVersions(rnd, 500);
+    final List<Version> probes = randomVersions(rnd, 100);
+    probes.addAll(vers.subList(0, 100));
+    NavigableSet<Version> expected = new TreeSet<Version>(vers);
+    NavigableSet<Version> set = VersionSet.copyOf(vers);
+    boolean descending = false;
+    int rejected = 0;
+    for (int i = 0; i < 2000; i++) {
+      if (i % 8 == 0) {
+        expected = new TreeSet<Version>(vers);
+        set = VersionSet.copyOf(vers);
+        descending = false;
+      }
+      if (rnd.nextInt(4) == 0) {
+        expected = expected.descendingSet();
+        set = set.descendingSet();
+        descending = !descending;
+      }
+      Version low = probes.get(rnd.nextInt(probes.size()));
+      Version high = probes.get(rnd.nextInt(probes.size()));
+      if (low.compareTo(high) > 0 != descending) {
+        final Version tmp = low;
+        low = high;
+        high = tmp;
+      }
+      final int kind = rnd.nextInt(3);
+      final boolean lowInclusive = rnd.nextBoolean();
+      final boolean highInclusive = rnd.nextBoolean();
+      final NavigableSet<Version> expectedView =
+          view(expected, kind, low, lowInclusive, high, highInclusive);
+      final NavigableSet<Version> setView = view(set, kind, low, lowInclusive, high, highInclusive);
+      if (null == expectedView) {
+        assertNull(low + " " + high, setView);
+        rejected++;
+      } else {
+        checkNavigation(expectedView, setView, probes);
+        expected = expectedView;
+        set = setView;
+      }
+    }
+    assertTrue(rejected > 100);
+  }
+
+  @Test
+  public void testViewRange() {
+    final VersionSet set = VersionSet.of(Version.parseVersion("1.0.0"),
+                                         Version.parseVersion("2.0.0"),
+                                         Version.parseVersion("3.0.0"));
+    assertNull(set.comparator());
+    final VersionSet head = set.headSet(Version.parseVersion("2.0.0"), false);
+    assertEquals(1, head.headSet(Version.parseVersion("2.0.0")).size());
+    assertEquals(0, head.tailSet(Version.parseVersion("2.0.0"), false).size());
+    for (Version ver : Arrays.asList(Version.parseVersion("2.0.0"),
+                                     Version.parseVersion("3.0.0"))) {
+      try {
+        head.tailSet(ver, true).size();
+        fail("must reject " + ver);
+      } catch (IllegalArgumentException ex) {
+        // expected
+      }
+    }
+    try {
+      set.subSet(Version.parseVersion("3.0.0"), Version.parseVersion("1.0.0"));
+      fail("must reject reversed bounds");
+    } catch (IllegalArgumentException ex) {
+      // expected
+    }
+    try {
+      set.majorLine(2).headSet(Version.parseVersion("3.0.0"));
+      fail("must reject bound out of the major line");
+    } catch (IllegalArgumentException ex) {
+      // expected
+    }
+    final NavigableSet<Version> descending = set.descendingSet();
+    assertEquals(Arrays.asList(Version.parseVersion("3.0.0"), Version.parseVersion("2.0.0")),
+                 new ArrayList<Version>(descending.headSet(Version.parseVersion("1.0.0"))));
+    try {
+      set.pollFirst();
+      fail("must be immutable");
+    } catch (UnsupportedOperationException ex) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testMajorLine() {
+    final Random rnd = new Random(24);
+    final VersionSet set = VersionSet.copyOf(randomVersions(rnd, 2000));
+    for (long major : new long[] {0, 1, 2, 3, 10, 11, Long.MAX_VALUE}) {
+      final TreeSet<Version> expected = new TreeSet<Version>();
+      for (Version ver : set) {
+        if (ver.hasMajor() && ver.getMajorNum() == major) {
+          expected.add(ver);
+        }
+      }
+      checkSet(expected, set.majorLine(major), Arrays.asList(set.first(), set.last()));
+      checkSet(expected.headSet(Version.parseVersion(major + ".1"), false),
+               set.majorLine(major).headSet(Version.parseVersion(major + ".1"), false),
+               new ArrayList<Version>(expected));
+    }
+    try {
+      set.majorLine(-1);
+      fail("must reject negative major");
+    } catch (IllegalArgumentException ex) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testLatest() {
+    final VersionSet set = VersionSet.of(Version.parseVersion("2.9.1"),
+                                         Version.parseVersion("3.0.0-rc.2"),
+                                         Version.parseVersion("2.10.0-beta"),
+                                         Version.parseVersion("3.1.0"),
+                                         Version.parseVersion("2.4.0"),
+                                         Version.parseVersion("1.0.0"));
+    final VersionSet below = set.headSet(Version.parseVersion("3.0.0"), false);
+    assertEquals(Version.parseVersion("3.0.0-rc.2"), below.last());
+    assertEquals(Version.parseVersion("2.9.1"), below.latestStable());
+    assertEquals(Version.parseVersion("3.1.0"), set.latestStable());
+    assertEquals(Version.parseVersion("2.4.0"), set.majorLine(2).latest(new Predicate<Version>() {
+        @Override
+        public boolean test(Version ver) {
+          return ver.getMinorNum() < 9;
+        }
+      }));
+    assertNull(set.majorLine(1).headSet(Version.parseVersion("1.0.0"), false).latestStable());
+    assertNull(set.latest(new Predicate<Version>() {
+        @Override
+        public boolean test(Version ver) {
+          return ver.getMajorNum() > 3;
+        }
+      }));
+    assertEquals(Version.parseVersion("3.0.0-rc.2"), set.majorLine(3).first());
+  }
+
+  @Test
+  public void testDuplicates() {
+    final VersionSet set = VersionSet.of(Version.parseVersion("1.0.0-rc.1+b2"),
+                                         Version.parseVersion("2.0.0"),
+                                         Version.parseVersion("1.0.0-rc.1+b1"),
+                                         Version.parseVersion("2.0.0"));
+    assertEquals(2, set.size());
+    assertEquals("1.0.0-rc.1+b2", set.first().toString());
+    assertTrue(set.contains(Version.parseVersion("1.0.0-rc.1")));
+    assertFalse(set.contains("1.0.0-rc.1"));
+    assertSame(set, VersionSet.copyOf(set));
+    assertEquals(set, VersionSet.copyOf(set.toVersionArray()));
+    assertEquals(new TreeSet<Version>(set), set);
+    assertEquals(1, set.tailSet(set.last(), true).toVersionArray().size());
+  }
+
+  @Test
+  public void testEmpty() {
+    final VersionSet set = VersionSet.of();
+    assertTrue(set.isEmpty());
+    assertNull(set.floor(Version.parseVersion("1.0.0")));
+    assertNull(set.latestStable());
+    assertTrue(set.majorLine(1).isEmpty());
+    try {
+      set.first();
+      fail("must throw for empty set");
+    } catch (NoSuchElementException ex) {
+      // expected
+    }
+    try {
+      set.iterator().next();
+      fail("must throw after the last version");
+    } catch (NoSuchElementException ex) {
+      // expected
+    }
+  }
+}
@@ -0,0 +1,108 @@
+package io.opsit.version;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+public class VersionSorterTests {
+  private static final String[] TAGS = {
+    "alpha", "beta", "rc", "SNAPSHOT", "x7", "1", "2", "10"
+  };
+
+  /**
+   * Specifications with and without precedence keys, with many
+   * duplicates and with keyless versions equal to keyed ones ("1.02.3"
+   * and "1.2.3"). Digit led alphanumerics are left out, compareTo is
+   * not transitive for them.
+   */
+  static String randomSpec(Random rnd) {
+    final StringBuilder buf = new StringBuilder();
+    buf.append(rnd.nextInt(3)).append('.');
+    buf.append(rnd.nextInt(8) == 0 ? "0" : "").append(rnd.nextInt(3)).append('.');
+    switch (rnd.nextInt(10)) {
+      case 0:
+        buf.append("4611686018427387904");
+        break;
+      case 1:
+        buf.append(rnd.nextInt(3)).append(".1");
+        break;
+      case 2:
+        buf.append(1048576 + rnd.nextInt(2));
+        break;
+      default:
+        buf.append(rnd.nextInt(3));
+        break;
+    }
+    final int npre = rnd.nextInt(4) == 0 ? 0 : rnd.nextInt(3);
+    for (int i = 0; i < npre; i++) {
+      buf.append(i == 0 ? '-' : '.').append(TAGS[rnd.nextInt(TAGS.length)]);
+    }
+    if (rnd.nextInt(5) == 0) {
+      buf.append("+b").append(rnd.nextInt(3));
+    }
+    return buf.toString();
+  }
+
+  private static void checkSort(Version[] vers) {
+    final List<Version> expected = new ArrayList<Version>(Arrays.asList(vers));
+    Collections.sort(expected);
+    final Version[] actual = vers.clone();
+    Version.sort(actual);
+    assertEquals(expected.size(), actual.length);
+    for (int i = 0; i < actual.length; i++) {
+      // same instances: the sort is stable
+      assertSame("at " + i, expected.get(i), actual[i]);
+    }
+  }
+
+  @Test
+  public void testSortMatchesCollectionsSort() throws Exception {
+    final Random rnd = new Random(15);
+    final int[] sizes = {0, 1, 2, 3, 17, 100, 255, 256, 257, 1000, 20000};
+    for (int size : sizes) {
+      for (int round = 0; round < 3; round++) {
+        final Version[] vers = new Version[size];
+        for (int i = 0; i < size; i++) {
+          vers[i] = Version.parseVersion(randomSpec(rnd));
+        }
+        checkSort(vers);
+      }
+    }
+  }
+
+  @Test
+  public void testSortKeyedOnly() throws Exception {
+    final Random rnd = new Random(16);
+    final Version[] vers = new Version[5000];
+    for (int i = 0; i < vers.length; i++) {
+      vers[i] = Version.parseVersion(rnd.nextInt(4194304) + "." + rnd.nextInt(3) + "."
+                                     + rnd.nextInt(1048576) + (rnd.nextBoolean() ? "-rc" : ""));
+    }
+    checkSort(vers);
+  }
+
+  @Test
+  public void testSortList() throws Exception {
+    final Random rnd = new Random(17);
+    final List<Version> list = new LinkedList<Version>();
+    for (int i = 0; i < 1000; i++) {
+      list.add(Version.parseVersion(randomSpec(rnd)));
+    }
+    final List<Version> expected = new ArrayList<Version>(list);
+    Collections.sort(expected);
+    Version.sort(list);
+    assertEquals(expected, list);
+    int pos = 0;
+    for (Version ver : list) {
+      assertSame(expected.get(pos++), ver);
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package io.opsit.version;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class VersionTasksTests {
+  private static String[] randomSpecs(Random rnd, int size) {
+    final String[] specs = new String[size];
+    for (int i = 0; i < size; i++) {
+      specs[i] = VersionSorterTests.randomSpec(rnd);
+    }
+    return specs;
+  }
+
+  @Test
+  public void testParseAll() throws Exception {
+    final Random rnd = new Random(18);
+    final ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      for (int size : new int[] {0, 10, VersionTasks.THRESHOLD + 1, 50000}) {
+        final String[] specs = randomSpecs(rnd, size);
+        if (size > 0) {
+          specs[size / 2] = null;
+        }
+        final Version[] vers = Version.parseAll(specs, pool);
+        assertEquals(size, vers.length);
+        for (int i = 0; i < size; i++) {
+          assertEquals(specs[i], Version.parseVersion(specs[i]), vers[i]);
+        }
+      }
+      final List<Version> list = Version.parseAll(Arrays.asList("1.2.3", null, "2.0-rc"));
+      assertEquals(Version.parseVersion("1.2.3"), list.get(0));
+      assertNull(list.get(1));
+      assertEquals(Version.parseVersion("2.0-rc"), list.get(2));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testParallelSort() throws Exception {
+    final Random rnd = new Random(19);
+    final ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      for (int size : new int[] {0, 1, 1000, VersionTasks.THRESHOLD + 1, 100003}) {
+        final Version[] vers = Version.parseAll(randomSpecs(rnd, size), pool);
+        final Version[] expected = vers.clone();
+        Version.sort(expected);
+        Version.parallelSort(vers, pool);
+        for (int i = 0; i < size; i++) {
+          // same instances: the parallel sort is stable too
+          assertSame("at " + i, expected[i], vers[i]);
+        }
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testBounds() throws Exception {
+    final Version[] vers = Version.parseAll(new String[] {"1", "2", "2", "2", "3"});
+    assertEquals(1, VersionTasks.lowerBound(vers, 0, 5, Version.parseVersion("2")));
+    assertEquals(4, VersionTasks.upperBound(vers, 0, 5, Version.parseVersion("2")));
+    assertEquals(0, VersionTasks.lowerBound(vers, 0, 5, Version.parseVersion("0")));
+    assertEquals(5, VersionTasks.upperBound(vers, 0, 5, Version.parseVersion("4")));
+  }
+}
@@ -9,7 +9,24 @@ import static org.junit.Assert.fail;
 
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StreamCorruptedException;
+import java.math.BigInteger;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.StringTokenizer;
+import java.util.regex.Pattern;
 
 public class VersionTests {
   @Test
@@ -485,4 +502,756 @@ public class VersionTests {
     assertEquals("1.2.3-alpha.1+build1", v5.toString());
   }
 
+  @Test
+  public void testCompareClassifiedComponents() throws Exception {
+    assertTrue(Version.parseVersion("1.10.0").compareTo(Version.parseVersion("1.9.0")) > 0);
+    Version rc9 = Version.parseVersion("1.0.0-rc.9");
+    assertTrue(Version.parseVersion("1.0.0-rc.10").compareTo(rc9) > 0);
+    assertTrue(Version.parseVersion("1.0.0-rc.a").compareTo(rc9) > 0);
+    assertEquals(0, Version.parseVersion("1.007").compareTo(Version.parseVersion("1.7")));
+    // sub of a longer version leaves null components
+    Version diff = Version.parseVersion("1.2").sub(Version.parseVersion("1.2.3"));
+    assertTrue(diff.compareTo(Version.parseVersion("0.0.0")) < 0);
+    assertEquals(0L, diff.getPatchNum());
+    assertEquals(0L, Version.parseVersion("1.x.3").getMinorNum());
+    assertEquals(0L, Version.parseVersion("1.2.3").getVersionPartNum(-1));
+  }
+
+  @Test
+  public void testSerializationKeepsOrder() throws Exception {
+    Version ver = Version.parseVersion("1.2.3-rc.10");
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    ObjectOutputStream oos = new ObjectOutputStream(bos);
+    oos.writeObject(ver);
+    oos.close();
+    ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()));
+    Version copy = (Version) ois.readObject();
+    assertEquals(ver, copy);
+    assertEquals(3L, copy.getPatchNum());
+    assertTrue(copy.compareTo(Version.parseVersion("1.2.3-rc.9")) > 0);
+  }
+
+  @Test
+  public void testBinaryForm() throws Exception {
+    final List<Version> vers = new ArrayList<Version>();
+    for (String spec : new String[] {
+        "", "1.2.3", "1.2.3-rc.1+build.7", "1.007.-1.+2", "0.0.4611686018427387904",
+        "99999999999999999999.1", "1.2.3-été.ü", "1..2--x++y", "alpha"}) {
+      vers.add(Version.parseVersion(spec));
+    }
+    vers.add(Version.parseVersion("1.2").sub(Version.parseVersion("1.2.3")));
+    vers.add(new Version());
+    final Random rnd = new Random(20);
+    for (int i = 0; i < 1000; i++) {
+      vers.add(Version.parseVersion(VersionSorterTests.randomSpec(rnd)));
+    }
+    assertEquals(10, Version.parseVersion("1.2.3-rc.1").serializedSize());
+    final ByteBuffer buf = ByteBuffer.allocate(1 << 16);
+    final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    final DataOutputStream dos = new DataOutputStream(bos);
+    for (Version ver : vers) {
+      final int pos = buf.position();
+      ver.writeTo(buf);
+      assertEquals(ver.toString(), ver.serializedSize(), buf.position() - pos);
+      ver.writeTo(dos);
+    }
+    ((Buffer) buf).flip();
+    assertEquals(buf.remaining(), bos.size());
+    final DataInputStream dis = new DataInputStream(new ByteArrayInputStream(bos.toByteArray()));
+    for (Version ver : vers) {
+      for (Version copy : new Version[] {Version.readFrom(buf), Version.readFrom(dis)}) {
+        assertEquals(ver, copy);
+        assertEquals(ver.toString(), copy.toString());
+        assertEquals(ver.hashCode(), copy.hashCode());
+        assertEquals(ver.isSemantic(), copy.isSemantic());
+        assertEquals(ver.isValid(), copy.isValid());
+        assertEquals(ver.precedenceKey(), copy.precedenceKey());
+        assertEquals(0, ver.compareTo(copy));
+      }
+    }
+    assertFalse(buf.hasRemaining());
+    assertEquals(-1, dis.read());
+  }
+
+  @Test
+  public void testBinaryFormMalformed() throws Exception {
+    final byte[][] inputs = {
+      {1, 0, 0, 3},
+      {1, 0, 0, (byte) 0x86, 0},
+      {(byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff,
+       (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0},
+    };
+    for (byte[] input : inputs) {
+      try {
+        Version.readFrom(ByteBuffer.wrap(input));
+        fail("IllegalArgumentException expected for " + Arrays.toString(input));
+      } catch (IllegalArgumentException ex) {
+        // expected
+      }
+      try {
+        Version.readFrom(new DataInputStream(new ByteArrayInputStream(input)));
+        fail("StreamCorruptedException expected for " + Arrays.toString(input));
+      } catch (StreamCorruptedException ex) {
+        // expected
+      }
+    }
+    try {
+      Version.readFrom(new DataInputStream(new ByteArrayInputStream(new byte[] {1, 0, 0, 9})));
+      fail("EOFException expected");
+    } catch (EOFException ex) {
+      // expected
+    }
+    final Version empty = Version.mkVersion(Arrays.<Object>asList("1", ""), null, null);
+    assertEquals(empty, Version.readFrom(ByteBuffer.wrap(new byte[] {2, 0, 0, 4, 1})));
+    // canonical numbers sent as text are read as numbers
+    final Version ver = Version.readFrom(ByteBuffer.wrap(new byte[] {1, 0, 0, 5, '4'}));
+    assertEquals(Version.parseVersion("4"), ver);
+    assertEquals(4L, ver.getMajorNum());
+  }
+
+  @Test
+  public void testSerializedSize() throws Exception {
+    final Version ver = Version.parseVersion("1.2.3-rc.10");
+    final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    final ObjectOutputStream oos = new ObjectOutputStream(bos);
+    oos.writeObject(ver);
+    oos.flush();
+    final int first = bos.size();
+    oos.writeObject(Version.parseVersion("1.2.4"));
+    oos.close();
+    // class descriptor is written once, then a handle and the binary form
+    assertTrue("size " + (bos.size() - first), bos.size() - first <= 16);
+    final ObjectInputStream ois = new ObjectInputStream(
+        new ByteArrayInputStream(bos.toByteArray()));
+    assertEquals(ver, ois.readObject());
+    assertEquals(Version.parseVersion("1.2.4"), ois.readObject());
+  }
+
+  /**
+   * Components for which compareTo is transitive: identifiers that
+   * do not start with a digit, a sign or a comma, numbers without
+   * plus sign, no negative zero.
+   */
+  private static final Object[] SORTABLE_COMPS = {
+    "0", "1", "2", "9", "10", "11", "99", "100", "007", "00", "-1", "05", "-3", "-10",
+    "4611686018427387903", "4611686018427387904", "99999999999999999999", "-99999999999999999999",
+    "alpha", "beta", "rc", "RC", "SNAPSHOT", "a", "z", "x-1", "!", "#a", "", ".", "/x",
+    "~", "Z9", String.valueOf((char) 0xe9), String.valueOf((char) 0xff),
+    String.valueOf((char) 0xffff), new String(Character.toChars(0x1f600)), null
+  };
+
+  private static List<Object> randomComps(Random rnd, int max) {
+    final List<Object> result = new ArrayList<Object>();
+    final int size = rnd.nextInt(max + 1);
+    for (int i = 0; i < size; i++) {
+      result.add(SORTABLE_COMPS[rnd.nextInt(rnd.nextBoolean() ? 12 : SORTABLE_COMPS.length)]);
+    }
+    return result;
+  }
+
+  private static int compareUnsigned(byte[] keyA, byte[] keyB) {
+    final int min = Math.min(keyA.length, keyB.length);
+    for (int i = 0; i < min; i++) {
+      final int result = (keyA[i] & 0xff) - (keyB[i] & 0xff);
+      if (result != 0) {
+        return result;
+      }
+    }
+    return keyA.length - keyB.length;
+  }
+
+  private static void checkSortableRoundTrip(Version ver, byte[] key) {
+    final Version copy = Version.fromSortableBytes(key);
+    assertEquals(ver, copy);
+    assertEquals(ver.toString(), copy.toString());
+    assertEquals(ver.precedenceKey(), copy.precedenceKey());
+    assertEquals(ver.isSemantic(), copy.isSemantic());
+    final byte[] padded = new byte[key.length + 3];
+    System.arraycopy(key, 0, padded, 2, key.length);
+    assertEquals(ver, Version.fromSortableBytes(padded, 2, key.length));
+  }
+
+  @Test
+  public void testSortableBytesOrder() throws Exception {
+    final Random rnd = new Random(21);
+    final List<Version> vers = new ArrayList<Version>();
+    for (int i = 0; i < 600; i++) {
+      vers.add(Version.mkVersion(randomComps(rnd, 4), randomComps(rnd, 3), randomComps(rnd, 2)));
+    }
+    for (String spec : new String[] {
+        "", "1.2.3", "1.2.3-rc.1", "1.2.3-rc.1+b", "1.2.3+b", "1.2", "1.2.3.0", "1.07", "1.7"}) {
+      vers.add(Version.parseVersion(spec));
+    }
+    vers.add(new Version());
+    final List<byte[]> keys = new ArrayList<byte[]>();
+    for (Version ver : vers) {
+      final byte[] key = ver.toSortableBytes();
+      checkSortableRoundTrip(ver, key);
+      keys.add(key);
+    }
+    for (int i = 0; i < vers.size(); i++) {
+      for (int j = 0; j < vers.size(); j++) {
+        final Version verA = vers.get(i);
+        final Version verB = vers.get(j);
+        final int expected = Integer.signum(verA.compareTo(verB));
+        final int result = Integer.signum(compareUnsigned(keys.get(i), keys.get(j)));
+        final String msg = verA + " vs " + verB;
+        if (expected != 0) {
+          assertEquals(msg, expected, result);
+        } else {
+          assertEquals(msg, verA.equals(verB), result == 0);
+        }
+      }
+    }
+    assertEquals(10, Version.parseVersion("1.2.3").toSortableBytes().length);
+  }
+
+  @Test
+  public void testSortableBytesRoundTrip() throws Exception {
+    final Random rnd = new Random(22);
+    for (int i = 0; i < 2000; i++) {
+      final Version ver = Version.parseVersion(VersionSorterTests.randomSpec(rnd));
+      checkSortableRoundTrip(ver, ver.toSortableBytes());
+    }
+    final String[] specs = {
+      "1.0.0-rc.-1", "1..2--x++y", "0009.-0.+0-00.x+007", "9.10.1x", "1.2.3-" + (char) 0,
+      "12345678901234567890123456789.1", "1.2.3+" + new String(new char[300]).replace('\0', '7'),
+      "v" + new String(new char[300]).replace('\0', '9')
+    };
+    for (String spec : specs) {
+      final Version ver = Version.parseVersion(spec);
+      checkSortableRoundTrip(ver, ver.toSortableBytes());
+    }
+    final Version diff = Version.parseVersion("1.2").sub(Version.parseVersion("1.2.3"));
+    checkSortableRoundTrip(diff, diff.toSortableBytes());
+    final byte[][] malformed = {
+      {}, {0}, {7, 1}, {7, 1, 0x1a, 2}, {1, 5}, {2, 0}, {2, 0, 1, 0}, {2, 0, 0, 1, 0},
+      {5, (byte) 0xff, 2}, {9, (byte) 0x90, 1, 1, 2}, {2, 2}, {7, 1, 0x10, 2, 0, 0}
+    };
+    for (byte[] bytes : malformed) {
+      try {
+        Version.fromSortableBytes(bytes);
+        fail("IllegalArgumentException expected for " + Arrays.toString(bytes));
+      } catch (IllegalArgumentException ex) {
+        // expected
+      }
+    }
+  }
+
+  @Test
+  public void testIsANum() throws Exception {
+    String[] specs = {
+      "0", "1", "-1", "+1", "-0", "007", "123456789",
+      Long.toString(Long.MAX_VALUE), Long.toString(Long.MIN_VALUE),
+      "9223372036854775808", "-9223372036854775809", "0009223372036854775807",
+      "99999999999999999999", "", "-", "+", "1a", "a1", "alpha", "rc",
+      "SNAPSHOT", "1-2", "1.0", " 1", "1 ", "--1", "+-1", "3f2a9c1"};
+    for (String spec : specs) {
+      boolean expected;
+      try {
+        Long.parseLong(spec);
+        expected = true;
+      } catch (NumberFormatException ex) {
+        expected = false;
+      }
+      assertEquals(spec, expected, Version.isALong(spec, 0, spec.length()));
+      if (expected) {
+        assertEquals(spec, Long.parseLong(spec), Version.atol(spec, 0, spec.length()));
+      }
+      assertEquals(spec, spec.matches("[+-]?[0-9]+"), Version.isANum(spec));
+    }
+    assertFalse(Version.isANum(null));
+  }
+
+  /**
+   * The StringTokenizer based parser Version used to have.
+   */
+  private static List<List<String>> legacyParse(String str) {
+    final List<String> vers = list();
+    final List<String> prerelease = list();
+    final List<String> build = list();
+    List<String> acc = vers;
+    String sep = Version.VERSEP;
+    StringTokenizer st = new StringTokenizer(str, sep, true);
+    while (st.hasMoreTokens()) {
+      String token = st.nextToken(sep);
+      String lastDelim = "";
+      if (st.hasMoreTokens()) {
+        lastDelim = st.nextToken(sep);
+      }
+      acc.add(token);
+      if (Version.VERSEP.equals(sep)) {
+        if ((".".equals(lastDelim)) || "".equals(lastDelim)) {
+          // NOP
+        } else if (lastDelim.contains("-")) {
+          sep = Version.RELSEP;
+          acc = prerelease;
+        }
+      } else if (Version.RELSEP.equals(sep)) {
+        if ((".".equals(lastDelim)) || "".equals(lastDelim)) {
+          // NOP
+        } else if (lastDelim.contains("+")) {
+          sep = Version.BUILDSEP;
+          acc = build;
+        }
+      }
+    }
+    return list(vers, prerelease, build);
+  }
+
+  static String randomSpec(Random rnd, String alphabet, int maxLen) {
+    final int len = rnd.nextInt(maxLen + 1);
+    final StringBuilder buf = new StringBuilder(len);
+    for (int i = 0; i < len; i++) {
+      buf.append(alphabet.charAt(rnd.nextInt(alphabet.length())));
+    }
+    return buf.toString();
+  }
+
+  @Test
+  public void testScannerMatchesTokenizer() throws Exception {
+    final String[] specs = {
+      "", ".", "-", "+", "1", "1.", "1-", "1+", "1..2", "1.-2", "1--2", "1-.2",
+      "1-a+b", "1-a++b", "1+a-b", "1.2+build", "1-a-b.c+d-e.f", "..", "-1",
+      "+1", "1.2.3-", "1.2.3-+", "1.2.3-a.+", "1.2.3-a+b+c", "1.2.3-a+.b",
+      "1.2.3-1.x6+0.a2", "9223372036854775807.9223372036854775808",
+      "1-9223372036854775808.-9223372036854775809.-.+.+-1"};
+    for (String spec : specs) {
+      checkScan(spec);
+    }
+    final Random rnd = new Random(1);
+    for (int i = 0; i < 100000; i++) {
+      checkScan(randomSpec(rnd, "019a.-+", 12));
+    }
+  }
+
+  private static void checkScan(String spec) {
+    final List<List<String>> expected = legacyParse(spec);
+    final Version ver = Version.parseVersion(spec);
+    assertEquals(spec, expected.get(0), ver.getVersions());
+    assertEquals(spec, expected.get(1), ver.getPrereleaseIds());
+    assertEquals(spec, expected.get(2), ver.getBuildIds());
+    final Version made = Version.mkVersion(new ArrayList<Object>(expected.get(0)),
+                                           new ArrayList<Object>(expected.get(1)),
+                                           new ArrayList<Object>(expected.get(2)));
+    assertEquals(spec, made.getMajorNum(), ver.getMajorNum());
+    assertEquals(spec, made.getMinorNum(), ver.getMinorNum());
+    assertEquals(spec, made.getPatchNum(), ver.getPatchNum());
+    assertEquals(spec, 0, made.compareTo(ver));
+    assertEquals(spec, made.toString(), ver.toString());
+    assertEquals(spec, made.hashCode(), ver.hashCode());
+  }
+
+  @Test
+  public void testParseSlices() throws Exception {
+    final String[] specs = {
+      "1.2.3", "1.2.3-1.x6+0.a2", "2.3.1-SNAPSHOT", "1..2", "1.0-βeta+été", ""};
+    final Random rnd = new Random(2);
+    for (int i = 0; i < 10000; i++) {
+      checkSlices(i < specs.length ? specs[i] : randomSpec(rnd, "019a.-+é", 10));
+    }
+  }
+
+  private static void checkSlices(String spec) {
+    final Version expected = Version.parseVersion(spec);
+    final String text = "[" + spec + "]";
+    final int end = text.length() - 1;
+    assertSameParts(spec, expected, Version.parseVersion(text, 1, end));
+    assertSameParts(spec, expected, Version.parseVersion(new StringBuilder(text), 1, end));
+    assertSameParts(spec, expected, Version.parseVersion(text.toCharArray(), 1, spec.length()));
+    final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+    final int blen = bytes.length - 2;
+    assertSameParts(spec, expected, Version.parseVersion(bytes, 1, blen));
+    assertSameParts(spec, expected, Version.parseVersion(ByteBuffer.wrap(bytes), 1, blen));
+    final ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+    direct.put(bytes);
+    assertSameParts(spec, expected, Version.parseVersion(direct, 1, blen));
+  }
+
+  private static void assertSameParts(String spec, Version expected, Version actual) {
+    assertEquals(spec, expected, actual);
+    assertEquals(spec, expected.toString(), actual.toString());
+    assertEquals(spec, 0, expected.compareTo(actual));
+  }
+
+  @Test
+  public void testParseSliceNulls() throws Exception {
+    assertEquals(null, Version.parseVersion((CharSequence) null, 0, 0));
+    assertEquals(null, Version.parseVersion((char[]) null, 0, 0));
+    assertEquals(null, Version.parseVersion((byte[]) null, 0, 0));
+    assertEquals(null, Version.parseVersion((ByteBuffer) null, 0, 0));
+    try {
+      Version.parseVersion("1.2.3", 2, 6);
+      fail("Exception was expected");
+    } catch (IndexOutOfBoundsException ex) {
+      // expected
+    }
+    try {
+      Version.parseVersion(new byte[3], 1, -1);
+      fail("Exception was expected");
+    } catch (IndexOutOfBoundsException ex) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testIntern() throws Exception {
+    final Version v1 = Version.parseVersion("3.1.4-rc.1+b7").intern();
+    Version v2 = Version.parseVersion("3.1.4-rc.1+b7");
+    assertTrue(v1 != v2);
+    assertTrue(v1 == v2.intern());
+    Version v3 = Version.mkSemVersion(3, 1, 4, list((Object) "rc", 1), list((Object) "b7"));
+    assertTrue(v1 == v3.intern());
+    assertFalse(v1 == Version.parseVersion("3.1.4-rc.1").intern());
+  }
+
+  @Test
+  public void testCommonComponentsShared() throws Exception {
+    Version v1 = Version.parseVersion("1.0.12-alpha.SNAPSHOT+rc");
+    Version v2 = Version.parseVersion("[1.0.12-alpha.SNAPSHOT+rc]".toCharArray(), 1, 24);
+    assertEquals(v1, v2);
+    for (int i = 0; i < 3; i++) {
+      assertTrue(v1.getVersions().get(i) == v2.getVersions().get(i));
+    }
+    assertTrue(v1.getPrereleaseIds().get(0) == v2.getPrereleaseIds().get(0));
+    assertTrue(v1.getPrereleaseIds().get(1) == v2.getPrereleaseIds().get(1));
+    assertTrue(v1.getBuildIds().get(0) == v2.getBuildIds().get(0));
+    // not canonical numbers are kept as they are
+    assertEquals(list("01", "0"), Version.parseVersion("01.0-+1").getVersions());
+    assertEquals(list("b", "+1"), Version.parseVersion("1-a+b.+1").getBuildIds());
+  }
+
+  @Test
+  public void testHashCodeConsistentWithEquals() throws Exception {
+    Version v1 = Version.parseVersion("1.2.3-1+2");
+    Version v2 = Version.mkSemVersion(1L, 2L, 3L, list(1), list(2));
+    assertEquals(v1, v2);
+    assertEquals(v1.hashCode(), v2.hashCode());
+    assertEquals(v1.hashCode(), v1.hashCode());
+    assertFalse(Version.parseVersion("1.2-3").hashCode()
+                == Version.parseVersion("1.2.3").hashCode());
+    Version diff = Version.parseVersion("1.2").sub(Version.parseVersion("1.2.3"));
+    Version diff2 = Version.parseVersion("1.2").sub(Version.parseVersion("1.2.3"));
+    assertEquals(diff, diff2);
+    assertEquals(diff.hashCode(), diff2.hashCode());
+  }
+
+  @Test
+  public void testToStringCached() throws Exception {
+    String spec = new String("1.2.3-rc.1+b5".toCharArray());
+    Version ver = Version.parseVersion(spec);
+    assertTrue(spec == ver.toString());
+    String[] specs = {"1..2", "1.2+b", "1.2.3-", "1.2.3-a.", "1.-2", "1-.2", "1-a-b+c+d"};
+    for (String nonCanonical : specs) {
+      ver = Version.parseVersion(nonCanonical);
+      final String str = ver.toString();
+      assertTrue(str == ver.toString());
+      assertEquals(Version.mkVersion(new ArrayList<Object>(ver.getVersions()),
+                                     new ArrayList<Object>(ver.getPrereleaseIds()),
+                                     new ArrayList<Object>(ver.getBuildIds())).toString(),
+                   str);
+    }
+    assertEquals("1..", Version.parseVersion("1..2").toString());
+    assertEquals("1.2.b", Version.parseVersion("1.2+b").toString());
+    assertEquals("1-a-b+c+d", Version.parseVersion("1-a-b+c+d").toString());
+  }
+
+  @Test
+  public void testCompactComponents() throws Exception {
+    // canonical numbers, number texts and text of all the sizes
+    final String[] specs = {
+      "007.01.00-00.x+0.01", "4611686018427387903.4611686018427387904.9223372036854775807",
+      "9223372036854775808.1-rc.18446744073709551616", "10.9.100a-10.9.100a"
+    };
+    for (String spec : specs) {
+      final Version ver = Version.parseVersion(spec);
+      final Version made = Version.mkVersion(new ArrayList<Object>(ver.getVersions()),
+                                             new ArrayList<Object>(ver.getPrereleaseIds()),
+                                             new ArrayList<Object>(ver.getBuildIds()));
+      assertEquals(spec, made, ver);
+      assertEquals(spec, made.hashCode(), ver.hashCode());
+      assertEquals(spec, spec, made.toString());
+    }
+    Version ver = Version.mkVersion(list((Object) "-1", "+2", "03"), list(), list());
+    assertEquals(-1L, ver.getMajorNum());
+    assertEquals(2L, ver.getMinorNum());
+    assertEquals(3L, ver.getPatchNum());
+    assertEquals("-1.+2.03", ver.toString());
+    assertEquals(list("-1", "+2", "03"), ver.getVersions());
+    assertTrue(Version.parseVersion("1.2.3").compareTo(ver) > 0);
+    ver = Version.parseVersion(specs[1]);
+    assertEquals(4611686018427387903L, ver.getMajorNum());
+    assertEquals(4611686018427387904L, ver.getMinorNum());
+    assertEquals(Long.MAX_VALUE, ver.getPatchNum());
+    assertFalse(Version.parseVersion("1.007").equals(Version.parseVersion("1.7")));
+    assertEquals(0, Version.parseVersion("1.007").compareTo(Version.parseVersion("1.7")));
+    assertTrue(Version.parseVersion("1.7").compareTo(Version.parseVersion("1.7a")) < 0);
+    assertTrue(Version.parseVersion("1.80").compareTo(Version.parseVersion("1.8a")) < 0);
+    assertTrue(Version.parseVersion("1.9").compareTo(Version.parseVersion("1.10a")) > 0);
+    ver = Version.parseVersion("1.2.3").sub(Version.parseVersion("1.2.3-4"));
+    assertEquals(list("0", "0", "0"), ver.getVersions());
+    assertEquals(Arrays.asList((String) null), ver.getPrereleaseIds());
+    assertEquals("0.0.0-null", ver.toString());
+    try {
+      ver.getVersions().set(0, "1");
+      fail("Exception was expected");
+    } catch (UnsupportedOperationException ex) {
+      // expected
+    }
+    try {
+      ver.getVersions().get(3);
+      fail("Exception was expected");
+    } catch (IndexOutOfBoundsException ex) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testPrecedenceKey() throws Exception {
+    assertTrue(Version.parseVersion("0.0.0-a").precedenceKey() >= 0);
+    assertTrue(Version.parseVersion("4194303.1048575.1048575").precedenceKey() >= 0);
+    final String[] nokey = {
+      "1.2", "1.2.3.4", "4194304.0.0", "0.1048576.0", "0.0.1048576", "1.02.3", "1.x.3", ""
+    };
+    for (String spec : nokey) {
+      assertEquals(spec, Version.NO_PRECEDENCE_KEY, Version.parseVersion(spec).precedenceKey());
+    }
+    assertEquals(Version.parseVersion("1.2.3-rc").precedenceKey(),
+                 Version.parseVersion("1.2.3-rc+b7").precedenceKey());
+    assertTrue(Version.parseVersion("1.2.3").precedenceKey()
+               > Version.parseVersion("1.2.3-rc").precedenceKey());
+    assertEquals(Version.parseVersion("1.2.3-alpha").precedenceKey(),
+                 Version.parseVersion("1.2.3-beta.2").precedenceKey());
+    final Random rnd = new Random(9);
+    final String[] prerelease = {"", "", "-rc", "-rc.1", "-rc.2", "-alpha", "-1"};
+    final Version[] vers = new Version[400];
+    for (int i = 0; i < vers.length; i++) {
+      vers[i] = Version.parseVersion(
+          (i % 50 == 0 ? "4194304" : Integer.toString(rnd.nextInt(3))) + "."
+          + rnd.nextInt(3) + "." + (i % 40 == 0 ? "1048576" : Integer.toString(rnd.nextInt(3)))
+          + (i % 30 == 0 ? ".1" : "")
+          + prerelease[rnd.nextInt(prerelease.length)]);
+    }
+    for (Version vi : vers) {
+      for (Version vj : vers) {
+        final int expected = Integer.signum(referenceCompare(vi, vj));
+        assertEquals(vi + " vs " + vj, expected, Integer.signum(vi.compareTo(vj)));
+        if (vi.precedenceKey() >= 0 && vj.precedenceKey() >= 0
+            && vi.precedenceKey() != vj.precedenceKey()) {
+          assertEquals(vi + " vs " + vj, expected,
+                       Long.signum(vi.precedenceKey() - vj.precedenceKey()));
+        }
+      }
+    }
+  }
+
+  /**
+   * compareTo implemented over the component lists.
+   */
+  private static int referenceCompare(Version va, Version vb) {
+    int result = compareParts(va.getVersions(), vb.getVersions());
+    if (result != 0) {
+      return result;
+    }
+    final List<String> pa = va.getPrereleaseIds();
+    final List<String> pb = vb.getPrereleaseIds();
+    if (pa.isEmpty() || pb.isEmpty()) {
+      return pb.size() - pa.size();
+    }
+    return compareParts(pa, pb);
+  }
+
+  private static int compareParts(List<String> pa, List<String> pb) {
+    for (int i = 0; i < pa.size(); i++) {
+      final int result = Version.compareVerComp(pa.get(i), i < pb.size() ? pb.get(i) : null);
+      if (result != 0) {
+        return result;
+      }
+    }
+    return pa.size() - pb.size();
+  }
+
+  @Test
+  public void testCompareSpecs() throws Exception {
+    final String[] specs = {
+      "", ".", "-", "+", "1", "1.", "1-", "1.0", "1.0.0", "1.0.0-", "1.0.0-rc", "1.0.0-rc.1",
+      "1.0.0-rc.1+b2", "1.0.0+b", "1..2", "1.-2", "1-a+b", "1-a++b", "1.2+build", "01.2",
+      "-1.2", "+1.2", "1.10", "1.9", "1.10a", "9223372036854775808", "1.2.3-a.b.c.d",
+      "1.2.3-a.b", "1.2.3-A", "1.2.3-1.x", "1.2.3-x.1", "1.2.3.4-1"
+    };
+    for (String specA : specs) {
+      for (String specB : specs) {
+        checkCompare(specA, specB);
+      }
+    }
+    final Random rnd = new Random(11);
+    final String[] alphabets = {"01.-+", "0129a.-+", "0123456789.-", "0ab.-+Z"};
+    for (int i = 0; i < 100000; i++) {
+      final String alphabet = alphabets[i % alphabets.length];
+      checkCompare(randomSpec(rnd, alphabet, 12), randomSpec(rnd, alphabet, 12));
+    }
+    assertEquals(0, Version.compare(null, null));
+    assertTrue(Version.compare(null, "") < 0);
+    assertTrue(Version.compare("", null) > 0);
+    final List<String> sorted = new ArrayList<String>(
+        Arrays.asList("1.10.0", "1.2.0", "1.2.0-rc.1", "1.2.0-alpha", "0.9"));
+    sorted.sort(Version.SPEC_ORDER);
+    assertEquals(Arrays.asList("0.9", "1.2.0-alpha", "1.2.0-rc.1", "1.2.0", "1.10.0"), sorted);
+  }
+
+  private static void checkCompare(String specA, String specB) {
+    final int expected = Integer.signum(
+        Version.parseVersion(specA).compareTo(Version.parseVersion(specB)));
+    assertEquals(specA + " vs " + specB, expected, Integer.signum(Version.compare(specA, specB)));
+    assertEquals(specA + " vs " + specB, expected,
+                 Integer.signum(Version.compare(new StringBuilder(specA), specB)));
+  }
+
+  @Test
+  public void testSemanticFlags() throws Exception {
+    final String[] specs = {
+      "1.2.3", "0.0.0", "01.2.3", "1.2.03", "+1.2.3", "-0.1.2", "-1.2.3", "1.2", "1.2.3.4",
+      "1.2.3-rc.1+b.7", "1.2.3-rc_1", "1.2.3-", "1.2.3-a..b", "1.2.3-a+", "1.2.3-Z-9.-",
+      "1.2.3-é", "9223372036854775808.1.1", "4611686018427387904.1.1", "x", "", "-1"
+    };
+    for (String spec : specs) {
+      checkFlags(Version.parseVersion(spec));
+    }
+    final Random rnd = new Random(12);
+    for (int i = 0; i < 20000; i++) {
+      checkFlags(Version.parseVersion(randomSpec(rnd, "0123a_.-+", 12)));
+    }
+    checkFlags(Version.parseVersion("1.2.3").sub(Version.parseVersion("1.2.3.4")));
+    checkFlags(Version.parseVersion("1.2.3").sub(Version.parseVersion("1.2.3-4")));
+    assertTrue(Version.parseVersion("0.1.2").isDevelopment());
+    assertFalse(Version.parseVersion("1.1.2").isDevelopment());
+  }
+
+  private static final Pattern ID_PAT = Pattern.compile("^[0-9a-z-]+$", Pattern.CASE_INSENSITIVE);
+
+  private static void checkFlags(Version ver) {
+    boolean semantic = ver.getVersions().size() == 3;
+    for (String part : ver.getVersions()) {
+      semantic = semantic && null != part && !(part.length() > 1 && part.charAt(0) == '0')
+        && Version.isANum(part) && new BigInteger(part).signum() >= 0;
+    }
+    final List<String> ids = new ArrayList<String>(ver.getPrereleaseIds());
+    ids.addAll(ver.getBuildIds());
+    for (String id : ids) {
+      semantic = semantic && null != id && ID_PAT.matcher(id).matches();
+    }
+    assertEquals(ver.toString(), semantic, ver.isSemantic());
+    assertEquals(ver.toString(), ver.hasMajor() && ver.getMajorNum() >= 0, ver.isValid());
+  }
+
+  @Test
+  public void testTryParse() throws Exception {
+    ParseResult result = Version.tryParseSemantic("1.2.3-rc.1");
+    assertTrue(result.isSuccess());
+    assertEquals(Version.parseVersion("1.2.3-rc.1"), result.getVersion());
+    assertEquals(null, result.getError());
+    assertEquals(-1, result.getPosition());
+    checkFailure(ParseError.NULL_SPEC, 0, Version.tryParseSemantic(null));
+    checkFailure(ParseError.NULL_SPEC, 0, Version.tryParseValid(null));
+    checkFailure(ParseError.EMPTY, 0, Version.tryParseValid(""));
+    checkFailure(ParseError.EMPTY, 0, Version.tryParseSemantic(""));
+    assertTrue(Version.tryParseValid("x.y").isSuccess());
+    checkFailure(ParseError.COMPONENT_COUNT, 3, Version.tryParseSemantic("1.2-rc"));
+    checkFailure(ParseError.COMPONENT_COUNT, 6, Version.tryParseSemantic("1.2.3.4"));
+    checkFailure(ParseError.INVALID_NUMBER, 2, Version.tryParseSemantic("1.02.3"));
+    checkFailure(ParseError.INVALID_NUMBER, 4, Version.tryParseSemantic("1.2.x"));
+    checkFailure(ParseError.INVALID_IDENTIFIER, 8, Version.tryParseSemantic("1.2.3-rc_1"));
+    checkFailure(ParseError.INVALID_IDENTIFIER, 8, Version.tryParseSemantic("1.2.3-a..b"));
+    checkFailure(ParseError.INVALID_IDENTIFIER, 9, Version.tryParseSemantic("1.2.3-a+b+c"));
+    // shared failures for short specifications
+    assertTrue(Version.tryParseSemantic("1.2.x") == Version.tryParseSemantic("3.4.y"));
+    final StringBuilder longSpec = new StringBuilder("1.2.3-");
+    for (int i = 0; i < 100; i++) {
+      longSpec.append('a');
+    }
+    longSpec.append('!');
+    checkFailure(ParseError.INVALID_IDENTIFIER, 106,
+                 Version.tryParseSemantic(longSpec.toString()));
+    try {
+      Version.parseSemanticVersion("1.2.3-rc_1");
+      fail("Exception was expected");
+    } catch (IllegalArgumentException ex) {
+      assertEquals("Not a semantic version specification: "
+                   + "invalid prerelease or build identifier at position 8", ex.getMessage());
+    }
+    assertEquals(null, Version.parseValidVersion(null));
+    assertEquals(null, Version.parseSemanticVersion(null));
+    // every rejected specification gets a reason
+    final Random rnd = new Random(13);
+    for (int i = 0; i < 20000; i++) {
+      final String spec = randomSpec(rnd, "0123a_.-+", 12);
+      final Version ver = Version.parseVersion(spec);
+      result = Version.tryParseSemantic(spec);
+      assertEquals(spec, ver.isSemantic(), result.isSuccess());
+      assertEquals(spec, ver.isValid(), Version.tryParseValid(spec).isSuccess());
+      assertTrue(spec, result.isSuccess() || result.getPosition() <= spec.length());
+    }
+  }
+
+  private static void checkFailure(ParseError error, int position, ParseResult result) {
+    assertFalse(result.isSuccess());
+    assertEquals(null, result.getVersion());
+    assertEquals(error, result.getError());
+    assertEquals(position, result.getPosition());
+  }
+
+  @Test
+  public void testLongNumbers() throws Exception {
+    final String stamp = "20231015123045123456";
+    assertTrue(Version.compareVerComp(stamp, "20231015123045123455") > 0);
+    assertTrue(Version.compareVerComp(stamp, "9") > 0);
+    assertTrue(Version.compareVerComp("-" + stamp, "9") < 0);
+    assertTrue(Version.compareVerComp("000" + stamp, stamp) == 0);
+    assertTrue(Version.compareVerComp("-0", "+0") == 0);
+    final String[] ordered = {
+      "1.0.0-" + "-99999999999999999999", "1.0.0--1", "1.0.0-0", "1.0.0-7",
+      "1.0.0-9223372036854775807", "1.0.0-9223372036854775808",
+      "1.0.0-" + stamp, "1.0.0-" + stamp + "0", "1.0.0",
+      "1.4611686018427387903.0", "1.4611686018427387904.0", "1.00004611686018427387905.0",
+      "1.9223372036854775808.0", "1." + stamp + ".0", "1.1" + stamp + ".0"
+    };
+    for (int i = 0; i < ordered.length; i++) {
+      for (int j = 0; j < ordered.length; j++) {
+        final Version vi = Version.parseVersion(ordered[i]);
+        final Version vj = Version.parseVersion(ordered[j]);
+        final int expected = Integer.signum(i - j);
+        assertEquals(vi + " vs " + vj, expected, Integer.signum(vi.compareTo(vj)));
+        assertEquals(vi + " vs " + vj, expected,
+                     Integer.signum(Version.compare(ordered[i], ordered[j])));
+      }
+    }
+    final Version ver = Version.parseVersion(stamp + ".9223372036854775807.9223372036854775808");
+    assertTrue(ver.isSemantic());
+    assertEquals(Long.MAX_VALUE, ver.getMajorNum());
+    assertEquals(Long.MAX_VALUE, ver.getMinorNum());
+    assertEquals(Long.MAX_VALUE, ver.getPatchNum());
+    assertEquals(Long.MIN_VALUE,
+                 Version.mkVersion(list((Object) ("-" + stamp)), list(), list()).getMajorNum());
+    assertEquals("20231015123045123457.9223372036854775808.9223372036854775809",
+                 ver.add(Version.parseVersion("1.1.1")).toString());
+    assertEquals("20231015123045123455.9223372036854775806.9223372036854775807",
+                 ver.sub(Version.parseVersion("1.1.1")).toString());
+    assertEquals("0.0.0", ver.sub(ver).toString());
+    final Random rnd = new Random(14);
+    for (int i = 0; i < 20000; i++) {
+      final long al = rnd.nextLong() >> rnd.nextInt(64);
+      final long bl = rnd.nextLong() >> rnd.nextInt(64);
+      final BigInteger ba = BigInteger.valueOf(al).multiply(BigInteger.TEN.pow(rnd.nextInt(3)));
+      final BigInteger bb = BigInteger.valueOf(bl).multiply(BigInteger.TEN.pow(rnd.nextInt(3)));
+      final String sa = ba.toString();
+      final String sb = (rnd.nextBoolean() ? "+00" : "") + bb.abs().toString();
+      final BigInteger bbv = new BigInteger(sb.replace("+", ""));
+      assertEquals(sa + " + " + sb, ba.add(bbv).toString(), Version.addNumbers(sa, sb, false));
+      assertEquals(sa + " - " + sb, ba.subtract(bbv).toString(),
+                   Version.addNumbers(sa, sb, true));
+      assertEquals(sa + " <> " + sb, ba.compareTo(bbv),
+                   Integer.signum(Version.compareNumbers(sa, 0, sa.length(), sb, 0, sb.length())));
+    }
+  }
+
 }
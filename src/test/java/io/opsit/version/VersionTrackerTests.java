@@ -0,0 +1,111 @@
+package io.opsit.version;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class VersionTrackerTests {
+  private static final int THREADS = 4;
+  private static final int KEYS = 50;
+
+  private static Map<String, Version> naiveMax(List<Version> vers, int offset, Boolean prerelease,
+                                               Map<String, Version> result) {
+    for (int i = 0; i < vers.size(); i++) {
+      final Version ver = vers.get(i);
+      final String key = "key" + ((i + offset) % KEYS);
+      if (null != prerelease && prerelease != ver.isPrerelease()) {
+        continue;
+      }
+      final Version cur = result.get(key);
+      if (null == cur || ver.compareTo(cur) > 0) {
+        result.put(key, ver);
+      }
+    }
+    return result;
+  }
+
+  @Test
+  public void testConcurrentUpdates() throws InterruptedException {
+    final Random rnd = new Random(51);
+    final VersionTracker<String> tracker = new VersionTracker<String>();
+    final VersionTracker<String> separate = new VersionTracker<String>(true);
+    final Thread[] threads = new Thread[THREADS];
+    final Map<String, Version> expected = new HashMap<String, Version>();
+    final Map<String, Version> stable = new HashMap<String, Version>();
+    final Map<String, Version> prerelease = new HashMap<String, Version>();
+    for (int t = 0; t < THREADS; t++) {
+      final int offset = t;
+      final List<Version> vers = VersionSetTests.randomVersions(rnd, 20000);
+      naiveMax(vers, offset, null, expected);
+      naiveMax(vers, offset, false, stable);
+      naiveMax(vers, offset, true, prerelease);
+      threads[t] = new Thread(new Runnable() {
+          @Override
+          public void run() {
+            for (int i = 0; i < vers.size(); i++) {
+              tracker.update("key" + ((i + offset) % KEYS), vers.get(i));
+              separate.update("key" + ((i + offset) % KEYS), vers.get(i));
+            }
+          }
+        });
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(KEYS, tracker.size());
+    for (Map.Entry<String, Version> entry : expected.entrySet()) {
+      final String key = entry.getKey();
+      assertEquals(key, 0, entry.getValue().compareTo(tracker.latest(key)));
+      assertEquals(key, 0, entry.getValue().compareTo(separate.latest(key)));
+      assertEquals(key, 0, stable.get(key).compareTo(separate.latestStable(key)));
+      assertEquals(key, 0, prerelease.get(key).compareTo(separate.latestPrerelease(key)));
+    }
+    assertEquals(expected.keySet(), tracker.snapshot().keySet());
+  }
+
+  @Test
+  public void testUpdate() {
+    final VersionTracker<String> tracker = new VersionTracker<String>(true);
+    assertTrue(tracker.hasSeparatePrereleases());
+    assertTrue(tracker.update("lib", "1.2.0"));
+    assertFalse(tracker.update("lib", "1.1.9"));
+    assertFalse(tracker.update("lib", "1.2.0"));
+    assertTrue(tracker.update("lib", "2.0.0-rc.1"));
+    assertTrue(tracker.update("lib", "1.3.0"));
+    assertEquals(Version.parseVersion("2.0.0-rc.1"), tracker.latest("lib"));
+    assertEquals(Version.parseVersion("1.3.0"), tracker.latestStable("lib"));
+    assertEquals(Version.parseVersion("2.0.0-rc.1"), tracker.latestPrerelease("lib"));
+    assertTrue(tracker.update("lib", "2.0.0"));
+    assertEquals(Version.parseVersion("2.0.0"), tracker.latest("lib"));
+    assertNull(tracker.latest("app"));
+    assertNull(tracker.latestPrerelease("app"));
+
+    final VersionTracker<String> plain = new VersionTracker<String>();
+    assertTrue(plain.update("lib", "2.0.0-rc.1"));
+    assertFalse(plain.update("lib", "1.3.0"));
+    try {
+      plain.latestStable("lib");
+      fail("must not track releases apart");
+    } catch (IllegalStateException ex) {
+      // expected
+    }
+    try {
+      plain.update("lib", (Version) null);
+      fail("must reject null version");
+    } catch (NullPointerException ex) {
+      // expected
+    }
+  }
+}